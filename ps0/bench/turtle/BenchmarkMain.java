@@ -0,0 +1,37 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the turtle benchmarks with the GC profiler, which adds allocation
+ * rate (gc.alloc.rate.norm, bytes per operation) to each score.
+ *
+ * The benchmarks live in their own source folder, bench, next to src, so
+ * that the lab project itself does not need JMH. To run them, compile src
+ * and bench together with jmh-core and jmh-generator-annprocess on the
+ * classpath, with annotation processing enabled, then run this class.
+ */
+public class BenchmarkMain {
+
+    /**
+     * Run the benchmarks.
+     *
+     * @param args optional regular expression selecting benchmarks to run,
+     *             for example "Frame" or "DrawableTurtleBenchmark.forward"
+     * @throws RunnerException if a benchmark cannot be run
+     */
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(args.length > 0 ? args[0] : "turtle\\..*Benchmark")
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,122 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of recording actions with DrawableTurtle.
+ *
+ * Each invocation creates a turtle and draws a whole program of the given
+ * number of actions on it, so the numbers include growing the action list
+ * and segment store. The turtle is created in the benchmark method rather
+ * than in a per-invocation setup, whose timing overhead would swamp the
+ * microseconds a short program takes. Scores are whole programs per
+ * microsecond, so compare them between runs with the same number of actions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx6g", "-Djava.awt.headless=true" })
+public class DrawableTurtleBenchmark {
+
+    @Param({ "1000", "100000", "10000000" })
+    public int actions;
+
+    @Benchmark
+    public DrawableTurtle forward() {
+        DrawableTurtle turtle = new DrawableTurtle();
+        for (int i = 0; i < actions; i++) {
+            turtle.forward(i & 63);
+        }
+        return turtle;
+    }
+
+    @Benchmark
+    public DrawableTurtle turn() {
+        DrawableTurtle turtle = new DrawableTurtle();
+        for (int i = 0; i < actions; i++) {
+            turn(turtle, i);
+        }
+        return turtle;
+    }
+
+    @Benchmark
+    public DrawableTurtle color() {
+        DrawableTurtle turtle = new DrawableTurtle();
+        PenColor[] colors = PenColor.values();
+        for (int i = 0; i < actions; i++) {
+            turtle.color(colors[i % colors.length]);
+        }
+        return turtle;
+    }
+
+    /*
+     * A typical program: mostly moves, some turns, occasional color changes.
+     */
+    @Benchmark
+    public DrawableTurtle mixed() {
+        DrawableTurtle turtle = new DrawableTurtle();
+        PenColor[] colors = PenColor.values();
+        for (int i = 0; i < actions; i++) {
+            if (i % 64 == 63) {
+                turtle.color(colors[(i / 64) % colors.length]);
+            } else if (i % 4 == 3) {
+                turn(turtle, i);
+            } else {
+                turtle.forward(i & 15);
+            }
+        }
+        return turtle;
+    }
+
+    /*
+     * Alternate multiples of 15 degrees, which take the exact path, with
+     * arbitrary angles, which do not.
+     */
+    private static void turn(DrawableTurtle turtle, int i) {
+        turtle.turn((i & 1) == 0 ? 90 : 0.5 + (i & 7));
+    }
+
+    /*
+     * Polygons drawn with the batched Turtle.regularPolygon, which
+     * DrawableTurtle records as one action per polygon, with as many sides in
+     * total as there are actions.
+     */
+    @Benchmark
+    public DrawableTurtle regularPolygon() {
+        DrawableTurtle turtle = new DrawableTurtle();
+        int sides = 360;
+        for (int drawn = 0; drawn < actions; drawn += sides) {
+            turtle.regularPolygon(sides, 10);
+        }
+        return turtle;
+    }
+
+    /*
+     * Circles drawn with Turtle.arc, each recorded as one action, with as
+     * many circles as there would be actions drawing them a degree at a time.
+     */
+    @Benchmark
+    public DrawableTurtle arc() {
+        DrawableTurtle turtle = new DrawableTurtle();
+        for (int drawn = 0; drawn < actions; drawn += 720) {
+            turtle.arc(60, 360);
+        }
+        return turtle;
+    }
+}
@@ -0,0 +1,88 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+import java.awt.Rectangle;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of drawing animation frames into a canvas image, without a screen.
+ *
+ * TurtleGUI is a window and cannot be created headless, so animationFrame
+ * runs the FramePainter that its animation timer drives, on a 512x512 canvas
+ * fitted to the drawing: draw up to the frame's time on the AnimationSchedule
+ * and take the area to repaint. Frames are drawn without the window's
+ * drawing-time limit, so each one does all the work due by its time.
+ * Successive invocations play successive frames, starting over when the
+ * drawing is finished. fullRedraw measures redrawing the finished drawing,
+ * as when the view is zoomed or panned.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx6g", "-Djava.awt.headless=true" })
+public class FrameBenchmark {
+
+    private static final int CANVAS_SIZE = 512;
+    private static final int MILLIS_PER_FRAME = 1000 / 60;
+
+    @Param({ "1000", "100000", "10000000" })
+    public int actions;
+
+    private AnimationSchedule schedule;
+    private FramePainter animation;
+    private FramePainter finished;
+
+    private long elapsedMillis;
+
+    @Setup
+    public void createDrawing() {
+        // a square spiral in all colors
+        DrawableTurtle turtle = new DrawableTurtle();
+        PenColor[] colors = PenColor.values();
+        for (int i = 0; i < actions; i += 3) {
+            turtle.forward(1 + (i / 3) % 250);
+            turtle.turn(90);
+            turtle.color(colors[(i / 3) % colors.length]);
+        }
+        List<Action> optimized = ActionOptimizer.optimize(turtle.actions()).actions();
+        schedule = new AnimationSchedule(optimized);
+        Viewport view = Viewport.fit(schedule.segments(), CANVAS_SIZE, CANVAS_SIZE, 1.0);
+        animation = new FramePainter(schedule, CANVAS_SIZE, CANVAS_SIZE, view, null);
+        finished = new FramePainter(schedule, CANVAS_SIZE, CANVAS_SIZE, view, null);
+        finished.seek(schedule.size());
+    }
+
+    @Benchmark
+    public Rectangle animationFrame() {
+        if (animation.isFinished()) {
+            elapsedMillis = 0;
+            animation.seek(0);
+        }
+        elapsedMillis += MILLIS_PER_FRAME;
+        animation.drawFrame(schedule.positionAt(elapsedMillis));
+        return animation.takeDirtyArea();
+    }
+
+    @Benchmark
+    public Rectangle fullRedraw() {
+        finished.redraw();
+        return finished.takeDirtyArea();
+    }
+}
@@ -0,0 +1,75 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of computing segment lengths, from LineSegment objects and from
+ * the packed SegmentStore, over the same random segments.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class LineSegmentBenchmark {
+
+    private static final int SEGMENTS = 1 << 16;
+
+    private final LineSegment[] segments = new LineSegment[SEGMENTS];
+    private final SegmentStore store = new SegmentStore();
+
+    @Param({ "false", "true" })
+    public boolean axisAligned;
+
+    @Setup
+    public void createSegments() {
+        Random random = new Random(6005);
+        for (int i = 0; i < SEGMENTS; i++) {
+            double x = random.nextInt(1000);
+            double y = random.nextInt(1000);
+            double length = random.nextInt(100);
+            double endX = axisAligned && (i & 1) == 0 ? x : x + length * random.nextDouble();
+            double endY = axisAligned && (i & 1) == 1 ? y : y + length * random.nextDouble();
+            segments[i] = new LineSegment(x, y, endX, endY, PenColor.BLACK);
+            store.add(x, y, endX, endY, PenColor.BLACK);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SEGMENTS)
+    public double lineSegmentLength() {
+        double total = 0;
+        for (LineSegment segment : segments) {
+            total += segment.length();
+        }
+        return total;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SEGMENTS)
+    public double segmentStoreLength() {
+        double total = 0;
+        for (int i = 0; i < SEGMENTS; i++) {
+            total += store.length(i);
+        }
+        return total;
+    }
+}
@@ -4,7 +4,16 @@
 package turtle;
 
 /**
- * An immutable drawable turtle action.
+ * An effectively immutable drawable turtle action.
+ *
+ * Its description is formatted on first use and cached in a plain field;
+ * threads that race to format it produce equal immutable strings, so the
+ * race is benign and a thread at worst formats the description again.
+ *
+ * Actions created by turtles are instances of small private subclasses, one
+ * per kind of action, holding only that kind's operands; the line segments
+ * they draw are kept in a SegmentStore. Color changes to the same color
+ * share one instance.
  */
 public class Action {
 
@@ -12,11 +21,20 @@ public class Action {
      * Enumeration of turtle action types.
      */
     public enum ActionType {
-        FORWARD, TURN, COLOR
+        FORWARD, TURN, COLOR, POLYLINE, ARC, CURVE
+    }
+
+    private static final Action[] COLOR_CHANGES = new Action[PenColor.values().length];
+    static {
+        for (PenColor color : PenColor.values()) {
+            COLOR_CHANGES[color.ordinal()] = new ColorChange(color);
+        }
     }
 
     private final ActionType type;
-    private final String displayString;
+    // formatted from the operands on first use, since most descriptions are
+    // never shown; not volatile, since a stale null only means formatting again
+    private String displayString;
     private final LineSegment lineSegment;
 
     /**
@@ -31,6 +49,91 @@ public class Action {
         this.lineSegment = lineSeg;
     }
 
+    /**
+     * @param steps number of steps moved
+     * @param store store holding the action's line segment
+     * @param segmentIndex index of the line segment in store
+     * @return a forward action whose line segment is kept in a segment store
+     */
+    static Action forward(int steps, SegmentStore store, int segmentIndex) {
+        return new Forward(steps, null, store, segmentIndex);
+    }
+
+    /**
+     * @param steps number of steps moved
+     * @return a forward action that draws no new segment, because it retraces one already drawn
+     */
+    static Action forward(int steps) {
+        return new Forward(steps, null, null, -1);
+    }
+
+    /**
+     * @param steps number of steps moved
+     * @param lineSeg line segment drawn by the action
+     * @return a forward action
+     */
+    static Action forward(double steps, LineSegment lineSeg) {
+        return new Forward(steps, lineSeg, null, -1);
+    }
+
+    /**
+     * @param degrees clockwise change in heading, 0 <= degrees < 360
+     * @return a turn action
+     */
+    static Action turn(double degrees) {
+        return new Turn(degrees);
+    }
+
+    /**
+     * @param color new pen color
+     * @return a color action
+     */
+    static Action color(PenColor color) {
+        return COLOR_CHANGES[color.ordinal()];
+    }
+
+    /**
+     * @param store store holding the action's line segments
+     * @param firstSegment index in store of the first segment
+     * @param segmentCount number of segments, at least 1
+     * @param steps steps of each move, either segmentCount values or a single
+     *              value shared by all moves; not copied, so must not be modified
+     * @param turns clockwise turn after each move, 0 <= turn < 360, either
+     *              segmentCount values or a single shared value; not copied
+     * @return a polyline action whose segments are kept in a segment store
+     */
+    static Action polyline(SegmentStore store, int firstSegment, int segmentCount, int[] steps, double[] turns) {
+        return new Polyline(store, firstSegment, segmentCount, steps, turns);
+    }
+
+    /**
+     * @param store store holding the chords of the arc
+     * @param firstSegment index in store of the first chord
+     * @param segmentCount number of chords, at least 1
+     * @param radius radius in steps
+     * @param degrees change in heading along the arc, clockwise if positive
+     * @param arc shape of the arc
+     * @return an arc action whose chords are kept in a segment store
+     */
+    static Action arc(SegmentStore store, int firstSegment, int segmentCount, int radius, double degrees,
+                      CurveGeometry arc) {
+        return new Arc(store, firstSegment, segmentCount, radius, degrees, arc);
+    }
+
+    /**
+     * @param store store holding the chords of the curve
+     * @param firstSegment index in store of the first chord
+     * @param segmentCount number of chords, at least 1
+     * @param points steps ahead and to the right of the turtle of the first
+     *               control point, the second control point and the end point;
+     *               not copied, so must not be modified
+     * @param curve shape of the curve
+     * @return a cubic Bezier curve action whose chords are kept in a segment store
+     */
+    static Action curve(SegmentStore store, int firstSegment, int segmentCount, int[] points, CurveGeometry curve) {
+        return new Curve(store, firstSegment, segmentCount, points, curve);
+    }
+
     /**
      * @return type of this action
      */
@@ -40,13 +143,393 @@ public class Action {
 
     @Override
     public String toString() {
-        return displayString;
+        String description = displayString;
+        if (description == null) {
+            description = describe();
+            displayString = description;
+        }
+        return description;
+    }
+
+    /**
+     * @return description of this action formatted from its operands, or null if none
+     */
+    String describe() {
+        return null;
     }
 
     /**
-     * @return line segment associated with this action, or null if none
+     * @return line segment associated with this action, or null if none or
+     *         if the action draws several segments
      */
     public LineSegment lineSegment() {
         return lineSegment;
     }
+
+    /**
+     * @return store holding the line segments drawn by this action, or null
+     *         if they are not kept in a store
+     */
+    SegmentStore segmentStore() {
+        return null;
+    }
+
+    /**
+     * @return index in segmentStore() of the first line segment drawn by this
+     *         action, if segmentStore() is not null
+     */
+    int firstSegment() {
+        return -1;
+    }
+
+    /**
+     * @return total length of the line segments drawn by this action, or 0 if none
+     */
+    double segmentLength() {
+        SegmentStore store = segmentStore();
+        if (store != null) {
+            double length = 0;
+            for (int i = firstSegment(); i < firstSegment() + segmentCount(); i++) {
+                length += store.length(i);
+            }
+            return length;
+        }
+        return lineSegment == null ? 0 : lineSegment.length();
+    }
+
+    /**
+     * @return number of line segments drawn by this action
+     */
+    int segmentCount() {
+        return lineSegment == null ? 0 : 1;
+    }
+
+    /**
+     * Copy the line segments drawn by this action, if any, to the end of a store.
+     *
+     * @param target store to append to
+     * @return true iff this action draws any line segments
+     */
+    boolean appendSegmentsTo(SegmentStore target) {
+        SegmentStore store = segmentStore();
+        if (store != null) {
+            for (int i = firstSegment(); i < firstSegment() + segmentCount(); i++) {
+                target.add(store.startX(i), store.startY(i), store.endX(i), store.endY(i), store.color(i));
+            }
+            return true;
+        } else if (lineSegment != null) {
+            target.add(lineSegment.start().x(), lineSegment.start().y(),
+                    lineSegment.end().x(), lineSegment.end().y(), lineSegment.color());
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return true iff this action was created with its operands, so that
+     *         amount() and color() describe it
+     */
+    boolean hasOperands() {
+        return false;
+    }
+
+    /**
+     * @return steps moved by a forward action, or degrees turned by a turn or
+     *         arc action, NaN otherwise
+     */
+    double amount() {
+        return Double.NaN;
+    }
+
+    /**
+     * @param move index of a move of a polyline action, 0 <= move < segmentCount()
+     * @return steps of that move
+     */
+    int stepsAt(int move) {
+        throw new UnsupportedOperationException(type + " action has no moves");
+    }
+
+    /**
+     * @param move index of a move of a polyline action, 0 <= move < segmentCount()
+     * @return clockwise turn after that move, 0 <= turn < 360
+     */
+    double turnAt(int move) {
+        throw new UnsupportedOperationException(type + " action has no moves");
+    }
+
+    /**
+     * @return radius of an arc action
+     */
+    int radius() {
+        throw new UnsupportedOperationException(type + " action has no radius");
+    }
+
+    /**
+     * @param i index of a relative coordinate of a curve action, 0 <= i < 6,
+     *          in the order of the arguments to Turtle.cubicCurve
+     * @return that coordinate
+     */
+    int curvePoint(int i) {
+        throw new UnsupportedOperationException(type + " action has no control points");
+    }
+
+    /**
+     * @return shape of an arc or curve action, null for other actions
+     */
+    CurveGeometry curve() {
+        return null;
+    }
+
+    /**
+     * @return pen color of a color, polyline, arc or curve action or of a forward
+     *         action that draws a segment, null otherwise
+     */
+    PenColor color() {
+        return null;
+    }
+
+    /*
+     * A move, whose segment is kept in a store, or given as a LineSegment, or
+     * absent if the move retraces a segment already drawn.
+     */
+    private static final class Forward extends Action {
+
+        private final double steps;
+        private final SegmentStore store;
+        private final int segment;
+
+        Forward(double steps, LineSegment lineSeg, SegmentStore store, int segment) {
+            super(ActionType.FORWARD, null, lineSeg);
+            this.steps = steps;
+            this.store = store;
+            this.segment = segment;
+        }
+
+        @Override
+        String describe() {
+            return "forward " + (long) steps + " steps";
+        }
+
+        @Override
+        public LineSegment lineSegment() {
+            return store != null ? store.get(segment) : super.lineSegment();
+        }
+
+        @Override
+        SegmentStore segmentStore() {
+            return store;
+        }
+
+        @Override
+        int firstSegment() {
+            return segment;
+        }
+
+        @Override
+        int segmentCount() {
+            return store != null ? 1 : super.segmentCount();
+        }
+
+        @Override
+        boolean hasOperands() {
+            return true;
+        }
+
+        @Override
+        double amount() {
+            return steps;
+        }
+
+        @Override
+        PenColor color() {
+            if (store != null) {
+                return store.color(segment);
+            }
+            LineSegment lineSeg = super.lineSegment();
+            return lineSeg == null ? null : lineSeg.color();
+        }
+    }
+
+    private static final class Turn extends Action {
+
+        private final double degrees;
+
+        Turn(double degrees) {
+            super(ActionType.TURN, null, null);
+            this.degrees = degrees;
+        }
+
+        @Override
+        String describe() {
+            return "turn " + degrees + " degrees";
+        }
+
+        @Override
+        boolean hasOperands() {
+            return true;
+        }
+
+        @Override
+        double amount() {
+            return degrees;
+        }
+    }
+
+    private static final class ColorChange extends Action {
+
+        private final PenColor color;
+
+        ColorChange(PenColor color) {
+            super(ActionType.COLOR, null, null);
+            this.color = color;
+        }
+
+        @Override
+        String describe() {
+            return "change to " + color.toString().toLowerCase();
+        }
+
+        @Override
+        boolean hasOperands() {
+            return true;
+        }
+
+        @Override
+        PenColor color() {
+            return color;
+        }
+    }
+
+    /*
+     * An action that draws a run of segments kept in a store.
+     */
+    private abstract static class StoredSegments extends Action {
+
+        private final SegmentStore store;
+        private final int firstSegment;
+        private final int segmentCount;
+
+        StoredSegments(ActionType type, SegmentStore store, int firstSegment, int segmentCount) {
+            super(type, null, null);
+            this.store = store;
+            this.firstSegment = firstSegment;
+            this.segmentCount = segmentCount;
+        }
+
+        @Override
+        SegmentStore segmentStore() {
+            return store;
+        }
+
+        @Override
+        int firstSegment() {
+            return firstSegment;
+        }
+
+        @Override
+        int segmentCount() {
+            return segmentCount;
+        }
+
+        @Override
+        boolean hasOperands() {
+            return true;
+        }
+
+        @Override
+        PenColor color() {
+            return store.color(firstSegment);
+        }
+    }
+
+    private static final class Polyline extends StoredSegments {
+
+        private final int[] steps;
+        private final double[] turns;
+
+        Polyline(SegmentStore store, int firstSegment, int segmentCount, int[] steps, double[] turns) {
+            super(ActionType.POLYLINE, store, firstSegment, segmentCount);
+            this.steps = steps;
+            this.turns = turns;
+        }
+
+        @Override
+        String describe() {
+            if (steps.length == 1 && segmentCount() > 1) {
+                return "regular polygon of " + segmentCount() + " sides";
+            }
+            return "polyline of " + segmentCount() + " moves";
+        }
+
+        @Override
+        int stepsAt(int move) {
+            return steps[steps.length == 1 ? 0 : move];
+        }
+
+        @Override
+        double turnAt(int move) {
+            return turns[turns.length == 1 ? 0 : move];
+        }
+    }
+
+    private static final class Arc extends StoredSegments {
+
+        private final int radius;
+        private final double degrees;
+        private final CurveGeometry arc;
+
+        Arc(SegmentStore store, int firstSegment, int segmentCount, int radius, double degrees, CurveGeometry arc) {
+            super(ActionType.ARC, store, firstSegment, segmentCount);
+            this.radius = radius;
+            this.degrees = degrees;
+            this.arc = arc;
+        }
+
+        @Override
+        String describe() {
+            return "arc of radius " + radius + " turning " + degrees + " degrees";
+        }
+
+        @Override
+        double amount() {
+            return degrees;
+        }
+
+        @Override
+        int radius() {
+            return radius;
+        }
+
+        @Override
+        CurveGeometry curve() {
+            return arc;
+        }
+    }
+
+    private static final class Curve extends StoredSegments {
+
+        private final int[] points;
+        private final CurveGeometry curve;
+
+        Curve(SegmentStore store, int firstSegment, int segmentCount, int[] points, CurveGeometry curve) {
+            super(ActionType.CURVE, store, firstSegment, segmentCount);
+            this.points = points;
+            this.curve = curve;
+        }
+
+        @Override
+        String describe() {
+            return "curve to " + points[4] + " ahead, " + points[5] + " right";
+        }
+
+        @Override
+        int curvePoint(int i) {
+            return points[i];
+        }
+
+        @Override
+        CurveGeometry curve() {
+            return curve;
+        }
+    }
 }
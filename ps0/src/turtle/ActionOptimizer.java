@@ -0,0 +1,281 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import turtle.Action.ActionType;
+
+/**
+ * Peephole optimizer for turtle action lists.
+ *
+ * Rewrites a list of actions into a shorter list that draws the same picture:
+ * consecutive turns are combined (and dropped if they cancel out), zero-length
+ * moves are dropped, color changes that are overridden or repeat the current
+ * color before anything is drawn are dropped, and consecutive collinear moves
+ * of the same color are combined into a single move. Polylines, arcs and
+ * curves are kept as they are, but end any run of moves or turns.
+ *
+ * Actions that do not carry their operands (those built with the public
+ * Action constructor) are kept as they are and are never combined.
+ */
+public class ActionOptimizer {
+
+    private static final int CIRCLE_DEGREES = 360;
+
+    // relative tolerance for treating two moves as collinear and contiguous
+    private static final double EPSILON = 1e-9;
+
+    /**
+     * Result of optimizing an action list.
+     */
+    public static class Result {
+
+        private final List<Action> actions;
+        private final int removed;
+
+        private Result(List<Action> actions, int removed) {
+            this.actions = Collections.unmodifiableList(actions);
+            this.removed = removed;
+        }
+
+        /**
+         * @return the optimized action list, unmodifiable
+         */
+        public List<Action> actions() {
+            return actions;
+        }
+
+        /**
+         * @return number of actions removed, i.e. the input size minus the output size
+         */
+        public int removed() {
+            return removed;
+        }
+    }
+
+    private final List<Action> output;
+
+    // a run of contiguous collinear moves of one color not yet written to output
+    private Action firstForward;
+    private int forwardCount;
+    private double forwardSteps;
+    private double startX;
+    private double startY;
+    private double endX;
+    private double endY;
+    private PenColor forwardColor;
+
+    // a run of consecutive turns not yet written to output
+    private Action firstTurn;
+    private int turnCount;
+    private double turnDegrees;
+
+    // the most recent color change not yet written to output, or null
+    private Action pendingColor;
+    // the pen color set by the last color change written to output, or null if unknown
+    private PenColor outputColor;
+
+    private int removed;
+
+    private ActionOptimizer(int capacity) {
+        this.output = new ArrayList<>(capacity);
+        this.outputColor = PenColor.BLACK;
+    }
+
+    /**
+     * Optimize a list of actions.
+     *
+     * @param actions actions to optimize, not modified
+     * @return a list of actions that draws the same picture, and the number of actions removed
+     */
+    public static Result optimize(List<Action> actions) {
+        ActionOptimizer optimizer = new ActionOptimizer(actions.size());
+        for (Action action : actions) {
+            optimizer.add(action);
+        }
+        optimizer.finish();
+        return new Result(optimizer.output, optimizer.removed);
+    }
+
+    private void add(Action action) {
+        if (!action.hasOperands()) {
+            flushAll();
+            output.add(action);
+            if (action.type() == ActionType.COLOR) {
+                outputColor = null;
+            }
+            return;
+        }
+        switch (action.type()) {
+        case FORWARD:
+            addForward(action);
+            break;
+        case TURN:
+            if (turnCount == 0) {
+                firstTurn = action;
+                turnDegrees = 0;
+            }
+            turnDegrees = (turnDegrees + action.amount()) % CIRCLE_DEGREES;
+            turnCount++;
+            break;
+        case COLOR:
+            if (pendingColor != null) {
+                removed++;
+            }
+            pendingColor = action;
+            break;
+        case POLYLINE:
+        case ARC:
+        case CURVE:
+            flushTurn();
+            flushColor();
+            flushForward();
+            output.add(action);
+            break;
+        default:
+            throw new AssertionError("unknown action type " + action.type());
+        }
+    }
+
+    private void addForward(Action action) {
+        double segStartX, segStartY, segEndX, segEndY;
+        PenColor segColor;
+        SegmentStore store = action.segmentStore();
+        if (store != null) {
+            int segment = action.firstSegment();
+            segStartX = store.startX(segment);
+            segStartY = store.startY(segment);
+            segEndX = store.endX(segment);
+            segEndY = store.endY(segment);
+            segColor = store.color(segment);
+        } else {
+            LineSegment lineSeg = action.lineSegment();
+            if (lineSeg == null) {
+                removed++;
+                return;
+            }
+            segStartX = lineSeg.start().x();
+            segStartY = lineSeg.start().y();
+            segEndX = lineSeg.end().x();
+            segEndY = lineSeg.end().y();
+            segColor = lineSeg.color();
+        }
+        if (segStartX == segEndX && segStartY == segEndY) {
+            removed++;
+            return;
+        }
+        flushTurn();
+        flushColor();
+        if (forwardCount > 0 && extendsRun(segStartX, segStartY, segEndX, segEndY, segColor)) {
+            forwardSteps += action.amount();
+            endX = segEndX;
+            endY = segEndY;
+            forwardCount++;
+            return;
+        }
+        flushForward();
+        firstForward = action;
+        forwardCount = 1;
+        forwardSteps = action.amount();
+        startX = segStartX;
+        startY = segStartY;
+        endX = segEndX;
+        endY = segEndY;
+        forwardColor = segColor;
+    }
+
+    /*
+     * Check whether a segment continues the current run of moves: same color,
+     * starting where the run ends, and pointing in the same direction.
+     */
+    private boolean extendsRun(double segStartX, double segStartY, double segEndX, double segEndY,
+                               PenColor segColor) {
+        if (segColor != forwardColor) {
+            return false;
+        }
+        double runX = endX - startX;
+        double runY = endY - startY;
+        double segX = segEndX - segStartX;
+        double segY = segEndY - segStartY;
+        double scale = Math.hypot(runX, runY) * Math.hypot(segX, segY);
+        double gap = Math.hypot(segStartX - endX, segStartY - endY);
+        return gap <= EPSILON * Math.hypot(runX, runY)
+                && Math.abs(runX * segY - runY * segX) <= EPSILON * scale
+                && runX * segX + runY * segY > 0;
+    }
+
+    private void flushForward() {
+        if (forwardCount == 0) {
+            return;
+        }
+        if (forwardCount == 1) {
+            output.add(firstForward);
+        } else {
+            output.add(Action.forward(forwardSteps,
+                    new LineSegment(startX, startY, endX, endY, forwardColor)));
+            removed += forwardCount - 1;
+        }
+        forwardCount = 0;
+    }
+
+    /*
+     * Write the pending color change, if any, before something is drawn,
+     * unless it repeats the current color.
+     */
+    private void flushColor() {
+        if (pendingColor == null) {
+            return;
+        }
+        if (pendingColor.color() == outputColor) {
+            removed++;
+        } else {
+            flushForward();
+            output.add(pendingColor);
+            outputColor = pendingColor.color();
+        }
+        pendingColor = null;
+    }
+
+    private void flushTurn() {
+        if (turnCount == 0) {
+            return;
+        }
+        double degrees = (turnDegrees % CIRCLE_DEGREES + CIRCLE_DEGREES) % CIRCLE_DEGREES;
+        if (degrees == 0) {
+            removed += turnCount;
+        } else {
+            flushForward();
+            if (turnCount == 1) {
+                output.add(firstTurn);
+            } else {
+                output.add(Action.turn(degrees));
+                removed += turnCount - 1;
+            }
+        }
+        turnCount = 0;
+    }
+
+    private void flushAll() {
+        flushTurn();
+        flushForward();
+        if (pendingColor != null) {
+            output.add(pendingColor);
+            outputColor = pendingColor.color();
+            pendingColor = null;
+        }
+    }
+
+    private void finish() {
+        flushTurn();
+        flushForward();
+        // a trailing color change draws nothing
+        if (pendingColor != null) {
+            removed++;
+            pendingColor = null;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import turtle.Action.ActionType;
+
+public class ActionOptimizerTest {
+
+    /**
+     * Tests that consecutive turns combine and cancelling turns disappear.
+     */
+    @Test
+    public void combineTurnsTest() {
+        DrawableTurtle turtle = new DrawableTurtle();
+        turtle.forward(10);
+        turtle.turn(30);
+        turtle.turn(60);
+        turtle.forward(10);
+        turtle.turn(90);
+        turtle.turn(270);
+        turtle.turn(45);
+
+        ActionOptimizer.Result result = ActionOptimizer.optimize(turtle.actions());
+        List<Action> actions = result.actions();
+        assertEquals(4, actions.size());
+        assertEquals(3, result.removed());
+        assertEquals(ActionType.TURN, actions.get(1).type());
+        assertEquals(90.0, actions.get(1).amount(), 0.0);
+        assertEquals(45.0, actions.get(3).amount(), 0.0);
+    }
+
+    /**
+     * Tests that collinear moves combine into one segment and zero-length moves disappear.
+     */
+    @Test
+    public void combineForwardsTest() {
+        DrawableTurtle turtle = new DrawableTurtle();
+        turtle.turn(45);
+        turtle.forward(10);
+        turtle.forward(0);
+        turtle.forward(20);
+        turtle.turn(180);
+        turtle.turn(180);
+        turtle.forward(5);
+
+        ActionOptimizer.Result result = ActionOptimizer.optimize(turtle.actions());
+        List<Action> actions = result.actions();
+        assertEquals(2, actions.size());
+        assertEquals(5, result.removed());
+        LineSegment lineSeg = actions.get(1).lineSegment();
+        assertEquals(0.0, lineSeg.start().x(), 0.0);
+        assertEquals(35.0, lineSeg.length(), 1e-9);
+        assertEquals(35.0, actions.get(1).amount(), 0.0);
+        assertEquals("forward 35 steps", actions.get(1).toString());
+    }
+
+    /**
+     * Tests that moves of different colors are not combined and redundant colors are dropped.
+     */
+    @Test
+    public void colorsTest() {
+        DrawableTurtle turtle = new DrawableTurtle();
+        turtle.color(PenColor.BLACK);
+        turtle.forward(10);
+        turtle.color(PenColor.GREEN);
+        turtle.color(PenColor.RED);
+        turtle.forward(10);
+        turtle.color(PenColor.RED);
+        turtle.forward(10);
+        turtle.color(PenColor.BLUE);
+
+        ActionOptimizer.Result result = ActionOptimizer.optimize(turtle.actions());
+        List<Action> actions = result.actions();
+        assertEquals(3, actions.size());
+        assertEquals(5, result.removed());
+        assertEquals(PenColor.BLACK, actions.get(0).lineSegment().color());
+        assertEquals(PenColor.RED, actions.get(1).color());
+        assertEquals(20.0, actions.get(2).lineSegment().length(), 1e-9);
+        assertEquals(PenColor.RED, actions.get(2).lineSegment().color());
+    }
+
+    /**
+     * Tests that actions without operands are kept in place.
+     */
+    @Test
+    public void opaqueActionsTest() {
+        DrawableTurtle turtle = new DrawableTurtle();
+        turtle.turn(10);
+        List<Action> input = new ArrayList<>(turtle.actions());
+        input.add(new Action(ActionType.TURN, "turn somewhere", null));
+        input.add(Action.turn(20));
+        input.add(Action.turn(30));
+
+        ActionOptimizer.Result result = ActionOptimizer.optimize(input);
+        assertEquals(3, result.actions().size());
+        assertEquals(1, result.removed());
+        assertEquals("turn somewhere", result.actions().get(1).toString());
+        assertEquals(50.0, result.actions().get(2).amount(), 0.0);
+    }
+
+    /**
+     * Tests that a polyline is kept, after the turns and color change before it.
+     */
+    @Test
+    public void polylineTest() {
+        DrawableTurtle turtle = new DrawableTurtle();
+        turtle.forward(10);
+        turtle.turn(30);
+        turtle.turn(60);
+        turtle.color(PenColor.RED);
+        turtle.regularPolygon(3, 10);
+        turtle.forward(10);
+
+        ActionOptimizer.Result result = ActionOptimizer.optimize(turtle.actions());
+        List<Action> actions = result.actions();
+        assertEquals(5, actions.size());
+        assertEquals(90.0, actions.get(1).amount(), 0.0);
+        assertEquals(PenColor.RED, actions.get(2).color());
+        assertEquals(ActionType.POLYLINE, actions.get(3).type());
+        assertEquals(ActionType.FORWARD, actions.get(4).type());
+    }
+}
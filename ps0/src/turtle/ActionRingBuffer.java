@@ -0,0 +1,127 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded first-in first-out buffer of turtle actions, passed from one
+ * producer thread to one consumer thread.
+ *
+ * Each action is a kind and a number (steps, degrees, or a color ordinal),
+ * followed by further numbers for actions that take several, all stored in
+ * preallocated arrays, so passing actions allocates nothing. A
+ * producer that finds the buffer full waits for the consumer, and a consumer
+ * takes all available actions at once.
+ */
+class ActionRingBuffer {
+
+    static final byte FORWARD = 0;
+    static final byte TURN = 1;
+    static final byte COLOR = 2;
+    static final byte DRAW = 3;
+    static final byte END = 4;
+    // an arc is ARC with its radius then OPERAND with its degrees; a curve is
+    // CURVE with its first coordinate then OPERAND with each of the other five
+    static final byte ARC = 5;
+    static final byte CURVE = 6;
+    static final byte OPERAND = 7;
+
+    private final byte[] kinds;
+    private final double[] amounts;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+
+    // guarded by lock: entries head .. head+count-1, modulo capacity
+    private int head;
+    private int count;
+    private Throwable failure;
+
+    /**
+     * @param capacity largest number of actions held at once, must be positive
+     */
+    ActionRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.kinds = new byte[capacity];
+        this.amounts = new double[capacity];
+    }
+
+    /**
+     * Append an action, waiting while the buffer is full.
+     *
+     * @param kind kind of action
+     * @param amount steps, degrees or color ordinal
+     * @throws InterruptedException if interrupted while waiting
+     * @throws IllegalStateException if the consumer has failed
+     */
+    void put(byte kind, double amount) throws InterruptedException {
+        lock.lock();
+        try {
+            while (count == kinds.length && failure == null) {
+                notFull.await();
+            }
+            if (failure != null) {
+                throw new IllegalStateException("turtle stream consumer failed", failure);
+            }
+            int tail = (head + count) % kinds.length;
+            kinds[tail] = kind;
+            amounts[tail] = amount;
+            if (count++ == 0) {
+                notEmpty.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remove the oldest actions, waiting until there is at least one.
+     *
+     * @param kindsOut receives the kinds of the actions taken
+     * @param amountsOut receives their amounts; as long as kindsOut
+     * @return number of actions taken, at least 1 and at most kindsOut.length
+     * @throws InterruptedException if interrupted while waiting
+     */
+    int take(byte[] kindsOut, double[] amountsOut) throws InterruptedException {
+        lock.lock();
+        try {
+            while (count == 0) {
+                notEmpty.await();
+            }
+            int taken = Math.min(count, kindsOut.length);
+            for (int i = 0; i < taken; i++) {
+                kindsOut[i] = kinds[(head + i) % kinds.length];
+                amountsOut[i] = amounts[(head + i) % kinds.length];
+            }
+            if (count == kinds.length) {
+                notFull.signal();
+            }
+            head = (head + taken) % kinds.length;
+            count -= taken;
+            return taken;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Record that the consumer has failed, so that the producer stops waiting.
+     *
+     * @param cause why the consumer failed
+     */
+    void fail(Throwable cause) {
+        lock.lock();
+        try {
+            failure = cause;
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,482 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+import java.awt.Color;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.awt.image.WritableRaster;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+/**
+ * Exports the animation of a list of turtle actions to image files, without a screen.
+ *
+ * Frames are taken at a fixed rate from the same timeline as TurtleGUI,
+ * which plays the whole drawing in AnimationSchedule.MILLIS_PER_DRAWING, and
+ * show the same view of the drawing as TurtleGUI's window does when it opens.
+ * Each frame is drawn onto the previous one by the FramePainter the window
+ * also uses, so they match pixel for pixel, drawing only the part of the
+ * timeline between them, on the calling thread. Copies of the frames are
+ * then encoded in parallel on a pool of worker threads and written in order,
+ * with a bounded number of frames in flight.
+ *
+ * A PNG sequence has one complete image per frame. A GIF stores each frame
+ * as only the rectangle drawn on since the previous one, left in place for
+ * the next frame to draw over, and merges frames with nothing new into the
+ * delay of the frame before them.
+ */
+public class AnimationExporter {
+
+    /** Frame rate used unless another is given. */
+    public static final int DEFAULT_FRAMES_PER_SECOND = 25;
+
+    private static final Color CANVAS_BG_COLOR = Color.WHITE;
+
+    // frames in flight per worker thread, drawn but not yet written
+    private static final int FRAMES_IN_FLIGHT_PER_THREAD = 2;
+
+    // the canvas is drawn without antialiasing, so its only colors are the
+    // background and the pen colors, which GIF frames index into this palette
+    private static final IndexColorModel PALETTE = palette();
+
+    private final AnimationSchedule schedule;
+    private final int width;
+    private final int height;
+    private final int framesPerSecond;
+    private final Viewport view;
+
+    /**
+     * Prepare to export an animation at the default frame rate.
+     *
+     * @param actions actions to animate, in order; must not be modified afterwards
+     * @param width frame width in pixels, must be positive
+     * @param height frame height in pixels, must be positive
+     */
+    public AnimationExporter(List<Action> actions, int width, int height) {
+        this(actions, width, height, DEFAULT_FRAMES_PER_SECOND);
+    }
+
+    /**
+     * Prepare to export an animation.
+     *
+     * @param actions actions to animate, in order; must not be modified afterwards
+     * @param width frame width in pixels, must be positive
+     * @param height frame height in pixels, must be positive
+     * @param framesPerSecond frames per second of animation time, must be positive
+     */
+    public AnimationExporter(List<Action> actions, int width, int height, int framesPerSecond) {
+        if (width <= 0 || height <= 0 || framesPerSecond <= 0) {
+            throw new IllegalArgumentException("invalid frame size or rate");
+        }
+        this.schedule = new AnimationSchedule(actions);
+        this.width = width;
+        this.height = height;
+        this.framesPerSecond = framesPerSecond;
+        this.view = Viewport.fit(schedule.segments(), width, height, 1.0);
+    }
+
+    /**
+     * @return number of frames exported, from the blank canvas at time 0 to
+     *         the first frame showing the finished drawing
+     */
+    public int frameCount() {
+        return (int) ((AnimationSchedule.MILLIS_PER_DRAWING * framesPerSecond + 999) / 1000) + 1;
+    }
+
+    /**
+     * Write the frames as numbered PNG files, frame-00000.png and onward,
+     * using a worker thread per available processor.
+     *
+     * @param directory existing directory to write to; files of the same names are overwritten
+     * @throws IOException if a file cannot be written
+     */
+    public void writePngSequence(File directory) throws IOException {
+        writePngSequence(directory, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Write the frames as numbered PNG files, frame-00000.png and onward.
+     *
+     * @param directory existing directory to write to; files of the same names are overwritten
+     * @param threads number of worker threads encoding frames, must be positive
+     * @throws IOException if a file cannot be written
+     */
+    public void writePngSequence(File directory, int threads) throws IOException {
+        export(threads, (frame, canvas, region) -> {
+            File file = new File(directory, String.format("frame-%05d.png", frame));
+            BufferedImage image = copy(canvas, new Rectangle(0, 0, width, height));
+            return () -> {
+                TurtleRenderer.writePng(image, file);
+                return null;
+            };
+        }, (frame, encoded) -> {
+        });
+    }
+
+    /**
+     * Write the frames as a looping animated GIF, using a worker thread per available processor.
+     *
+     * @param file destination file, overwritten if it exists
+     * @throws IOException if the file cannot be written
+     */
+    public void writeGif(File file) throws IOException {
+        writeGif(file, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Write the frames as a looping animated GIF.
+     *
+     * @param file destination file, overwritten if it exists
+     * @param threads number of worker threads encoding frames, must be positive
+     * @throws IOException if the file cannot be written
+     */
+    public void writeGif(File file, int threads) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+            writeGifHeader(out);
+            GifFrameWriter frames = new GifFrameWriter(out);
+            export(threads, (frame, canvas, region) -> {
+                if (region == null) {
+                    return null; // nothing new; the previous frame is shown for longer
+                }
+                BufferedImage image = copy(canvas, region);
+                return () -> encodeGifImage(image, region.x, region.y);
+            }, frames::add);
+            frames.finish();
+            out.write(0x3b); // trailer
+        }
+    }
+
+    /*
+     * Creates the task encoding a frame, or returns null to skip the frame.
+     */
+    @FunctionalInterface
+    private interface FrameEncoder {
+
+        /*
+         * canvas shows the frame, and is drawn on again once this returns, so
+         * the task must work on a copy; region is the rectangle of it drawn
+         * on since the previous frame, or null if none, and all of it for frame 0.
+         */
+        Callable<byte[]> encoder(int frame, BufferedImage canvas, Rectangle region);
+    }
+
+    /*
+     * Receives encoded frames, in order, on the exporting thread.
+     */
+    @FunctionalInterface
+    private interface FrameSink {
+
+        void add(int frame, byte[] encoded) throws IOException;
+    }
+
+    /*
+     * A frame submitted for encoding.
+     */
+    private static class PendingFrame {
+
+        private final int frame;
+        private final Future<byte[]> encoded;
+
+        PendingFrame(int frame, Future<byte[]> encoded) {
+            this.frame = frame;
+            this.encoded = encoded;
+        }
+    }
+
+    private void export(int threads, FrameEncoder encoder, FrameSink sink) throws IOException {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads must be positive");
+        }
+        ExecutorService workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "AnimationExporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            FramePainter painter = new FramePainter(schedule, width, height, view, null);
+            Deque<PendingFrame> pending = new ArrayDeque<>();
+            int maxPending = threads * FRAMES_IN_FLIGHT_PER_THREAD;
+            for (int frame = 0; frame < frameCount(); frame++) {
+                painter.drawFrame(schedule.positionAt(frame * 1000L / framesPerSecond));
+                Rectangle region = painter.takeDirtyArea();
+                if (frame == 0) {
+                    region = new Rectangle(0, 0, width, height);
+                }
+                Callable<byte[]> task = encoder.encoder(frame, painter.canvas(), region);
+                if (task == null) {
+                    continue;
+                }
+                if (pending.size() == maxPending) {
+                    PendingFrame oldest = pending.removeFirst();
+                    sink.add(oldest.frame, result(oldest.encoded));
+                }
+                pending.addLast(new PendingFrame(frame, workers.submit(task)));
+            }
+            while (!pending.isEmpty()) {
+                PendingFrame oldest = pending.removeFirst();
+                sink.add(oldest.frame, result(oldest.encoded));
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    /*
+     * Wait for a frame to be encoded, rethrowing the worker's failure.
+     */
+    private static byte[] result(Future<byte[]> encoded) throws IOException {
+        try {
+            return encoded.get();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while encoding frames", ie);
+        } catch (ExecutionException ee) {
+            Throwable cause = ee.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /*
+     * Copy a rectangle of an image to a new image.
+     */
+    private static BufferedImage copy(BufferedImage image, Rectangle region) {
+        BufferedImage copy = new BufferedImage(region.width, region.height, BufferedImage.TYPE_INT_RGB);
+        copy.setData(image.getRaster().createChild(region.x, region.y, region.width, region.height, 0, 0, null));
+        return copy;
+    }
+
+    /*
+     * Palette of the background color, then the pen colors, padded to a
+     * power of two with the background color.
+     */
+    private static IndexColorModel palette() {
+        PenColor[] pens = PenColor.values();
+        int size = Integer.highestOneBit(pens.length) * 2;
+        byte[] r = new byte[size];
+        byte[] g = new byte[size];
+        byte[] b = new byte[size];
+        for (int i = 0; i < size; i++) {
+            Color color = i >= 1 && i <= pens.length ? PenColors.of(pens[i - 1]) : CANVAS_BG_COLOR;
+            r[i] = (byte) color.getRed();
+            g[i] = (byte) color.getGreen();
+            b[i] = (byte) color.getBlue();
+        }
+        return new IndexColorModel(8, size, r, g, b);
+    }
+
+    /*
+     * Encode a region of a frame, at (x, y) in the frame, as a GIF image
+     * descriptor with a local color table, followed by its image data, ready
+     * to be placed in an animated GIF.
+     */
+    private static byte[] encodeGifImage(BufferedImage region, int x, int y) throws IOException {
+        int regionWidth = region.getWidth();
+        int regionHeight = region.getHeight();
+        BufferedImage indexed = new BufferedImage(regionWidth, regionHeight, BufferedImage.TYPE_BYTE_INDEXED, PALETTE);
+        WritableRaster raster = indexed.getRaster();
+        int[] row = new int[regionWidth];
+        int lastRgb = CANVAS_BG_COLOR.getRGB();
+        int lastIndex = 0;
+        for (int j = 0; j < regionHeight; j++) {
+            region.getRGB(0, j, regionWidth, 1, row, 0, regionWidth);
+            for (int i = 0; i < regionWidth; i++) {
+                if (row[i] != lastRgb) {
+                    lastRgb = row[i];
+                    lastIndex = paletteIndex(lastRgb);
+                }
+                row[i] = lastIndex;
+            }
+            raster.setSamples(0, j, regionWidth, 1, 0, row);
+        }
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("gif");
+        if (!writers.hasNext()) {
+            throw new IOException("no GIF writer available");
+        }
+        ImageWriter writer = writers.next();
+        // interlaced images of only a few rows do not read back correctly
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setProgressiveMode(ImageWriteParam.MODE_DISABLED);
+        ByteArrayOutputStream gif = new ByteArrayOutputStream();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(gif)) {
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(indexed, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return imageBlock(gif.toByteArray(), x, y);
+    }
+
+    /*
+     * Index of the palette color nearest to an RGB color.
+     */
+    private static int paletteIndex(int rgb) {
+        int best = 0;
+        int bestDistance = Integer.MAX_VALUE;
+        for (int i = 0; i < PALETTE.getMapSize(); i++) {
+            int dr = PALETTE.getRed(i) - ((rgb >> 16) & 0xff);
+            int dg = PALETTE.getGreen(i) - ((rgb >> 8) & 0xff);
+            int db = PALETTE.getBlue(i) - (rgb & 0xff);
+            int distance = dr * dr + dg * dg + db * db;
+            if (distance < bestDistance) {
+                best = i;
+                bestDistance = distance;
+            }
+        }
+        return best;
+    }
+
+    /*
+     * Extract the first image of a GIF file, from its image descriptor to the
+     * end of its image data, moved to the given position. If it uses the
+     * file's global color table, that table is made its local one instead.
+     */
+    private static byte[] imageBlock(byte[] gif, int left, int top) throws IOException {
+        int screenFlags = gif[10] & 0xff;
+        int pos = 13;
+        int globalTable = pos;
+        int globalTableSize = 0;
+        if ((screenFlags & 0x80) != 0) {
+            globalTableSize = 3 << ((screenFlags & 0x07) + 1);
+            pos += globalTableSize;
+        }
+        while (pos < gif.length) {
+            int introducer = gif[pos] & 0xff;
+            if (introducer == 0x21) {
+                pos = skipSubBlocks(gif, pos + 2);
+            } else if (introducer == 0x2c) {
+                int imageFlags = gif[pos + 9] & 0xff;
+                int tableAndData = pos + 10;
+                int end = (imageFlags & 0x80) != 0 ? tableAndData + (3 << ((imageFlags & 0x07) + 1)) : tableAndData;
+                end = skipSubBlocks(gif, end + 1); // after the LZW minimum code size
+                ByteArrayOutputStream image = new ByteArrayOutputStream(end - pos + globalTableSize);
+                image.write(0x2c);
+                writeShort(image, left);
+                writeShort(image, top);
+                image.write(gif, pos + 5, 4); // width and height
+                if ((imageFlags & 0x80) == 0 && globalTableSize > 0) {
+                    image.write(imageFlags | 0x80 | (screenFlags & 0x07));
+                    image.write(gif, globalTable, globalTableSize);
+                } else {
+                    image.write(imageFlags);
+                }
+                image.write(gif, tableAndData, end - tableAndData);
+                return image.toByteArray();
+            } else {
+                break;
+            }
+        }
+        throw new IOException("GIF encoder wrote no image");
+    }
+
+    /*
+     * Index just after a sequence of data sub-blocks starting at pos and
+     * ending with an empty sub-block.
+     */
+    private static int skipSubBlocks(byte[] gif, int pos) throws IOException {
+        while (pos < gif.length) {
+            int length = gif[pos] & 0xff;
+            pos += 1 + length;
+            if (length == 0) {
+                return pos;
+            }
+        }
+        throw new IOException("truncated GIF image data");
+    }
+
+    private static void writeShort(OutputStream out, int value) throws IOException {
+        out.write(value & 0xff);
+        out.write((value >> 8) & 0xff);
+    }
+
+    /*
+     * Write the header, screen descriptor, palette, and looping extension of an animated GIF.
+     */
+    private void writeGifHeader(OutputStream out) throws IOException {
+        out.write(new byte[] { 'G', 'I', 'F', '8', '9', 'a' });
+        writeShort(out, width);
+        writeShort(out, height);
+        int tableBits = Integer.numberOfTrailingZeros(PALETTE.getMapSize()) - 1;
+        out.write(0x80 | 0x70 | tableBits); // global color table of 8-bit colors
+        out.write(0); // background color index
+        out.write(0); // no pixel aspect ratio
+        for (int i = 0; i < PALETTE.getMapSize(); i++) {
+            out.write(PALETTE.getRed(i));
+            out.write(PALETTE.getGreen(i));
+            out.write(PALETTE.getBlue(i));
+        }
+        out.write(new byte[] { 0x21, (byte) 0xff, 11, 'N', 'E', 'T', 'S', 'C', 'A', 'P', 'E', '2', '.', '0' });
+        out.write(new byte[] { 3, 1, 0, 0, 0 }); // loop forever
+    }
+
+    /*
+     * Writes encoded GIF frames in order, each shown until the next one's time.
+     * A frame's delay is known only once the next frame arrives, so each
+     * frame is held back until then.
+     */
+    private class GifFrameWriter {
+
+        private final OutputStream out;
+        private byte[] held;
+        private int heldFrame;
+
+        GifFrameWriter(OutputStream out) {
+            this.out = out;
+        }
+
+        void add(int frame, byte[] encoded) throws IOException {
+            if (held != null) {
+                writeHeld(frame);
+            }
+            held = encoded;
+            heldFrame = frame;
+        }
+
+        void finish() throws IOException {
+            if (held != null) {
+                writeHeld(heldFrame + 1);
+            }
+        }
+
+        private void writeHeld(int nextFrame) throws IOException {
+            int delay = (int) (Math.round(nextFrame * 100.0 / framesPerSecond)
+                    - Math.round(heldFrame * 100.0 / framesPerSecond));
+            // graphic control extension: keep the frame in place for the next to draw over
+            out.write(new byte[] { 0x21, (byte) 0xf9, 4, 1 << 2 });
+            writeShort(out, delay);
+            out.write(new byte[] { 0, 0 });
+            out.write(held);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+import static org.junit.Assert.*;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageInputStream;
+
+import org.junit.Test;
+
+public class AnimationExporterTest {
+
+    private static final int SIZE = 128;
+    private static final int FPS = 10;
+
+    private static List<Action> drawing() {
+        DrawableTurtle turtle = new DrawableTurtle();
+        turtle.regularPolygon(5, 40);
+        turtle.color(PenColor.RED);
+        turtle.arc(30, 180);
+        turtle.color(PenColor.BLUE);
+        turtle.polyline(new int[] { 20, 20, 20 }, new double[] { 90, 90, 90 });
+        return turtle.actions();
+    }
+
+    private static File tempDirectory() throws IOException {
+        File directory = Files.createTempDirectory("turtle").toFile();
+        directory.deleteOnExit();
+        return directory;
+    }
+
+    private static BufferedImage readFrame(File directory, int frame) throws IOException {
+        File file = new File(directory, String.format("frame-%05d.png", frame));
+        file.deleteOnExit();
+        return ImageIO.read(file);
+    }
+
+    private static int inkedPixels(BufferedImage image) {
+        int count = 0;
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                if ((image.getRGB(x, y) & 0xffffff) != 0xffffff) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private static void assertSameImage(BufferedImage expected, BufferedImage actual) {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                assertEquals("pixel " + x + "," + y, expected.getRGB(x, y), actual.getRGB(x, y));
+            }
+        }
+    }
+
+    /**
+     * Tests that the PNG frames start blank, only gain ink, and end with the finished drawing.
+     */
+    @Test
+    public void pngSequenceTest() throws IOException {
+        AnimationExporter exporter = new AnimationExporter(drawing(), SIZE, SIZE, FPS);
+        assertEquals(51, exporter.frameCount());
+        File directory = tempDirectory();
+        exporter.writePngSequence(directory, 3);
+
+        assertEquals(0, inkedPixels(readFrame(directory, 0)));
+        int previous = 0;
+        for (int frame = 1; frame < exporter.frameCount(); frame++) {
+            int inked = inkedPixels(readFrame(directory, frame));
+            assertTrue("frame " + frame + " lost ink", inked >= previous);
+            previous = inked;
+        }
+        assertTrue(inkedPixels(readFrame(directory, exporter.frameCount() / 2)) < previous);
+        assertFalse(new File(directory, String.format("frame-%05d.png", exporter.frameCount())).exists());
+    }
+
+    /**
+     * Tests that the output does not depend on the number of worker threads.
+     */
+    @Test
+    public void threadCountTest() throws IOException {
+        AnimationExporter exporter = new AnimationExporter(drawing(), SIZE, SIZE, FPS);
+        File one = File.createTempFile("turtle", ".gif");
+        one.deleteOnExit();
+        File four = File.createTempFile("turtle", ".gif");
+        four.deleteOnExit();
+        exporter.writeGif(one, 1);
+        exporter.writeGif(four, 4);
+        assertArrayEquals(Files.readAllBytes(one.toPath()), Files.readAllBytes(four.toPath()));
+    }
+
+    /**
+     * Tests that composing the GIF's frames, each drawn over the previous ones
+     * at its position, reproduces the final PNG frame.
+     */
+    @Test
+    public void gifFramesTest() throws IOException {
+        AnimationExporter exporter = new AnimationExporter(drawing(), SIZE, SIZE, FPS);
+        File gif = File.createTempFile("turtle", ".gif");
+        gif.deleteOnExit();
+        exporter.writeGif(gif, 2);
+        File directory = tempDirectory();
+        exporter.writePngSequence(directory, 2);
+        BufferedImage last = readFrame(directory, exporter.frameCount() - 1);
+        for (int frame = 0; frame < exporter.frameCount() - 1; frame++) {
+            readFrame(directory, frame); // marks it for deletion
+        }
+
+        BufferedImage composed = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_RGB);
+        int totalDelay = 0;
+        ImageReader reader = ImageIO.getImageReadersByFormatName("gif").next();
+        try (ImageInputStream in = ImageIO.createImageInputStream(gif)) {
+            reader.setInput(in);
+            int images = reader.getNumImages(true);
+            assertTrue(images > 1);
+            assertTrue(images <= exporter.frameCount());
+            for (int i = 0; i < images; i++) {
+                IIOMetadataNode root = (IIOMetadataNode) reader.getImageMetadata(i)
+                        .getAsTree("javax_imageio_gif_image_1.0");
+                IIOMetadataNode descriptor = (IIOMetadataNode) root.getElementsByTagName("ImageDescriptor").item(0);
+                IIOMetadataNode control = (IIOMetadataNode) root.getElementsByTagName("GraphicControlExtension").item(0);
+                assertEquals("doNotDispose", control.getAttribute("disposalMethod"));
+                totalDelay += Integer.parseInt(control.getAttribute("delayTime"));
+                int left = Integer.parseInt(descriptor.getAttribute("imageLeftPosition"));
+                int top = Integer.parseInt(descriptor.getAttribute("imageTopPosition"));
+                BufferedImage image = reader.read(i);
+                if (i == 0) {
+                    assertEquals(SIZE, image.getWidth());
+                    assertEquals(SIZE, image.getHeight());
+                }
+                composed.createGraphics().drawImage(image, left, top, null);
+            }
+        } finally {
+            reader.dispose();
+        }
+        assertEquals(100 * exporter.frameCount() / FPS, totalDelay);
+        assertSameImage(last, composed);
+    }
+}
@@ -0,0 +1,251 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Measurements of the frames of a TurtleGUI animation.
+ * 
+ * For each frame the animation records:
+ *   frame time     time since the previous frame of the same run started,
+ *                  counted in a histogram; a frame time of k frame periods
+ *                  means k-1 frames were dropped
+ *   drift          how far the drawing is behind the AnimationSchedule at the
+ *                  end of the frame, in milliseconds of schedule time
+ *   segments       number of whole or partial segments drawn
+ *   queue latency  time the frame waited in the event queue: from the
+ *                  animation's timer thread posting it to the event
+ *                  dispatch thread until it started there
+ *   busy time      time spent drawing into the canvas, requesting the
+ *                  repaint, and updating the action label and slider
+ * 
+ * Counts and totals cover every run since the window opened. Frames are
+ * recorded on the event dispatch thread; the values may be read from any
+ * thread, by frame listeners, or over JMX through AnimationMetricsMXBean.
+ */
+public class AnimationMetrics implements AnimationMetricsMXBean {
+
+    /**
+     * Receives each frame's measurements.
+     */
+    public interface FrameListener {
+
+        /**
+         * Called on the event dispatch thread after each animation frame.
+         * 
+         * @param metrics metrics including the frame just finished
+         */
+        void frameFinished(AnimationMetrics metrics);
+    }
+
+    // upper bounds, exclusive, of all but the last histogram bucket
+    private static final long[] FRAME_TIME_BOUNDS_MILLIS = { 4, 8, 16, 24, 33, 50, 100, 250 };
+
+    private final long nanosPerFrame;
+    private final List<FrameListener> listeners = new CopyOnWriteArrayList<>();
+
+    // guarded by this
+    private final long[] frameTimeHistogram = new long[FRAME_TIME_BOUNDS_MILLIS.length + 1];
+    private long frames;
+    private long droppedFrames;
+    private double lastDriftMillis;
+    private double maxDriftMillis;
+    private int lastSegments;
+    private int maxSegments;
+    private long totalSegments;
+    private long lastQueueLatencyMillis;
+    private long maxQueueLatencyMillis;
+    private long drawNanos;
+    private long repaintNanos;
+    private long labelNanos;
+
+    /**
+     * Create metrics with no frames recorded.
+     * 
+     * @param millisPerFrame intended time between frames, must be positive
+     */
+    AnimationMetrics(int millisPerFrame) {
+        this.nanosPerFrame = millisPerFrame * 1_000_000L;
+    }
+
+    /**
+     * @param listener listener to call after every frame
+     */
+    public void addFrameListener(FrameListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * @param listener listener to stop calling; does nothing if it was not added
+     */
+    public void removeFrameListener(FrameListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Record one frame and notify the listeners.
+     * 
+     * @param frameNanos time since the previous frame of the same run started,
+     *                   or 0 for the first frame of a run
+     * @param queueLatencyMillis time from the frame being posted to the event
+     *                           dispatch thread to the frame starting there
+     * @param drawNanos time spent drawing segments
+     * @param repaintNanos time spent requesting the repaint
+     * @param labelNanos time spent updating the action label and slider
+     * @param segments number of segments drawn
+     * @param driftMillis how far the drawing is behind the schedule
+     */
+    void recordFrame(long frameNanos, long queueLatencyMillis, long drawNanos, long repaintNanos,
+                     long labelNanos, int segments, double driftMillis) {
+        synchronized (this) {
+            frames++;
+            if (frameNanos > 0) {
+                long frameMillis = frameNanos / 1_000_000;
+                int bucket = 0;
+                while (bucket < FRAME_TIME_BOUNDS_MILLIS.length && frameMillis >= FRAME_TIME_BOUNDS_MILLIS[bucket]) {
+                    bucket++;
+                }
+                frameTimeHistogram[bucket]++;
+                droppedFrames += Math.max(0, Math.round((double) frameNanos / nanosPerFrame) - 1);
+            }
+            lastDriftMillis = driftMillis;
+            maxDriftMillis = Math.max(maxDriftMillis, driftMillis);
+            lastSegments = segments;
+            maxSegments = Math.max(maxSegments, segments);
+            totalSegments += segments;
+            lastQueueLatencyMillis = queueLatencyMillis;
+            maxQueueLatencyMillis = Math.max(maxQueueLatencyMillis, queueLatencyMillis);
+            this.drawNanos += drawNanos;
+            this.repaintNanos += repaintNanos;
+            this.labelNanos += labelNanos;
+        }
+        for (FrameListener listener : listeners) {
+            listener.frameFinished(this);
+        }
+    }
+
+    /**
+     * @return number of frames drawn
+     */
+    @Override
+    public synchronized long getFrames() {
+        return frames;
+    }
+
+    /**
+     * @return number of frames that should have been drawn, at the frame
+     *         rate, but were not because a frame ran late
+     */
+    @Override
+    public synchronized long getDroppedFrames() {
+        return droppedFrames;
+    }
+
+    /**
+     * @return exclusive upper bounds in milliseconds of the frame time
+     *         histogram's buckets, except the last bucket, which is unbounded
+     */
+    @Override
+    public long[] getFrameTimeBucketBoundsMillis() {
+        return FRAME_TIME_BOUNDS_MILLIS.clone();
+    }
+
+    /**
+     * @return number of frames in each frame time bucket; the first frame of each run is not counted
+     */
+    @Override
+    public synchronized long[] getFrameTimeHistogram() {
+        return frameTimeHistogram.clone();
+    }
+
+    /**
+     * @return drift at the end of the latest frame, in milliseconds
+     */
+    @Override
+    public synchronized double getLastDriftMillis() {
+        return lastDriftMillis;
+    }
+
+    /**
+     * @return largest drift at the end of any frame, in milliseconds
+     */
+    @Override
+    public synchronized double getMaxDriftMillis() {
+        return maxDriftMillis;
+    }
+
+    /**
+     * @return number of segments drawn by the latest frame
+     */
+    @Override
+    public synchronized int getLastSegmentsPerFrame() {
+        return lastSegments;
+    }
+
+    /**
+     * @return largest number of segments drawn by any frame
+     */
+    @Override
+    public synchronized int getMaxSegmentsPerFrame() {
+        return maxSegments;
+    }
+
+    /**
+     * @return number of segments drawn by all frames
+     */
+    @Override
+    public synchronized long getTotalSegments() {
+        return totalSegments;
+    }
+
+    /**
+     * @return queue latency of the latest frame, in milliseconds
+     */
+    @Override
+    public synchronized long getLastQueueLatencyMillis() {
+        return lastQueueLatencyMillis;
+    }
+
+    /**
+     * @return largest queue latency of any frame, in milliseconds
+     */
+    @Override
+    public synchronized long getMaxQueueLatencyMillis() {
+        return maxQueueLatencyMillis;
+    }
+
+    /**
+     * @return total time spent drawing segments into the canvas, in milliseconds
+     */
+    @Override
+    public synchronized double getDrawMillis() {
+        return drawNanos / 1e6;
+    }
+
+    /**
+     * @return total time spent requesting repaints, in milliseconds
+     */
+    @Override
+    public synchronized double getRepaintMillis() {
+        return repaintNanos / 1e6;
+    }
+
+    /**
+     * @return total time spent updating the action label and slider, in milliseconds
+     */
+    @Override
+    public synchronized double getLabelMillis() {
+        return labelNanos / 1e6;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return frames + " frames, " + droppedFrames + " dropped, frame times "
+                + Arrays.toString(frameTimeHistogram) + ", max drift " + maxDriftMillis + " ms, max "
+                + maxSegments + " segments per frame, max queue latency " + maxQueueLatencyMillis + " ms";
+    }
+}
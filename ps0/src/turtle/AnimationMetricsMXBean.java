@@ -0,0 +1,39 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+/**
+ * Management interface for watching TurtleGUI animations over JMX.
+ * See AnimationMetrics for what each value means.
+ */
+public interface AnimationMetricsMXBean {
+
+    long getFrames();
+
+    long getDroppedFrames();
+
+    long[] getFrameTimeBucketBoundsMillis();
+
+    long[] getFrameTimeHistogram();
+
+    double getLastDriftMillis();
+
+    double getMaxDriftMillis();
+
+    int getLastSegmentsPerFrame();
+
+    int getMaxSegmentsPerFrame();
+
+    long getTotalSegments();
+
+    long getLastQueueLatencyMillis();
+
+    long getMaxQueueLatencyMillis();
+
+    double getDrawMillis();
+
+    double getRepaintMillis();
+
+    double getLabelMillis();
+}
@@ -0,0 +1,80 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class AnimationMetricsTest {
+
+    private static final long MILLIS = 1_000_000;
+
+    /**
+     * Tests that frame times are counted in buckets and late frames count as dropped.
+     */
+    @Test
+    public void frameTimesTest() {
+        AnimationMetrics metrics = new AnimationMetrics(16);
+        metrics.recordFrame(0, 0, 0, 0, 0, 0, 0);
+        metrics.recordFrame(16 * MILLIS, 0, 0, 0, 0, 0, 0);
+        metrics.recordFrame(17 * MILLIS, 0, 0, 0, 0, 0, 0);
+        metrics.recordFrame(64 * MILLIS, 0, 0, 0, 0, 0, 0);
+
+        assertEquals(4, metrics.getFrames());
+        assertEquals(3, metrics.getDroppedFrames());
+        long[] bounds = metrics.getFrameTimeBucketBoundsMillis();
+        long[] histogram = metrics.getFrameTimeHistogram();
+        assertEquals(bounds.length + 1, histogram.length);
+        long counted = 0;
+        for (int bucket = 0; bucket < histogram.length; bucket++) {
+            counted += histogram[bucket];
+            if (bucket < bounds.length && bounds[bucket] <= 16) {
+                assertEquals("bucket " + bucket, 0, histogram[bucket]);
+            }
+        }
+        // the first frame of a run has no frame time
+        assertEquals(3, counted);
+    }
+
+    /**
+     * Tests that latest, largest and total values are kept.
+     */
+    @Test
+    public void valuesTest() {
+        AnimationMetrics metrics = new AnimationMetrics(16);
+        metrics.recordFrame(16 * MILLIS, 5, 2 * MILLIS, MILLIS, MILLIS, 100, 40.0);
+        metrics.recordFrame(16 * MILLIS, 1, 4 * MILLIS, MILLIS, MILLIS, 30, 10.0);
+
+        assertEquals(30, metrics.getLastSegmentsPerFrame());
+        assertEquals(100, metrics.getMaxSegmentsPerFrame());
+        assertEquals(130, metrics.getTotalSegments());
+        assertEquals(10.0, metrics.getLastDriftMillis(), 0.0);
+        assertEquals(40.0, metrics.getMaxDriftMillis(), 0.0);
+        assertEquals(1, metrics.getLastQueueLatencyMillis());
+        assertEquals(5, metrics.getMaxQueueLatencyMillis());
+        assertEquals(6.0, metrics.getDrawMillis(), 1e-9);
+        assertEquals(2.0, metrics.getRepaintMillis(), 1e-9);
+    }
+
+    /**
+     * Tests that listeners are called after each frame until removed.
+     */
+    @Test
+    public void listenerTest() {
+        AnimationMetrics metrics = new AnimationMetrics(16);
+        List<Long> seen = new ArrayList<>();
+        AnimationMetrics.FrameListener listener = m -> seen.add(m.getFrames());
+        metrics.addFrameListener(listener);
+        metrics.recordFrame(0, 0, 0, 0, 0, 1, 0);
+        metrics.recordFrame(16 * MILLIS, 0, 0, 0, 0, 1, 0);
+        metrics.removeFrameListener(listener);
+        metrics.recordFrame(16 * MILLIS, 0, 0, 0, 0, 1, 0);
+        assertEquals(2, seen.size());
+        assertEquals(2L, (long) seen.get(1));
+    }
+}
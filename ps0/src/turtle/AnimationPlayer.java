@@ -0,0 +1,96 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Plays an animation in real time on a FramePainter, one frame per call, and
+ * measures each frame in AnimationMetrics.
+ *
+ * Each frame catches the canvas up to the point on the schedule for the
+ * current time, drawing as many whole and partial segments as that takes, so
+ * the drawing finishes on time however many segments it has. A frame stops
+ * early if it runs out of drawing time, and the next frame continues where
+ * it left off.
+ *
+ * Frames are posted to the thread that runs them, such as the event
+ * dispatch thread, by a timer on another thread. A frame's queue latency is
+ * the time from its posting, stamped by the timer, to its start, which is
+ * how long it waited behind other work, such as painting.
+ */
+class AnimationPlayer {
+
+    private final FramePainter painter;
+    private final AnimationMetrics metrics;
+    private final long drawNanosPerFrame;
+    private final LongSupplier nanoClock;
+    private final long initialTime; // nanoClock time at the start of the schedule
+
+    private long lastFrameStart; // nanoClock time when the previous frame started
+    private boolean started;
+
+    /**
+     * Start playing from the painter's position, as if the animation had been
+     * playing all along, or from the start if the drawing is finished.
+     *
+     * @param painter painter to draw the frames with
+     * @param metrics metrics to record each frame in
+     * @param drawNanosPerFrame time a frame may spend drawing, in nanoseconds
+     * @param nanoClock clock in nanoseconds, such as System::nanoTime
+     */
+    AnimationPlayer(FramePainter painter, AnimationMetrics metrics, long drawNanosPerFrame, LongSupplier nanoClock) {
+        this.painter = painter;
+        this.metrics = metrics;
+        this.drawNanosPerFrame = drawNanosPerFrame;
+        this.nanoClock = nanoClock;
+        if (painter.isFinished()) {
+            painter.seek(0);
+        }
+        this.initialTime = nanoClock.getAsLong()
+                - painter.schedule().millisAt(painter.drawnPosition()) * 1_000_000L;
+    }
+
+    /**
+     * Play one frame: draw up to the current time, then repaint and update
+     * the progress shown, and record the frame in the metrics.
+     *
+     * @param postedNanos nanoClock time when the frame was posted to the
+     *                    thread running it
+     * @param repaint repaints the area the frame drew on
+     * @param showProgress shows how far the animation has got
+     * @return true iff the drawing is not finished yet
+     */
+    boolean frame(long postedNanos, Runnable repaint, Runnable showProgress) {
+        AnimationSchedule schedule = painter.schedule();
+        long frameStart = nanoClock.getAsLong();
+        long queueLatencyMillis = Math.max(0, frameStart - postedNanos) / 1_000_000;
+        double target = schedule.positionAt((frameStart - initialTime) / 1_000_000);
+        int segments = painter.drawFrame(target, nanoClock, frameStart + drawNanosPerFrame);
+        long drawEnd = nanoClock.getAsLong();
+        repaint.run();
+        long repaintEnd = nanoClock.getAsLong();
+        showProgress.run();
+        long labelEnd = nanoClock.getAsLong();
+
+        metrics.recordFrame(started ? frameStart - lastFrameStart : 0, queueLatencyMillis,
+                drawEnd - frameStart, repaintEnd - drawEnd, labelEnd - repaintEnd,
+                segments, driftMillis(target));
+        lastFrameStart = frameStart;
+        started = true;
+        return !painter.isFinished();
+    }
+
+    /*
+     * How far the drawing is behind the given schedule position, in milliseconds.
+     */
+    private double driftMillis(double target) {
+        AnimationSchedule schedule = painter.schedule();
+        if (schedule.totalLength() == 0) {
+            return 0;
+        }
+        return Math.max(0, target - painter.drawnPosition())
+                * AnimationSchedule.MILLIS_PER_DRAWING / schedule.totalLength();
+    }
+}
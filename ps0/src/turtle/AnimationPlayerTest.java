@@ -0,0 +1,101 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.junit.Test;
+
+public class AnimationPlayerTest {
+
+    private static final int SIZE = 100;
+    private static final long MILLIS = 1_000_000;
+
+    private static FramePainter painter(List<Action> actions) {
+        AnimationSchedule schedule = new AnimationSchedule(actions);
+        return new FramePainter(schedule, SIZE, SIZE, Viewport.fit(schedule.segments(), SIZE, SIZE, 1.0), null);
+    }
+
+    /**
+     * Tests the metrics of frames played at the frame rate, with one frame
+     * delayed, until the drawing is finished.
+     */
+    @Test
+    public void frameMetricsTest() {
+        DrawableTurtle turtle = new DrawableTurtle();
+        turtle.regularPolygon(6, 30);
+        turtle.color(PenColor.RED);
+        turtle.forward(20);
+        turtle.polyline(new int[] { 10, 10, 10, 10 }, new double[] { 90, 90, 90, 90 });
+        FramePainter painter = painter(turtle.actions());
+        AnimationMetrics metrics = new AnimationMetrics(16);
+        long[] now = { 1000 * MILLIS };
+        AnimationPlayer player = new AnimationPlayer(painter, metrics, 12 * MILLIS, () -> now[0]);
+        int[] repaints = { 0 };
+        int[] progress = { 0 };
+
+        assertTrue(player.frame(now[0], () -> repaints[0]++, () -> progress[0]++));
+        assertEquals(0, metrics.getLastQueueLatencyMillis());
+        now[0] += 16 * MILLIS;
+        assertTrue(player.frame(now[0], () -> repaints[0]++, () -> progress[0]++));
+        assertEquals(0, metrics.getLastQueueLatencyMillis());
+        assertEquals(0, metrics.getDroppedFrames());
+
+        // a frame posted on time that waited 34ms behind other work, missing two frame periods
+        long posted = now[0] + 16 * MILLIS;
+        now[0] += 50 * MILLIS;
+        assertTrue(player.frame(posted, () -> repaints[0]++, () -> progress[0]++));
+        assertEquals(34, metrics.getLastQueueLatencyMillis());
+        assertEquals(2, metrics.getDroppedFrames());
+
+        int frames = 3;
+        boolean playing = true;
+        while (playing) {
+            now[0] += 16 * MILLIS;
+            playing = player.frame(now[0], () -> repaints[0]++, () -> progress[0]++);
+            frames++;
+            assertEquals(0, metrics.getLastQueueLatencyMillis());
+            assertEquals(0, metrics.getLastDriftMillis(), 1e-9);
+        }
+        assertEquals(frames, metrics.getFrames());
+        assertEquals(frames, repaints[0]);
+        assertEquals(frames, progress[0]);
+        assertEquals(2, metrics.getDroppedFrames());
+        assertEquals(34, metrics.getMaxQueueLatencyMillis());
+        assertTrue(metrics.getTotalSegments() >= painter.schedule().segments().size());
+        assertTrue(painter.isFinished());
+        assertEquals((now[0] - 1000 * MILLIS) / MILLIS, AnimationSchedule.MILLIS_PER_DRAWING, 16);
+    }
+
+    /**
+     * Tests that a frame that runs out of drawing time stops, leaving the
+     * drawing behind the schedule, and the next frame continues from there.
+     */
+    @Test
+    public void outOfTimeTest() {
+        DrawableTurtle turtle = new DrawableTurtle();
+        for (int i = 0; i < 1000; i++) {
+            turtle.forward(1);
+            turtle.turn(1);
+        }
+        FramePainter painter = painter(turtle.actions());
+        AnimationMetrics metrics = new AnimationMetrics(16);
+        long[] now = { 0 };
+        // every reading of the clock takes a nanosecond, and frames have no drawing time
+        AnimationPlayer player = new AnimationPlayer(painter, metrics, 0, () -> now[0]++);
+        now[0] += AnimationSchedule.MILLIS_PER_DRAWING * MILLIS;
+
+        assertTrue(player.frame(now[0], () -> { }, () -> { }));
+        assertEquals(FramePainter.ACTIONS_PER_TIME_CHECK, painter.nextAction());
+        assertEquals(FramePainter.ACTIONS_PER_TIME_CHECK / 2, metrics.getLastSegmentsPerFrame());
+        assertTrue(metrics.getLastDriftMillis() > 0);
+
+        now[0] += 16 * MILLIS;
+        assertTrue(player.frame(now[0], () -> { }, () -> { }));
+        assertEquals(2 * FramePainter.ACTIONS_PER_TIME_CHECK, painter.nextAction());
+        assertEquals(2, metrics.getFrames());
+    }
+}
@@ -0,0 +1,229 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+import java.util.List;
+
+/**
+ * Timing model for animating a list of turtle actions.
+ *
+ * Each action occupies a stretch of an animation timeline in proportion to
+ * its length: a move takes its segment length, a polyline, arc or curve the
+ * total length of its segments, a turn takes a fixed length, and a color
+ * change takes none. The whole timeline plays in a fixed time.
+ *
+ * The schedule also collects the line segments of the actions, in order,
+ * so that players can draw them without creating LineSegment objects. When
+ * the actions' segments already fill one store in order, as they do for the
+ * actions of a DrawableTurtle, the schedule shares that store rather than
+ * copying it.
+ */
+class AnimationSchedule {
+
+    /** Timeline length of a turn, in turtle steps. */
+    static final double LENGTH_OF_A_TURN = 20;
+
+    /** Time to play a whole drawing, in milliseconds. */
+    static final long MILLIS_PER_DRAWING = 5000;
+
+    private final List<Action> actions;
+
+    // cumulativeLength[i] is the timeline position where action i starts;
+    // cumulativeLength[actions.size()] is the length of the whole timeline
+    private final double[] cumulativeLength;
+
+    private final SegmentStore segments;
+    // segmentsBefore[i] is the number of segments drawn by the actions before action i
+    private final int[] segmentsBefore;
+
+    /**
+     * Compute the schedule of a list of actions.
+     *
+     * @param actions actions to animate, in order; must not be modified afterwards
+     */
+    AnimationSchedule(List<Action> actions) {
+        this.actions = actions;
+        this.cumulativeLength = new double[actions.size() + 1];
+        this.segmentsBefore = new int[actions.size() + 1];
+        SegmentStore shared = sharedStore(actions);
+        this.segments = shared != null ? shared : new SegmentStore();
+        double totalLength = 0;
+        int segmentCount = 0;
+        for (int i = 0; i < actions.size(); i++) {
+            Action action = actions.get(i);
+            cumulativeLength[i] = totalLength;
+            segmentsBefore[i] = segmentCount;
+            totalLength += lengthOf(action);
+            segmentCount += action.segmentCount();
+            if (shared == null) {
+                action.appendSegmentsTo(segments);
+            }
+        }
+        cumulativeLength[actions.size()] = totalLength;
+        segmentsBefore[actions.size()] = segmentCount;
+    }
+
+    /*
+     * The store holding the segments of all the actions, if they lie in it
+     * one after another from its first segment to its last, otherwise null.
+     */
+    private static SegmentStore sharedStore(List<Action> actions) {
+        SegmentStore store = null;
+        int next = 0;
+        for (Action action : actions) {
+            if (action.segmentCount() == 0) {
+                continue;
+            }
+            if (action.segmentStore() == null || action.firstSegment() != next
+                    || (store != null && action.segmentStore() != store)) {
+                return null;
+            }
+            store = action.segmentStore();
+            next += action.segmentCount();
+        }
+        return store != null && next == store.size() ? store : null;
+    }
+
+    private static double lengthOf(Action action) {
+        switch (action.type()) {
+        case TURN:
+            return LENGTH_OF_A_TURN;
+        case FORWARD:
+        case POLYLINE:
+        case ARC:
+        case CURVE:
+            return action.segmentLength();
+        default:
+            return 0;
+        }
+    }
+
+    /**
+     * @return the scheduled actions
+     */
+    List<Action> actions() {
+        return actions;
+    }
+
+    /**
+     * @return number of scheduled actions
+     */
+    int size() {
+        return actions.size();
+    }
+
+    /**
+     * @return line segments of the scheduled actions, in order, at indexes
+     *         below segmentsBefore(size()); must not be modified
+     */
+    SegmentStore segments() {
+        return segments;
+    }
+
+    /**
+     * @param index action index, 0 <= index <= size()
+     * @return number of segments drawn by the actions before the given action,
+     *         which is also the index in segments() of that action's first segment, if it has any
+     */
+    int segmentsBefore(int index) {
+        return segmentsBefore[index];
+    }
+
+    /**
+     * @param index action index, 0 <= index < size()
+     * @return true iff the action draws at least one segment
+     */
+    boolean hasSegment(int index) {
+        return segmentsBefore[index + 1] > segmentsBefore[index];
+    }
+
+    /**
+     * @param index action index, 0 <= index < size()
+     * @return number of segments the action draws
+     */
+    int segmentCount(int index) {
+        return segmentsBefore[index + 1] - segmentsBefore[index];
+    }
+
+    /**
+     * @param segment segment index, 0 <= segment < segmentsBefore(size())
+     * @return index of the action that draws the segment
+     */
+    int actionOfSegment(int segment) {
+        int low = 0;
+        int high = actions.size() - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (segmentsBefore[mid + 1] <= segment) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return length of the whole timeline
+     */
+    double totalLength() {
+        return cumulativeLength[actions.size()];
+    }
+
+    /**
+     * @param index action index, 0 <= index <= size()
+     * @return timeline position where the action starts, or the total length if index == size()
+     */
+    double startOf(int index) {
+        return cumulativeLength[index];
+    }
+
+    /**
+     * @param index action index, 0 <= index < size()
+     * @return timeline position where the action ends
+     */
+    double endOf(int index) {
+        return cumulativeLength[index + 1];
+    }
+
+    /**
+     * @param elapsedMillis time since the animation started, in milliseconds
+     * @return timeline position that should have been reached at that time
+     */
+    double positionAt(long elapsedMillis) {
+        if (elapsedMillis >= MILLIS_PER_DRAWING) {
+            return totalLength();
+        }
+        return Math.max(elapsedMillis, 0) * totalLength() / MILLIS_PER_DRAWING;
+    }
+
+    /**
+     * @param position timeline position, 0 <= position <= totalLength()
+     * @return time since the animation started at which that position is reached, in milliseconds
+     */
+    long millisAt(double position) {
+        if (totalLength() == 0) {
+            return 0;
+        }
+        return (long) (position * MILLIS_PER_DRAWING / totalLength());
+    }
+
+    /**
+     * @param position timeline position
+     * @return index of the first action that ends after position, or size() if none
+     */
+    int actionAt(double position) {
+        int low = 0;
+        int high = actions.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cumulativeLength[mid + 1] <= position) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,112 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+public class AnimationScheduleTest {
+
+    /**
+     * Tests that actions are allotted timeline length by kind.
+     */
+    @Test
+    public void lengthsTest() {
+        DrawableTurtle turtle = new DrawableTurtle();
+        turtle.forward(30);
+        turtle.color(PenColor.RED);
+        turtle.turn(90);
+        turtle.forward(50);
+
+        AnimationSchedule schedule = new AnimationSchedule(turtle.actions());
+        assertEquals(4, schedule.size());
+        assertEquals(30.0, schedule.endOf(0), 1e-9);
+        assertEquals(30.0, schedule.endOf(1), 1e-9);
+        assertEquals(30.0 + AnimationSchedule.LENGTH_OF_A_TURN, schedule.endOf(2), 1e-9);
+        assertEquals(80.0 + AnimationSchedule.LENGTH_OF_A_TURN, schedule.totalLength(), 1e-9);
+    }
+
+    /**
+     * Tests mapping from time to timeline position to action.
+     */
+    @Test
+    public void positionsTest() {
+        DrawableTurtle turtle = new DrawableTurtle();
+        turtle.forward(50);
+        turtle.color(PenColor.RED);
+        turtle.forward(50);
+
+        AnimationSchedule schedule = new AnimationSchedule(turtle.actions());
+        assertEquals(0.0, schedule.positionAt(-5), 0.0);
+        assertEquals(50.0, schedule.positionAt(AnimationSchedule.MILLIS_PER_DRAWING / 2), 1e-9);
+        assertEquals(100.0, schedule.positionAt(AnimationSchedule.MILLIS_PER_DRAWING * 2), 0.0);
+        assertEquals(AnimationSchedule.MILLIS_PER_DRAWING / 4, schedule.millisAt(25));
+
+        assertEquals(0, schedule.actionAt(0));
+        assertEquals(0, schedule.actionAt(49.9));
+        assertEquals(2, schedule.actionAt(50));
+        assertEquals(3, schedule.actionAt(100));
+    }
+
+    /**
+     * Tests that a polyline is one action spanning all of its segments.
+     */
+    @Test
+    public void polylineTest() {
+        DrawableTurtle turtle = new DrawableTurtle();
+        turtle.forward(5);
+        turtle.regularPolygon(4, 10);
+        turtle.forward(5);
+
+        AnimationSchedule schedule = new AnimationSchedule(turtle.actions());
+        assertEquals(3, schedule.size());
+        assertEquals(6, schedule.segments().size());
+        assertEquals(1, schedule.segmentsBefore(1));
+        assertEquals(4, schedule.segmentCount(1));
+        assertEquals(5, schedule.segmentsBefore(2));
+        assertEquals(45.0, schedule.endOf(1), 1e-9);
+        assertEquals(50.0, schedule.totalLength(), 1e-9);
+    }
+
+    /**
+     * Tests that an arc takes about its arc length.
+     */
+    @Test
+    public void arcTest() {
+        DrawableTurtle turtle = new DrawableTurtle();
+        turtle.arc(50, -180);
+        AnimationSchedule schedule = new AnimationSchedule(turtle.actions());
+        assertEquals(1, schedule.size());
+        assertTrue(schedule.segmentCount(0) > 1);
+        assertEquals(50 * Math.PI, schedule.totalLength(), 0.1);
+    }
+
+    /**
+     * Tests that the schedule shares the turtle's segment store when the
+     * actions' segments fill it in order, and copies them otherwise.
+     */
+    @Test
+    public void sharedSegmentsTest() {
+        DrawableTurtle turtle = new DrawableTurtle();
+        turtle.forward(10);
+        turtle.turn(90);
+        turtle.polyline(new int[] { 10, 20 }, new double[] { 90, 90 });
+        AnimationSchedule schedule = new AnimationSchedule(turtle.actions());
+        assertSame(turtle.segments(), schedule.segments());
+        assertEquals(1, schedule.segmentsBefore(2));
+
+        List<Action> reversed = new ArrayList<>(turtle.actions());
+        Collections.reverse(reversed);
+        AnimationSchedule copied = new AnimationSchedule(reversed);
+        assertNotSame(turtle.segments(), copied.segments());
+        assertEquals(3, copied.segments().size());
+        assertEquals(turtle.segments().endX(0), copied.segments().endX(2), 0.0);
+        assertEquals(turtle.segments().endY(0), copied.segments().endY(2), 0.0);
+    }
+}
@@ -0,0 +1,205 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Snapshots of an animation canvas at regular action indices, so that the
+ * animation can jump to any action by restoring the nearest snapshot before
+ * it and drawing only the actions in between.
+ *
+ * Snapshots are kept as raw pixels up to a memory limit. Beyond that the
+ * least recently used ones are compressed, and beyond a second limit the
+ * least recently used compressed ones are dropped.
+ */
+class CanvasCheckpoints {
+
+    private final int interval;
+    private final long maxRawBytes;
+    private final long maxCompressedBytes;
+
+    // snapshots by action index, in least recently used order
+    private final Map<Integer, int[]> raw = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Integer, byte[]> compressed = new LinkedHashMap<>(16, 0.75f, true);
+    private long rawBytes;
+    private long compressedBytes;
+
+    /**
+     * Create an empty set of checkpoints.
+     *
+     * @param interval number of actions between checkpoints, must be positive
+     * @param maxRawBytes memory allowed for uncompressed snapshots; the most recent is always kept
+     * @param maxCompressedBytes memory allowed for compressed snapshots
+     */
+    CanvasCheckpoints(int interval, long maxRawBytes, long maxCompressedBytes) {
+        this.interval = interval;
+        this.maxRawBytes = maxRawBytes;
+        this.maxCompressedBytes = maxCompressedBytes;
+    }
+
+    /**
+     * @return number of actions between checkpoints
+     */
+    int interval() {
+        return interval;
+    }
+
+    /**
+     * @return number of snapshots kept, compressed or not
+     */
+    int size() {
+        return raw.size() + compressed.size();
+    }
+
+    /**
+     * @return number of snapshots kept compressed
+     */
+    int compressedSize() {
+        return compressed.size();
+    }
+
+    /**
+     * Discard all snapshots, for example because the view has changed.
+     */
+    void clear() {
+        raw.clear();
+        compressed.clear();
+        rawBytes = 0;
+        compressedBytes = 0;
+    }
+
+    /**
+     * @param action action index
+     * @return true iff the action index is a positive multiple of interval()
+     *         and no snapshot is kept for it
+     */
+    boolean wants(int action) {
+        return action > 0 && action % interval == 0
+                && !raw.containsKey(action) && !compressed.containsKey(action);
+    }
+
+    /**
+     * Keep a snapshot of a canvas.
+     *
+     * @param action index of the first action not drawn on the canvas; wants(action) must be true
+     * @param canvas canvas showing exactly the actions before that index; all
+     *               snapshots must be of canvases of the same size and type
+     */
+    void save(int action, BufferedImage canvas) {
+        int[] pixels = (int[]) canvas.getRaster().getDataElements(0, 0, canvas.getWidth(), canvas.getHeight(), null);
+        putRaw(action, pixels);
+    }
+
+    /**
+     * @param action action index
+     * @return index of the action the latest snapshot at or before action
+     *         was taken before, or 0 if there is none; nothing is restored
+     */
+    int latest(int action) {
+        for (int checkpoint = action - action % interval; checkpoint > 0; checkpoint -= interval) {
+            if (raw.containsKey(checkpoint) || compressed.containsKey(checkpoint)) {
+                return checkpoint;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Restore the latest snapshot at or before an action.
+     *
+     * @param action action index
+     * @param canvas canvas to copy the snapshot onto, unchanged if there is none
+     * @return index of the action the restored snapshot was taken before, or 0
+     *         if there is no snapshot at or before action
+     */
+    int restore(int action, BufferedImage canvas) {
+        for (int checkpoint = action - action % interval; checkpoint > 0; checkpoint -= interval) {
+            int[] pixels = raw.get(checkpoint);
+            if (pixels == null) {
+                byte[] data = compressed.remove(checkpoint);
+                if (data == null) {
+                    continue;
+                }
+                compressedBytes -= data.length;
+                pixels = decompress(data, canvas.getWidth() * canvas.getHeight());
+                putRaw(checkpoint, pixels);
+            }
+            canvas.getRaster().setDataElements(0, 0, canvas.getWidth(), canvas.getHeight(), pixels);
+            return checkpoint;
+        }
+        return 0;
+    }
+
+    private void putRaw(int action, int[] pixels) {
+        raw.put(action, pixels);
+        rawBytes += pixels.length * 4L;
+        Iterator<Map.Entry<Integer, int[]>> eldest = raw.entrySet().iterator();
+        while (rawBytes > maxRawBytes && raw.size() > 1) {
+            Map.Entry<Integer, int[]> entry = eldest.next();
+            eldest.remove();
+            rawBytes -= entry.getValue().length * 4L;
+            byte[] data = compress(entry.getValue());
+            compressed.put(entry.getKey(), data);
+            compressedBytes += data.length;
+        }
+        Iterator<byte[]> eldestCompressed = compressed.values().iterator();
+        while (compressedBytes > maxCompressedBytes && eldestCompressed.hasNext()) {
+            compressedBytes -= eldestCompressed.next().length;
+            eldestCompressed.remove();
+        }
+    }
+
+    private static byte[] compress(int[] pixels) {
+        ByteBuffer bytes = ByteBuffer.allocate(pixels.length * 4);
+        bytes.asIntBuffer().put(pixels);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(bytes.array());
+            deflater.finish();
+            byte[] output = new byte[Math.max(64, pixels.length / 16)];
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == output.length) {
+                    output = Arrays.copyOf(output, output.length * 2);
+                }
+                length += deflater.deflate(output, length, output.length - length);
+            }
+            return Arrays.copyOf(output, length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static int[] decompress(byte[] data, int pixelCount) {
+        byte[] bytes = new byte[pixelCount * 4];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            int length = 0;
+            while (length < bytes.length && !inflater.finished()) {
+                int inflated = inflater.inflate(bytes, length, bytes.length - length);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new AssertionError("truncated snapshot");
+                }
+                length += inflated;
+            }
+        } catch (DataFormatException dfe) {
+            throw new AssertionError("corrupt snapshot", dfe);
+        } finally {
+            inflater.end();
+        }
+        int[] pixels = new int[pixelCount];
+        ByteBuffer.wrap(bytes).asIntBuffer().get(pixels);
+        return pixels;
+    }
+}
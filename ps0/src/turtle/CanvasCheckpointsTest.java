@@ -0,0 +1,94 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+import static org.junit.Assert.*;
+
+import java.awt.image.BufferedImage;
+
+import org.junit.Test;
+
+public class CanvasCheckpointsTest {
+
+    private static final int SIZE = 64;
+    private static final long SNAPSHOT_BYTES = SIZE * SIZE * 4;
+
+    /*
+     * A canvas whose pixels encode a number, to tell snapshots apart.
+     */
+    private static BufferedImage canvas(int number) {
+        BufferedImage canvas = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < SIZE; y++) {
+            canvas.setRGB(number % SIZE, y, 0xff0000 + number);
+        }
+        return canvas;
+    }
+
+    /**
+     * Tests that the latest snapshot at or before an action is found and restored.
+     */
+    @Test
+    public void restoreNearestTest() {
+        CanvasCheckpoints checkpoints = new CanvasCheckpoints(10, Long.MAX_VALUE, Long.MAX_VALUE);
+        assertTrue(checkpoints.wants(10));
+        assertFalse(checkpoints.wants(0));
+        assertFalse(checkpoints.wants(15));
+        checkpoints.save(10, canvas(10));
+        checkpoints.save(30, canvas(30));
+        assertFalse(checkpoints.wants(10));
+
+        assertEquals(0, checkpoints.latest(9));
+        assertEquals(10, checkpoints.latest(29));
+        assertEquals(30, checkpoints.latest(1000));
+
+        BufferedImage target = canvas(0);
+        assertEquals(0, checkpoints.restore(9, target));
+        assertEquals(canvas(0).getRGB(0, 0), target.getRGB(0, 0));
+        assertEquals(10, checkpoints.restore(29, target));
+        assertEquals(0xffff0000 + 10, target.getRGB(10, 5));
+        assertEquals(30, checkpoints.restore(1000, target));
+        assertEquals(0xffff0000 + 30, target.getRGB(30, 5));
+
+        checkpoints.clear();
+        assertEquals(0, checkpoints.size());
+        assertEquals(0, checkpoints.restore(1000, target));
+    }
+
+    /**
+     * Tests that snapshots over the memory limit are compressed and restored exactly.
+     */
+    @Test
+    public void compressionTest() {
+        CanvasCheckpoints checkpoints = new CanvasCheckpoints(1, 2 * SNAPSHOT_BYTES, Long.MAX_VALUE);
+        for (int i = 1; i <= 5; i++) {
+            checkpoints.save(i, canvas(i));
+        }
+        assertEquals(5, checkpoints.size());
+        assertEquals(3, checkpoints.compressedSize());
+
+        BufferedImage target = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_RGB);
+        assertEquals(1, checkpoints.restore(1, target));
+        BufferedImage expected = canvas(1);
+        for (int x = 0; x < SIZE; x++) {
+            for (int y = 0; y < SIZE; y++) {
+                assertEquals(expected.getRGB(x, y), target.getRGB(x, y));
+            }
+        }
+        // restoring decompressed snapshot 1, which pushed out another one
+        assertEquals(3, checkpoints.compressedSize());
+    }
+
+    /**
+     * Tests that compressed snapshots over their limit are dropped, oldest first.
+     */
+    @Test
+    public void dropTest() {
+        CanvasCheckpoints checkpoints = new CanvasCheckpoints(1, SNAPSHOT_BYTES, 1);
+        checkpoints.save(1, canvas(1));
+        checkpoints.save(2, canvas(2));
+        assertEquals(1, checkpoints.size());
+        assertEquals(2, checkpoints.restore(5, new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_RGB)));
+        assertEquals(0, checkpoints.restore(1, new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_RGB)));
+    }
+}
@@ -0,0 +1,187 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Shape;
+import java.awt.geom.Line2D;
+import java.awt.image.BufferedImage;
+
+import javax.swing.JComponent;
+import javax.swing.JFrame;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.WindowConstants;
+
+/**
+ * Turtle that draws each move onto an image as soon as it is made.
+ *
+ * Unlike DrawableTurtle, no segments are kept, so memory use is the image
+ * alone however long the drawing is. Arcs and curves are drawn as shapes.
+ * The first call to draw() shows the image in a window, which keeps showing
+ * moves made afterwards. As in TurtleGUI, the turtle origin is at the center
+ * of the image, y increases upward, and one step is one pixel.
+ *
+ * The turtle may be moved from any one thread while the window is showing.
+ */
+public class CanvasTurtle implements Turtle {
+
+    private static final Color CANVAS_BG_COLOR = Color.WHITE;
+    private static final int MILLIS_PER_REPAINT = 40;
+
+    private final BufferedImage canvas;
+    private final TurtleCursor cursor = new TurtleCursor();
+    private final Line2D.Double line = new Line2D.Double();
+
+    // guarded by canvas: graphics draws onto the image
+    private final Graphics2D graphics;
+    private PenColor graphicsColor;
+    private long segmentCount;
+
+    private boolean windowShown;
+
+    /**
+     * Create a turtle with a blank image.
+     *
+     * @param width image width in pixels, must be positive
+     * @param height image height in pixels, must be positive
+     */
+    public CanvasTurtle(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("invalid image size");
+        }
+        this.canvas = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        this.graphics = canvas.createGraphics();
+        graphics.setBackground(CANVAS_BG_COLOR);
+        graphics.clearRect(0, 0, width, height);
+        graphics.setStroke(new BasicStroke(1.0f));
+    }
+
+    @Override
+    public void forward(int units) {
+        double startX = cursor.x();
+        double startY = cursor.y();
+        cursor.forward(units);
+        double originX = canvas.getWidth() / 2.0;
+        double originY = canvas.getHeight() / 2.0;
+        line.setLine(originX + startX, originY - startY, originX + cursor.x(), originY - cursor.y());
+        drawShape(line);
+    }
+
+    /**
+     * Move along an arc, drawn as an Arc2D.
+     * 
+     * @see Turtle#arc(int, double)
+     */
+    @Override
+    public void arc(int radius, double degrees) {
+        if (radius <= 0) {
+            throw new IllegalArgumentException("radius must be positive");
+        }
+        if (degrees == 0) {
+            return;
+        }
+        CurveGeometry arc = cursor.arcGeometry(radius, degrees);
+        cursor.arc(radius, degrees);
+        drawShape(arc.shape(0, 1, canvas.getWidth() / 2.0, canvas.getHeight() / 2.0, 0, 0, 1));
+    }
+
+    /**
+     * Move along a cubic Bezier curve, drawn as a CubicCurve2D.
+     * 
+     * @see Turtle#cubicCurve(int, int, int, int, int, int)
+     */
+    @Override
+    public void cubicCurve(int control1Ahead, int control1Right,
+                           int control2Ahead, int control2Right, int endAhead, int endRight) {
+        CurveGeometry curve = cursor.cubicGeometry(control1Ahead, control1Right,
+                control2Ahead, control2Right, endAhead, endRight);
+        cursor.cubicCurve(control1Ahead, control1Right, control2Ahead, control2Right, endAhead, endRight);
+        drawShape(curve.shape(0, 1, canvas.getWidth() / 2.0, canvas.getHeight() / 2.0, 0, 0, 1));
+    }
+
+    private void drawShape(Shape shape) {
+        synchronized (canvas) {
+            if (cursor.color() != graphicsColor) {
+                graphicsColor = cursor.color();
+                graphics.setPaint(PenColors.of(graphicsColor));
+            }
+            graphics.draw(shape);
+            segmentCount++;
+        }
+    }
+
+    @Override
+    public void turn(double degrees) {
+        cursor.turn(degrees);
+    }
+
+    @Override
+    public void color(PenColor color) {
+        cursor.color(color);
+    }
+
+    /**
+     * @return number of moves, arcs and curves drawn so far
+     */
+    public long segmentCount() {
+        synchronized (canvas) {
+            return segmentCount;
+        }
+    }
+
+    /**
+     * @return a copy of the image as drawn so far
+     */
+    public BufferedImage snapshot() {
+        BufferedImage copy = new BufferedImage(canvas.getWidth(), canvas.getHeight(), BufferedImage.TYPE_INT_RGB);
+        synchronized (canvas) {
+            copy.setData(canvas.getRaster());
+        }
+        return copy;
+    }
+
+    /**
+     * Show the image in a window, unless it is already shown. The window
+     * keeps showing moves made after this call.
+     */
+    @Override
+    public void draw() {
+        if (windowShown) {
+            return;
+        }
+        windowShown = true;
+        SwingUtilities.invokeLater(() -> {
+            JComponent view = new JComponent() {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected void paintComponent(Graphics g) {
+                    synchronized (canvas) {
+                        g.drawImage(canvas, 0, 0, null);
+                    }
+                }
+            };
+            view.setPreferredSize(new Dimension(canvas.getWidth(), canvas.getHeight()));
+            JFrame frame = new JFrame("Turtle");
+            frame.setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
+            frame.add(view);
+            frame.pack();
+            frame.setVisible(true);
+            Timer repaint = new Timer(MILLIS_PER_REPAINT, null);
+            repaint.addActionListener(e -> {
+                if (frame.isDisplayable()) {
+                    view.repaint();
+                } else {
+                    repaint.stop();
+                }
+            });
+            repaint.start();
+        });
+    }
+}
@@ -0,0 +1,170 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Turtle that many threads can draw with at once.
+ *
+ * Each thread draws its own part of the picture, with its own position,
+ * heading and pen color, into its own buffer, so drawing needs no locking.
+ * Every part starts at the origin, facing up, with a black pen. A thread's
+ * first action starts a part for it; beginPart() starts a new one with an
+ * explicit position in the drawing order, and endPart() ends the thread's
+ * part. A thread keeps its part until it ends it, so tasks run on pooled
+ * threads, such as those of an ExecutorService, must end their part when
+ * they finish, or the next task on the same thread continues it.
+ *
+ * The parts are merged into one drawing, ordered by their order keys, by
+ * actions(), segments(), render() and draw(). Those must only be called once
+ * every drawing thread has finished (for example, after joining it).
+ */
+public class ConcurrentTurtle implements Turtle {
+
+    private final ThreadLocal<Part> currentPart = new ThreadLocal<>();
+    private final Queue<Part> parts = new ConcurrentLinkedQueue<>();
+    private final AtomicLong partsStarted = new AtomicLong();
+
+    /*
+     * One thread's part of the drawing. Only touched by that thread until the parts are merged.
+     */
+    private static class Part {
+
+        private final long order;
+        private final long sequence;
+        private final TurtleCursor cursor = new TurtleCursor();
+        private final SegmentStore lines = new SegmentStore();
+        private final List<Action> actions = new ArrayList<>();
+
+        Part(long order, long sequence) {
+            this.order = order;
+            this.sequence = sequence;
+        }
+    }
+
+    private static final Comparator<Part> DRAWING_ORDER =
+            Comparator.comparingLong((Part part) -> part.order).thenComparingLong(part -> part.sequence);
+
+    /**
+     * Create a new turtle with no parts.
+     */
+    public ConcurrentTurtle() {
+    }
+
+    /**
+     * Start a new part of the drawing for the calling thread. Later actions
+     * from this thread go to the new part, which starts at the origin.
+     *
+     * @param order position of the part in the merged drawing; parts with equal
+     *              keys are ordered by when they started
+     */
+    public void beginPart(long order) {
+        Part part = new Part(order, partsStarted.getAndIncrement());
+        parts.add(part);
+        currentPart.set(part);
+    }
+
+    /**
+     * End the calling thread's part of the drawing, if it has one. The part
+     * stays in the drawing; the thread's next action starts a new part.
+     */
+    public void endPart() {
+        currentPart.remove();
+    }
+
+    private Part part() {
+        Part part = currentPart.get();
+        if (part == null) {
+            long sequence = partsStarted.getAndIncrement();
+            part = new Part(sequence, sequence);
+            parts.add(part);
+            currentPart.set(part);
+        }
+        return part;
+    }
+
+    @Override
+    public void forward(int units) {
+        Part part = part();
+        double startX = part.cursor.x();
+        double startY = part.cursor.y();
+        part.cursor.forward(units);
+        int segmentIndex = part.lines.add(startX, startY, part.cursor.x(), part.cursor.y(), part.cursor.color());
+        part.actions.add(Action.forward(units, part.lines, segmentIndex));
+    }
+
+    @Override
+    public void turn(double degrees) {
+        Part part = part();
+        part.actions.add(Action.turn(part.cursor.turn(degrees)));
+    }
+
+    @Override
+    public void color(PenColor color) {
+        Part part = part();
+        part.cursor.color(color);
+        part.actions.add(Action.color(color));
+    }
+
+    private List<Part> sortedParts() {
+        List<Part> sorted = new ArrayList<>(parts);
+        sorted.sort(DRAWING_ORDER);
+        return sorted;
+    }
+
+    /**
+     * @return the actions of all parts, merged in drawing order; unmodifiable
+     */
+    public List<Action> actions() {
+        List<Part> sorted = sortedParts();
+        int size = 0;
+        for (Part part : sorted) {
+            size += part.actions.size();
+        }
+        List<Action> merged = new ArrayList<>(size);
+        for (Part part : sorted) {
+            merged.addAll(part.actions);
+        }
+        return Collections.unmodifiableList(merged);
+    }
+
+    /**
+     * @return a new store holding the segments of all parts, merged in drawing order
+     */
+    public SegmentStore segments() {
+        SegmentStore merged = new SegmentStore();
+        for (Part part : sortedParts()) {
+            part.lines.forEach(merged::add);
+        }
+        return merged;
+    }
+
+    /**
+     * Render the merged drawing without a screen, scaled and fitted as by
+     * DrawableTurtle.render().
+     *
+     * @param width image width in pixels, must be positive
+     * @param height image height in pixels, must be positive
+     * @return the finished drawing
+     */
+    public BufferedImage render(int width, int height) {
+        return DrawableTurtle.render(segments(), width, height);
+    }
+
+    /**
+     * Draw the merged drawing in a window on the screen.
+     */
+    @Override
+    public void draw() {
+        DrawableTurtle.showInWindow(actions());
+    }
+}
@@ -0,0 +1,122 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+public class ConcurrentTurtleTest {
+
+    /**
+     * Tests that parts drawn on several threads merge in order of their keys.
+     */
+    @Test
+    public void mergeInOrderTest() throws InterruptedException {
+        ConcurrentTurtle turtle = new ConcurrentTurtle();
+        int threads = 4;
+        int moves = 5000;
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final int part = t;
+            workers.add(new Thread(() -> {
+                turtle.beginPart(threads - part);
+                turtle.color(PenColor.values()[part]);
+                for (int i = 0; i < moves; i++) {
+                    turtle.forward(part + 1);
+                    turtle.turn(90);
+                }
+            }));
+        }
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        SegmentStore segments = turtle.segments();
+        assertEquals(threads * moves, segments.size());
+        assertEquals(threads * (2 * moves + 1), turtle.actions().size());
+        // the part with the smallest key, drawn by the last thread, comes first
+        for (int t = 0; t < threads; t++) {
+            int first = t * moves;
+            assertEquals(PenColor.values()[threads - 1 - t], segments.color(first));
+            assertEquals(threads - t, segments.length(first), 1e-9);
+            assertEquals(0.0, segments.startX(first), 0.0);
+            assertEquals(0.0, segments.startY(first), 0.0);
+        }
+    }
+
+    /**
+     * Tests that a thread's actions go to an implicit part when no part was begun.
+     */
+    @Test
+    public void implicitPartTest() {
+        ConcurrentTurtle turtle = new ConcurrentTurtle();
+        turtle.forward(10);
+        turtle.turn(90);
+        turtle.forward(10);
+        assertEquals(2, turtle.segments().size());
+        assertEquals(10.0, turtle.segments().endX(1), 0.0);
+    }
+
+    /**
+     * Tests that tasks run on a thread pool each draw their own part when
+     * they end it, even though they share threads.
+     */
+    @Test
+    public void pooledTasksTest() throws Exception {
+        ConcurrentTurtle turtle = new ConcurrentTurtle();
+        int tasks = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < tasks; t++) {
+                final int task = t;
+                results.add(pool.submit(() -> {
+                    try {
+                        turtle.beginPart(task);
+                        turtle.forward(10);
+                        turtle.turn(90);
+                        turtle.forward(10);
+                    } finally {
+                        turtle.endPart();
+                    }
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+            // tasks that only rely on the implicit part get a new one each
+            for (int t = 0; t < tasks; t++) {
+                pool.submit(() -> {
+                    try {
+                        turtle.forward(5);
+                    } finally {
+                        turtle.endPart();
+                    }
+                }).get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        SegmentStore segments = turtle.segments();
+        assertEquals(3 * tasks, segments.size());
+        for (int t = 0; t < tasks; t++) {
+            assertEquals(0.0, segments.startX(2 * t), 0.0);
+            assertEquals(0.0, segments.startY(2 * t), 0.0);
+            assertEquals(10.0, segments.endX(2 * t + 1), 1e-9);
+            assertEquals(0.0, segments.startX(2 * tasks + t), 0.0);
+            assertEquals(0.0, segments.startY(2 * tasks + t), 0.0);
+        }
+    }
+}
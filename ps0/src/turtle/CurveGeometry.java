@@ -0,0 +1,242 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+import java.awt.Shape;
+import java.awt.geom.Arc2D;
+import java.awt.geom.CubicCurve2D;
+
+/**
+ * Immutable shape of a circular arc or a cubic Bezier curve, in turtle
+ * coordinates, parameterized by t from 0 at its start to 1 at its end.
+ *
+ * Turtles that keep line segments store a curve as chords between points at
+ * equally spaced parameters, close enough to the curve to look the same at
+ * ordinary zoom levels. Points on an arc are equally spaced in t by arc
+ * length too; points on a Bezier curve in general are not.
+ */
+class CurveGeometry {
+
+    /** Largest distance in steps between a curve and the chords it is stored as. */
+    static final double FLATNESS = 1.0 / 16;
+
+    private static final int MAX_PIECES = 1 << 16;
+
+    private final boolean arc;
+    // arc: center x, center y, radius, start angle and extent in radians,
+    //      counterclockwise from the positive x-axis;
+    // Bezier: x and y of the start, the two control points and the end
+    private final double[] p;
+
+    private CurveGeometry(boolean arc, double... p) {
+        this.arc = arc;
+        this.p = p;
+    }
+
+    /**
+     * @param centerX x-coordinate of the center
+     * @param centerY y-coordinate of the center
+     * @param radius radius, must be positive
+     * @param start angle of the start point in radians counterclockwise from the positive x-axis
+     * @param extent angle swept in radians, counterclockwise if positive
+     * @return a circular arc
+     */
+    static CurveGeometry arc(double centerX, double centerY, double radius, double start, double extent) {
+        return new CurveGeometry(true, centerX, centerY, radius, start, extent);
+    }
+
+    /**
+     * @return a cubic Bezier curve from (x0, y0) to (x3, y3) with control points (x1, y1) and (x2, y2)
+     */
+    static CurveGeometry cubic(double x0, double y0, double x1, double y1,
+                               double x2, double y2, double x3, double y3) {
+        return new CurveGeometry(false, x0, y0, x1, y1, x2, y2, x3, y3);
+    }
+
+    /**
+     * @return true iff this is a circular arc, false if a Bezier curve
+     */
+    boolean isArc() {
+        return arc;
+    }
+
+    /**
+     * @param i 0 for the start, 1 and 2 for the control points, 3 for the end
+     * @return x-coordinate of that point of a Bezier curve
+     */
+    double pointX(int i) {
+        return p[2 * i];
+    }
+
+    /**
+     * @param i 0 for the start, 1 and 2 for the control points, 3 for the end
+     * @return y-coordinate of that point of a Bezier curve
+     */
+    double pointY(int i) {
+        return p[2 * i + 1];
+    }
+
+    /**
+     * @param t parameter, 0 <= t <= 1
+     * @return x-coordinate of the point at t
+     */
+    double x(double t) {
+        if (arc) {
+            return p[0] + p[2] * Math.cos(p[3] + p[4] * t);
+        }
+        return bezier(p[0], p[2], p[4], p[6], t);
+    }
+
+    /**
+     * @param t parameter, 0 <= t <= 1
+     * @return y-coordinate of the point at t
+     */
+    double y(double t) {
+        if (arc) {
+            return p[1] + p[2] * Math.sin(p[3] + p[4] * t);
+        }
+        return bezier(p[1], p[3], p[5], p[7], t);
+    }
+
+    private static double bezier(double a, double b, double c, double d, double t) {
+        double s = 1 - t;
+        return s * s * s * a + 3 * s * s * t * b + 3 * s * t * t * c + t * t * t * d;
+    }
+
+    /**
+     * @return number of chords between equally spaced parameters needed to
+     *         stay within FLATNESS of this curve, at least 1
+     */
+    int pieces() {
+        double pieces;
+        if (arc) {
+            // a chord spanning angle a is r(1 - cos(a/2)) from the arc at most
+            double maxAngle = p[2] <= FLATNESS ? Math.PI : 2 * Math.acos(1 - FLATNESS / p[2]);
+            pieces = Math.ceil(Math.abs(p[4]) / maxAngle);
+        } else {
+            // Wang's formula for a cubic: n >= sqrt(3/4 * max second difference / flatness)
+            double d1 = Math.hypot(p[0] - 2 * p[2] + p[4], p[1] - 2 * p[3] + p[5]);
+            double d2 = Math.hypot(p[2] - 2 * p[4] + p[6], p[3] - 2 * p[5] + p[7]);
+            pieces = Math.ceil(Math.sqrt(0.75 * Math.max(d1, d2) / FLATNESS));
+        }
+        return (int) Math.max(1, Math.min(MAX_PIECES, pieces));
+    }
+
+    /**
+     * Append this curve to a store as pieces() chords, the last of which ends
+     * at a given point rather than at x(1), y(1).
+     *
+     * @param store store to append to
+     * @param color pen color of the chords
+     * @param endX x-coordinate where the last chord ends, the turtle's position after the curve
+     * @param endY y-coordinate where the last chord ends
+     * @return index in store of the first chord
+     */
+    int addChords(SegmentStore store, PenColor color, double endX, double endY) {
+        int pieces = pieces();
+        int first = store.size();
+        double x = x(0);
+        double y = y(0);
+        for (int k = 1; k <= pieces; k++) {
+            double nextX = k == pieces ? endX : x((double) k / pieces);
+            double nextY = k == pieces ? endY : y((double) k / pieces);
+            store.add(x, y, nextX, nextY, color);
+            x = nextX;
+            y = nextY;
+        }
+        return first;
+    }
+
+    /**
+     * Find the parameter at a distance along this curve, measured along the
+     * chords it was stored as.
+     *
+     * @param store store holding the chords
+     * @param first index in store of the first chord
+     * @param count number of chords, pieces() when they were added
+     * @param fraction fraction of the chords' total length, 0 <= fraction <= 1
+     * @return parameter of the point that distance along the curve
+     */
+    static double parameterAt(SegmentStore store, int first, int count, double fraction) {
+        double total = 0;
+        for (int i = first; i < first + count; i++) {
+            total += store.length(i);
+        }
+        double remaining = fraction * total;
+        for (int k = 0; k < count; k++) {
+            double length = store.length(first + k);
+            if (remaining < length) {
+                return (k + remaining / length) / count;
+            }
+            remaining -= length;
+        }
+        return 1;
+    }
+
+    /**
+     * Make the part of this curve between two parameters into a shape on a
+     * canvas where y increases downward.
+     *
+     * @param from parameter where the part starts, 0 <= from <= to
+     * @param to parameter where the part ends, to <= 1
+     * @param originX canvas x-coordinate of the point (centerX, centerY)
+     * @param originY canvas y-coordinate of the point (centerX, centerY)
+     * @param centerX turtle x-coordinate shown at originX
+     * @param centerY turtle y-coordinate shown at originY
+     * @param zoom canvas pixels per turtle step
+     * @return the part of the curve, as an Arc2D or CubicCurve2D in canvas coordinates
+     */
+    Shape shape(double from, double to, double originX, double originY,
+                double centerX, double centerY, double zoom) {
+        if (arc) {
+            double radius = p[2] * zoom;
+            double x = originX + (p[0] - centerX) * zoom;
+            double y = originY - (p[1] - centerY) * zoom;
+            // flipping y turns counterclockwise in turtle coordinates into
+            // counterclockwise on screen, which is how Arc2D measures angles
+            return new Arc2D.Double(x - radius, y - radius, 2 * radius, 2 * radius,
+                    Math.toDegrees(p[3] + p[4] * from), Math.toDegrees(p[4] * (to - from)), Arc2D.OPEN);
+        }
+        double[] q = p.clone();
+        if (to < 1) {
+            split(q, to, true);
+        }
+        if (from > 0) {
+            split(q, from / to, false);
+        }
+        for (int i = 0; i < 8; i += 2) {
+            q[i] = originX + (q[i] - centerX) * zoom;
+            q[i + 1] = originY - (q[i + 1] - centerY) * zoom;
+        }
+        return new CubicCurve2D.Double(q[0], q[1], q[2], q[3], q[4], q[5], q[6], q[7]);
+    }
+
+    /*
+     * Replace the control points of a cubic Bezier curve, in place, with those
+     * of its part before or after parameter t, by de Casteljau's algorithm.
+     */
+    private static void split(double[] q, double t, boolean keepStart) {
+        for (int axis = 0; axis < 2; axis++) {
+            double a = q[axis];
+            double b = q[axis + 2];
+            double c = q[axis + 4];
+            double d = q[axis + 6];
+            double ab = a + (b - a) * t;
+            double bc = b + (c - b) * t;
+            double cd = c + (d - c) * t;
+            double abc = ab + (bc - ab) * t;
+            double bcd = bc + (cd - bc) * t;
+            double abcd = abc + (bcd - abc) * t;
+            if (keepStart) {
+                q[axis + 2] = ab;
+                q[axis + 4] = abc;
+                q[axis + 6] = abcd;
+            } else {
+                q[axis] = abcd;
+                q[axis + 2] = bcd;
+                q[axis + 4] = cd;
+            }
+        }
+    }
+}
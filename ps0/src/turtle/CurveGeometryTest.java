@@ -0,0 +1,65 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+import static org.junit.Assert.*;
+
+import java.awt.geom.Arc2D;
+import java.awt.geom.CubicCurve2D;
+
+import org.junit.Test;
+
+public class CurveGeometryTest {
+
+    /**
+     * Tests that chords stay within the flatness of an arc.
+     */
+    @Test
+    public void arcChordsTest() {
+        CurveGeometry arc = CurveGeometry.arc(0, 0, 1000, 0, Math.PI);
+        SegmentStore store = new SegmentStore();
+        arc.addChords(store, PenColor.BLACK, arc.x(1), arc.y(1));
+        assertEquals(arc.pieces(), store.size());
+        for (int i = 0; i < store.size(); i++) {
+            double midX = (store.startX(i) + store.endX(i)) / 2;
+            double midY = (store.startY(i) + store.endY(i)) / 2;
+            assertTrue(1000 - Math.hypot(midX, midY) <= CurveGeometry.FLATNESS);
+        }
+        assertEquals(-1000, store.endX(store.size() - 1), 1e-9);
+    }
+
+    /**
+     * Tests that parameters found by length are equally spaced along an arc.
+     */
+    @Test
+    public void parameterAtTest() {
+        CurveGeometry arc = CurveGeometry.arc(0, 0, 10, 0, Math.PI / 2);
+        SegmentStore store = new SegmentStore();
+        arc.addChords(store, PenColor.BLACK, arc.x(1), arc.y(1));
+        assertEquals(0.25, CurveGeometry.parameterAt(store, 0, store.size(), 0.25), 1e-9);
+        assertEquals(1.0, CurveGeometry.parameterAt(store, 0, store.size(), 1.0), 1e-9);
+    }
+
+    /**
+     * Tests that part of a curve becomes a shape with the right ends on the canvas.
+     */
+    @Test
+    public void shapeTest() {
+        CurveGeometry curve = CurveGeometry.cubic(0, 0, 10, 30, 40, 30, 50, 0);
+        CubicCurve2D part = (CubicCurve2D) curve.shape(0.25, 0.75, 100, 100, 0, 0, 2);
+        assertEquals(100 + 2 * curve.x(0.25), part.getX1(), 1e-9);
+        assertEquals(100 - 2 * curve.y(0.25), part.getY1(), 1e-9);
+        assertEquals(100 + 2 * curve.x(0.75), part.getX2(), 1e-9);
+        assertEquals(100 - 2 * curve.y(0.75), part.getY2(), 1e-9);
+
+        // a counterclockwise quarter circle from the right stays counterclockwise on screen
+        Arc2D arc = (Arc2D) CurveGeometry.arc(0, 0, 10, 0, Math.PI / 2).shape(0, 1, 50, 50, 0, 0, 1);
+        assertEquals(0, arc.getAngleStart(), 1e-9);
+        assertEquals(90, arc.getAngleExtent(), 1e-9);
+        assertEquals(60, arc.getStartPoint().getX(), 1e-9);
+        assertEquals(50, arc.getStartPoint().getY(), 1e-9);
+        assertEquals(50, arc.getEndPoint().getX(), 1e-9);
+        assertEquals(40, arc.getEndPoint().getY(), 1e-9);
+    }
+}
@@ -3,71 +3,383 @@
  */
 package turtle;
 
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import javax.swing.SwingUtilities;
 
-import turtle.Action.ActionType;
-
 /**
  * Turtle for drawing in a window on the screen.
+ * 
+ * In fixed-point mode the turtle's position is rounded to a grid of
+ * 1/FIXED_POINT_SCALE steps after every move, so retracing a path reproduces
+ * its coordinates exactly instead of drifting, and a move that retraces the
+ * segment most recently drawn between the same points, in the same color,
+ * adds no new segment. A turtle in fixed-point mode cannot be recorded.
  */
 public class DrawableTurtle implements Turtle {
 
+    /** Grid points per step of the positions of a turtle in fixed-point mode. */
+    public static final int FIXED_POINT_SCALE = 1024;
+
     private static final int CANVAS_WIDTH = 512;
     private static final int CANVAS_HEIGHT = 512;
 
-    private static final int CIRCLE_DEGREES = 360;
-    private static final int DEGREES_TO_VERTICAL = 90;
-
     private final List<Action> actionList;
-    private final List<LineSegment> lines;
+    private final SegmentStore lines;
+    private final TurtleCursor cursor;
 
-    private Point currentPosition;
-    private double currentHeading;
-    private PenColor currentColor;
+    // index of the segments drawn so far in fixed-point mode, null otherwise
+    private final SegmentSet distinctLines;
+    private int deduplicated;
+
+    private RecordingWriter recorder;
 
     /**
      * Create a new turtle for drawing on screen.
      */
     public DrawableTurtle() {
-        this.currentPosition = new Point(0, 0);
-        this.currentHeading = 0.0;
-        this.currentColor = PenColor.BLACK;
-        this.lines = new ArrayList<>();
+        this(false);
+    }
+
+    /**
+     * Create a new turtle for drawing on screen, optionally in fixed-point mode.
+     * 
+     * @param fixedPoint true to round positions to the fixed-point grid and
+     *                   skip segments that retrace ones already drawn
+     */
+    public DrawableTurtle(boolean fixedPoint) {
+        this(new TurtleCursor(), fixedPoint);
+    }
+
+    /**
+     * Create a new turtle that starts in a given state rather than at the origin.
+     * 
+     * @param start position, heading and pen color to start with; owned by this turtle afterwards
+     */
+    DrawableTurtle(TurtleCursor start) {
+        this(start, false);
+    }
+
+    private DrawableTurtle(TurtleCursor start, boolean fixedPoint) {
+        this.cursor = start;
+        this.lines = new SegmentStore();
         this.actionList = new ArrayList<>();
+        this.distinctLines = fixedPoint ? new SegmentSet(lines) : null;
     }
 
     public void forward(int steps) {
-        double newX = currentPosition.x() + Math.cos(Math.toRadians(DEGREES_TO_VERTICAL - currentHeading)) * (double)steps;
-        double newY = currentPosition.y() + Math.sin(Math.toRadians(DEGREES_TO_VERTICAL - currentHeading)) * (double)steps;
-
-        LineSegment lineSeg = new LineSegment(currentPosition.x(), currentPosition.y(), newX, newY, currentColor);
-        this.lines.add(lineSeg);
-        this.currentPosition = new Point(newX, newY);
+        double startX = cursor.x();
+        double startY = cursor.y();
+        cursor.forward(steps);
 
-        this.actionList.add(new Action(ActionType.FORWARD, "forward " + steps + " steps", lineSeg));
+        if (distinctLines != null) {
+            cursor.snap(FIXED_POINT_SCALE);
+            int segmentIndex = distinctLines.addIfAbsent(startX, startY, cursor.x(), cursor.y(), cursor.color());
+            if (segmentIndex < 0) {
+                deduplicated++;
+                this.actionList.add(Action.forward(steps));
+            } else {
+                this.actionList.add(Action.forward(steps, lines, segmentIndex));
+            }
+        } else {
+            int segmentIndex = this.lines.add(startX, startY, cursor.x(), cursor.y(), cursor.color());
+            this.actionList.add(Action.forward(steps, lines, segmentIndex));
+        }
+        if (recorder != null) {
+            recorder.forward(steps);
+        }
     }
 
     public void turn(double degrees) {
-        degrees = (degrees % CIRCLE_DEGREES + CIRCLE_DEGREES) % CIRCLE_DEGREES;
-        this.currentHeading = (this.currentHeading + degrees) % CIRCLE_DEGREES;
-        this.actionList.add(new Action(ActionType.TURN, "turn " + degrees + " degrees", null));
+        degrees = cursor.turn(degrees);
+        this.actionList.add(Action.turn(degrees));
+        if (recorder != null) {
+            recorder.turn(degrees);
+        }
     }
 
     public void color(PenColor color) {
-        this.currentColor = color;
-        this.actionList.add(new Action(ActionType.COLOR, "change to " + color.toString().toLowerCase(), null));
+        cursor.color(color);
+        this.actionList.add(Action.color(color));
+        if (recorder != null) {
+            recorder.color(color);
+        }
+    }
+
+    /**
+     * @return a copy of this turtle's current position, heading and pen color
+     */
+    TurtleCursor state() {
+        return cursor.copy();
+    }
+
+    /**
+     * @return true iff this turtle is in fixed-point mode
+     */
+    public boolean isFixedPoint() {
+        return distinctLines != null;
+    }
+
+    /**
+     * @return number of moves that added no segment because the segment most
+     *         recently drawn between the same points had the same color; always
+     *         0 unless in fixed-point mode
+     */
+    public int deduplicatedSegments() {
+        return deduplicated;
+    }
+
+    /**
+     * Draw a sequence of connected moves, recorded as a single polyline action.
+     * In fixed-point mode the moves are recorded one by one, so that each can
+     * be deduplicated.
+     * 
+     * @see Turtle#polyline(int[], double[])
+     */
+    @Override
+    public void polyline(int[] steps, double[] turns) {
+        if (steps.length != turns.length) {
+            throw new IllegalArgumentException("steps and turns must have the same length");
+        }
+        if (distinctLines != null) {
+            Turtle.super.polyline(steps, turns);
+            return;
+        }
+        if (steps.length == 0) {
+            return;
+        }
+        int[] moves = steps.clone();
+        double[] turnsApplied = new double[turns.length];
+        int firstSegment = lines.size();
+        for (int i = 0; i < moves.length; i++) {
+            double startX = cursor.x();
+            double startY = cursor.y();
+            cursor.forward(moves[i]);
+            lines.add(startX, startY, cursor.x(), cursor.y(), cursor.color());
+            turnsApplied[i] = cursor.turn(turns[i]);
+        }
+        addPolyline(Action.polyline(lines, firstSegment, moves.length, moves, turnsApplied));
+    }
+
+    /**
+     * Draw a regular polygon, recorded as a single polyline action.
+     * In fixed-point mode the sides are recorded one by one, so that each can
+     * be deduplicated.
+     * 
+     * @see Turtle#regularPolygon(int, int)
+     */
+    @Override
+    public void regularPolygon(int sides, int sideLength) {
+        if (sides < 3) {
+            throw new IllegalArgumentException("a polygon needs at least 3 sides");
+        }
+        if (distinctLines != null) {
+            Turtle.super.regularPolygon(sides, sideLength);
+            return;
+        }
+        double exteriorAngle = TurtleCursor.normalize(360.0 / sides);
+        int firstSegment = lines.size();
+        for (int i = 0; i < sides; i++) {
+            double startX = cursor.x();
+            double startY = cursor.y();
+            cursor.forward(sideLength);
+            lines.add(startX, startY, cursor.x(), cursor.y(), cursor.color());
+            cursor.turn(exteriorAngle);
+        }
+        addPolyline(Action.polyline(lines, firstSegment, sides, new int[] { sideLength },
+                new double[] { exteriorAngle }));
+    }
+
+    /**
+     * Move along an arc, recorded as a single arc action and drawn as one.
+     * Its line segments are chords within CurveGeometry.FLATNESS of the arc.
+     * In fixed-point mode the turtle's position is rounded at the end of the
+     * arc, and the chords are neither deduplicated nor used to deduplicate moves.
+     * 
+     * @see Turtle#arc(int, double)
+     */
+    @Override
+    public void arc(int radius, double degrees) {
+        if (radius <= 0) {
+            throw new IllegalArgumentException("radius must be positive");
+        }
+        if (degrees == 0) {
+            return;
+        }
+        CurveGeometry arc = cursor.arcGeometry(radius, degrees);
+        cursor.arc(radius, degrees);
+        if (distinctLines != null) {
+            cursor.snap(FIXED_POINT_SCALE);
+        }
+        int firstSegment = arc.addChords(lines, cursor.color(), cursor.x(), cursor.y());
+        actionList.add(Action.arc(lines, firstSegment, lines.size() - firstSegment, radius, degrees, arc));
+        if (recorder != null) {
+            recorder.arc(radius, degrees);
+        }
+    }
+
+    /**
+     * Move along a cubic Bezier curve, recorded as a single curve action and
+     * drawn as one. Its line segments are chords within CurveGeometry.FLATNESS
+     * of the curve. In fixed-point mode the turtle's position is rounded at the
+     * end of the curve, and the chords are neither deduplicated nor used to
+     * deduplicate moves.
+     * 
+     * @see Turtle#cubicCurve(int, int, int, int, int, int)
+     */
+    @Override
+    public void cubicCurve(int control1Ahead, int control1Right,
+                           int control2Ahead, int control2Right, int endAhead, int endRight) {
+        CurveGeometry curve = cursor.cubicGeometry(control1Ahead, control1Right,
+                control2Ahead, control2Right, endAhead, endRight);
+        cursor.cubicCurve(control1Ahead, control1Right, control2Ahead, control2Right, endAhead, endRight);
+        if (distinctLines != null) {
+            cursor.snap(FIXED_POINT_SCALE);
+        }
+        int firstSegment = curve.addChords(lines, cursor.color(), cursor.x(), cursor.y());
+        int[] points = { control1Ahead, control1Right, control2Ahead, control2Right, endAhead, endRight };
+        actionList.add(Action.curve(lines, firstSegment, lines.size() - firstSegment, points, curve));
+        if (recorder != null) {
+            recorder.cubicCurve(control1Ahead, control1Right, control2Ahead, control2Right, endAhead, endRight);
+        }
+    }
+
+    private void addPolyline(Action polyline) {
+        actionList.add(polyline);
+        if (recorder != null) {
+            writePolyline(recorder, polyline);
+        }
+    }
+
+    private static void writePolyline(RecordingWriter writer, Action polyline) {
+        for (int move = 0; move < polyline.segmentCount(); move++) {
+            writer.forward(polyline.stepsAt(move));
+            writer.turn(polyline.turnAt(move));
+        }
+    }
+
+    /**
+     * Record this turtle's actions: those performed so far are written at once,
+     * and each later action is written as it is performed.
+     * 
+     * A recording replays moves without rounding them to the fixed-point grid
+     * or deduplicating them, so a turtle in fixed-point mode cannot be recorded.
+     * 
+     * @param writer recording to write to; the caller remains responsible for closing it
+     * @throws IllegalStateException if this turtle is in fixed-point mode
+     */
+    public void record(RecordingWriter writer) {
+        if (distinctLines != null) {
+            throw new IllegalStateException("a turtle in fixed-point mode cannot be recorded");
+        }
+        for (Action action : actionList) {
+            switch (action.type()) {
+            case FORWARD:
+                writer.forward((int) action.amount());
+                break;
+            case TURN:
+                writer.turn(action.amount());
+                break;
+            case COLOR:
+                writer.color(action.color());
+                break;
+            case POLYLINE:
+                writePolyline(writer, action);
+                break;
+            case ARC:
+                writer.arc(action.radius(), action.amount());
+                break;
+            case CURVE:
+                writer.cubicCurve(action.curvePoint(0), action.curvePoint(1), action.curvePoint(2),
+                        action.curvePoint(3), action.curvePoint(4), action.curvePoint(5));
+                break;
+            default:
+                throw new AssertionError("unknown action type " + action.type());
+            }
+        }
+        this.recorder = writer;
+    }
+
+    /**
+     * @return the actions performed by this turtle so far, in order; unmodifiable
+     */
+    public List<Action> actions() {
+        return Collections.unmodifiableList(actionList);
+    }
+
+    /**
+     * @return the line segments drawn by this turtle so far, in drawing order;
+     *         the store grows as the turtle draws and must not be modified
+     */
+    public SegmentStore segments() {
+        return lines;
     }
 
     /**
      * Draw the image created by this turtle in a window on the screen.
+     * 
+     * Redundant actions are removed with ActionOptimizer before animating.
      */
     public void draw() {
+        showInWindow(actionList);
+    }
+
+    /**
+     * Animate a list of actions in a window on the screen, after removing
+     * redundant actions with ActionOptimizer.
+     * 
+     * @param actions actions to animate; must not be modified afterwards
+     */
+    static void showInWindow(List<Action> actions) {
+        List<Action> optimized = ActionOptimizer.optimize(actions).actions();
         SwingUtilities.invokeLater(() -> {
-            (new TurtleGUI(actionList, CANVAS_WIDTH, CANVAS_HEIGHT)).setVisible(true);
+            (new TurtleGUI(optimized, CANVAS_WIDTH, CANVAS_HEIGHT)).setVisible(true);
         });
-        return;
+    }
+
+    /**
+     * Render the image created by this turtle without a screen.
+     * 
+     * The drawing is scaled so that the on-screen canvas fills the image, and
+     * if it does not fit on that canvas, it is moved and zoomed out until it does.
+     * 
+     * @param width image width in pixels, must be positive
+     * @param height image height in pixels, must be positive
+     * @return the finished drawing
+     */
+    public BufferedImage render(int width, int height) {
+        return render(lines, width, height);
+    }
+
+    /**
+     * Render segments without a screen, scaled so that the on-screen canvas
+     * fills the image and moved and zoomed out as needed to fit them all.
+     * 
+     * @param segments segments to draw
+     * @param width image width in pixels, must be positive
+     * @param height image height in pixels, must be positive
+     * @return the rendered image
+     */
+    static BufferedImage render(SegmentStore segments, int width, int height) {
+        double scale = Math.min(width / (double) CANVAS_WIDTH, height / (double) CANVAS_HEIGHT);
+        Viewport view = Viewport.fit(segments, width, height, scale);
+        return TurtleRenderer.render(segments, width, height, view.scale, view.centerX, view.centerY);
+    }
+
+    /**
+     * Render the image created by this turtle to a PNG file without a screen.
+     * 
+     * @param file destination file, overwritten if it exists
+     * @param width image width in pixels, must be positive
+     * @param height image height in pixels, must be positive
+     * @throws IOException if the file cannot be written
+     */
+    public void writePng(File file, int width, int height) throws IOException {
+        TurtleRenderer.writePng(render(width, height), file);
     }
 }
@@ -0,0 +1,330 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+import static org.junit.Assert.*;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import turtle.Action.ActionType;
+
+public class DrawableTurtleTest {
+
+    /**
+     * Tests that an axis-aligned square closes exactly, without floating-point drift.
+     */
+    @Test
+    public void squareHasNoDriftTest() {
+        DrawableTurtle turtle = new DrawableTurtle();
+        for (int i = 0; i < 1000; i++) {
+            turtle.forward(37);
+            turtle.turn(90);
+        }
+        SegmentStore segments = turtle.segments();
+        assertEquals(1000, segments.size());
+        assertEquals(0.0, segments.endX(999), 0.0);
+        assertEquals(0.0, segments.endY(999), 0.0);
+        assertEquals(37.0, segments.endY(0), 0.0);
+        assertEquals(0.0, segments.endX(0), 0.0);
+    }
+
+    /**
+     * Tests headings on the 15-degree table and off it.
+     */
+    @Test
+    public void headingDirectionTest() {
+        DrawableTurtle turtle = new DrawableTurtle();
+        turtle.turn(30);
+        turtle.forward(10);
+        turtle.turn(-120);
+        turtle.forward(10);
+        turtle.turn(100);
+        turtle.forward(10);
+
+        SegmentStore segments = turtle.segments();
+        assertEquals(5.0, segments.endX(0), 0.0);
+        assertEquals(10 * Math.sqrt(3) / 2, segments.endY(0), 1e-12);
+        // heading 270 is due west
+        assertEquals(-5.0, segments.endX(1), 1e-12);
+        assertEquals(segments.endY(0), segments.endY(1), 0.0);
+        // heading 10 is just east of north
+        assertEquals(10 * Math.sin(Math.toRadians(10)), segments.endX(2) - segments.startX(2), 1e-9);
+        assertEquals(10 * Math.cos(Math.toRadians(10)), segments.endY(2) - segments.startY(2), 1e-9);
+    }
+
+    /**
+     * Tests the descriptions of recorded actions.
+     */
+    @Test
+    public void actionDescriptionsTest() {
+        DrawableTurtle turtle = new DrawableTurtle();
+        turtle.forward(12);
+        turtle.turn(-90);
+        turtle.color(PenColor.MAGENTA);
+
+        assertEquals("forward 12 steps", turtle.actions().get(0).toString());
+        assertEquals("turn 270.0 degrees", turtle.actions().get(1).toString());
+        assertEquals("change to magenta", turtle.actions().get(2).toString());
+        assertSame(turtle.actions().get(1).toString(), turtle.actions().get(1).toString());
+    }
+
+    /**
+     * Tests that a drawing that fits the canvas is rendered without moving it.
+     */
+    @Test
+    public void renderKeepsDrawingThatFitsTest() {
+        DrawableTurtle turtle = new DrawableTurtle();
+        turtle.forward(100);
+        BufferedImage image = turtle.render(512, 512);
+        // the origin is at pixel (255.5, 255.5) and the line goes up from it
+        assertTrue((image.getRGB(255, 200) & 0xffffff) != 0xffffff);
+        assertEquals(0xffffff, image.getRGB(255, 100) & 0xffffff);
+    }
+
+    /**
+     * Tests that a drawing far off the canvas is moved and shrunk into the image.
+     */
+    @Test
+    public void renderFitsLargeDrawingTest() {
+        DrawableTurtle turtle = new DrawableTurtle();
+        turtle.turn(90);
+        turtle.forward(5000);
+        turtle.turn(90);
+        turtle.forward(1000);
+        BufferedImage image = turtle.render(64, 64);
+        int drawn = 0;
+        for (int x = 0; x < 64; x++) {
+            for (int y = 0; y < 64; y++) {
+                if ((image.getRGB(x, y) & 0xffffff) != 0xffffff) {
+                    drawn++;
+                }
+            }
+        }
+        // both strokes are visible: roughly 48 pixels across and 10 down
+        assertTrue("drawn pixels: " + drawn, drawn > 50);
+    }
+
+    /**
+     * Tests that a regular polygon is one action with a segment per side, and
+     * ends where it started with the same heading.
+     */
+    @Test
+    public void regularPolygonTest() {
+        DrawableTurtle turtle = new DrawableTurtle();
+        turtle.regularPolygon(10000, 1);
+        assertEquals(1, turtle.actions().size());
+        assertEquals(ActionType.POLYLINE, turtle.actions().get(0).type());
+        assertEquals("regular polygon of 10000 sides", turtle.actions().get(0).toString());
+        assertEquals(10000, turtle.segments().size());
+        assertEquals(0.0, turtle.segments().endX(9999), 1e-6);
+        assertEquals(0.0, turtle.segments().endY(9999), 1e-6);
+
+        turtle.forward(10);
+        assertEquals(0.0, turtle.segments().endX(10000), 1e-6);
+        assertEquals(10.0, turtle.segments().endY(10000), 1e-6);
+    }
+
+    /**
+     * Tests that a polyline draws exactly the segments of the equivalent moves and turns.
+     */
+    @Test
+    public void polylineMatchesMovesTest() {
+        int[] steps = { 10, 20, 30, 40 };
+        double[] turns = { 90, -45, 33.3, 720 };
+        DrawableTurtle batched = new DrawableTurtle();
+        batched.polyline(steps, turns);
+        batched.forward(5);
+        DrawableTurtle separate = new DrawableTurtle();
+        for (int i = 0; i < steps.length; i++) {
+            separate.forward(steps[i]);
+            separate.turn(turns[i]);
+        }
+        separate.forward(5);
+
+        assertEquals(2, batched.actions().size());
+        assertEquals("polyline of 4 moves", batched.actions().get(0).toString());
+        assertEquals(separate.segments().size(), batched.segments().size());
+        for (int i = 0; i < separate.segments().size(); i++) {
+            assertEquals(separate.segments().endX(i), batched.segments().endX(i), 0.0);
+            assertEquals(separate.segments().endY(i), batched.segments().endY(i), 0.0);
+        }
+    }
+
+    /**
+     * Tests that a polyline needs a turn for every move.
+     */
+    @Test(expected=IllegalArgumentException.class)
+    public void polylineLengthMismatchTest() {
+        new DrawableTurtle().polyline(new int[] { 1, 2 }, new double[] { 90 });
+    }
+
+    /**
+     * Tests that retracing a path in fixed-point mode adds no new segments,
+     * unless it was drawn over in another color since.
+     */
+    @Test
+    public void fixedPointDeduplicationTest() {
+        DrawableTurtle turtle = new DrawableTurtle(true);
+        for (int i = 0; i < 100; i++) {
+            turtle.regularPolygon(7, 50);
+        }
+        assertEquals(7, turtle.segments().size());
+        assertEquals(99 * 7, turtle.deduplicatedSegments());
+        assertEquals(100 * 7 * 2, turtle.actions().size());
+
+        // back along the last side: same segment in the other direction
+        turtle.turn(180 - 360.0 / 7);
+        turtle.forward(50);
+        assertEquals(7, turtle.segments().size());
+
+        // the same side in another color is drawn
+        turtle.color(PenColor.RED);
+        turtle.turn(180);
+        turtle.forward(50);
+        assertEquals(8, turtle.segments().size());
+        assertEquals(99 * 7 + 1, turtle.deduplicatedSegments());
+
+        // red, blue over it, then red again: the last red must be drawn to end up on top
+        turtle = new DrawableTurtle(true);
+        turtle.color(PenColor.RED);
+        turtle.forward(30);
+        turtle.color(PenColor.BLUE);
+        turtle.turn(180);
+        turtle.forward(30);
+        turtle.color(PenColor.RED);
+        turtle.turn(180);
+        turtle.forward(30);
+        assertEquals(0, turtle.deduplicatedSegments());
+        assertEquals(3, turtle.segments().size());
+        assertEquals(PenColor.RED, turtle.segments().color(2));
+
+        // now red is on top, so retracing it in red adds nothing
+        turtle.turn(180);
+        turtle.forward(30);
+        assertEquals(1, turtle.deduplicatedSegments());
+        assertEquals(3, turtle.segments().size());
+    }
+
+    /**
+     * Tests that a turtle in fixed-point mode refuses to be recorded.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void fixedPointRecordTest() throws IOException {
+        try (RecordingWriter writer = new RecordingWriter(new ByteArrayOutputStream())) {
+            new DrawableTurtle(true).record(writer);
+        }
+    }
+
+    /**
+     * Tests that fixed-point positions are on the grid and that other turtles do not deduplicate.
+     */
+    @Test
+    public void fixedPointGridTest() {
+        DrawableTurtle turtle = new DrawableTurtle(true);
+        assertTrue(turtle.isFixedPoint());
+        turtle.turn(10);
+        turtle.forward(100);
+        double x = turtle.segments().endX(0) * DrawableTurtle.FIXED_POINT_SCALE;
+        assertEquals(Math.rint(x), x, 0.0);
+
+        DrawableTurtle plain = new DrawableTurtle();
+        assertFalse(plain.isFixedPoint());
+        plain.forward(10);
+        plain.turn(180);
+        plain.forward(10);
+        assertEquals(2, plain.segments().size());
+        assertEquals(0, plain.deduplicatedSegments());
+    }
+
+    /**
+     * Tests that an arc is a single action whose chords follow the circle.
+     */
+    @Test
+    public void arcTest() {
+        DrawableTurtle turtle = new DrawableTurtle();
+        turtle.arc(100, 90);
+        turtle.forward(10);
+        assertEquals(2, turtle.actions().size());
+        assertEquals(ActionType.ARC, turtle.actions().get(0).type());
+        assertEquals("arc of radius 100 turning 90.0 degrees", turtle.actions().get(0).toString());
+
+        SegmentStore segments = turtle.segments();
+        int chords = segments.size() - 1;
+        assertTrue(chords > 10);
+        for (int i = 0; i < chords; i++) {
+            // every chord point lies on the circle around (100, 0)
+            assertEquals(100, Math.hypot(segments.endX(i) - 100, segments.endY(i)), 1e-9);
+        }
+        // a clockwise quarter circle from facing up ends facing right
+        assertEquals(100, segments.startX(chords), 1e-9);
+        assertEquals(100, segments.startY(chords), 1e-9);
+        assertEquals(110, segments.endX(chords), 1e-9);
+        assertEquals(100, segments.endY(chords), 1e-9);
+    }
+
+    /**
+     * Tests that a curve ends at its end point, facing along its last control point.
+     */
+    @Test
+    public void cubicCurveTest() {
+        DrawableTurtle turtle = new DrawableTurtle();
+        turtle.turn(90);
+        turtle.cubicCurve(20, 0, 20, -20, 40, -20);
+        turtle.forward(10);
+        assertEquals(3, turtle.actions().size());
+        assertEquals(ActionType.CURVE, turtle.actions().get(1).type());
+        SegmentStore segments = turtle.segments();
+        int last = segments.size() - 1;
+        // facing right, 40 ahead and 20 to the left is up and to the right
+        assertEquals(40, segments.startX(last), 1e-9);
+        assertEquals(20, segments.startY(last), 1e-9);
+        assertEquals(50, segments.endX(last), 1e-9);
+        assertEquals(20, segments.endY(last), 1e-9);
+        // the curve passes through its midpoint, B(1/2) = (20, 10)
+        boolean nearMidpoint = false;
+        for (int i = 0; i < last; i++) {
+            nearMidpoint |= Math.hypot(segments.endX(i) - 20, segments.endY(i) - 10) < 2;
+        }
+        assertTrue(nearMidpoint);
+    }
+
+    /**
+     * Tests that the default arc, made of whole-step moves, ends near the true end.
+     */
+    @Test
+    public void defaultArcTest() {
+        DrawableTurtle drawn = new DrawableTurtle();
+        Turtle turtle = new Turtle() {
+            @Override
+            public void forward(int units) {
+                drawn.forward(units);
+            }
+
+            @Override
+            public void turn(double degrees) {
+                drawn.turn(degrees);
+            }
+
+            @Override
+            public void color(PenColor color) {
+                drawn.color(color);
+            }
+
+            @Override
+            public void draw() {
+            }
+        };
+        turtle.arc(100, 90);
+        turtle.cubicCurve(0, 50, 50, 50, 50, 0);
+        SegmentStore segments = drawn.segments();
+        assertTrue(segments.size() > 1);
+        // the arc ends at (100, 100) facing right, and the curve 50 steps ahead of that
+        assertEquals(150, segments.endX(segments.size() - 1), 5);
+        assertEquals(100, segments.endY(segments.size() - 1), 5);
+    }
+}
@@ -0,0 +1,466 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * A recursive drawing that can be built on many cores at once.
+ *
+ * The drawing is given as a rule that draws one level and calls
+ * Branch.branch() for each sub-branch, which continues from wherever the
+ * sub-branch ends, as a recursive turtle procedure would. draw() runs the
+ * rule on one thread with any turtle. build() runs large sub-branches as
+ * fork-join tasks instead, each recording into its own DrawableTurtle that
+ * starts from the state the sub-branch starts in, and joins their actions
+ * in program order.
+ *
+ * To start the rest of a level without waiting for a forked sub-branch,
+ * build() first runs the top-level sub-branches with a turtle that only
+ * tracks its position, heading and color, which is much cheaper than
+ * recording, noting where every sub-branch large enough to fork ends.
+ * Since that turtle moves exactly as DrawableTurtle does, every part starts
+ * in exactly the state it would have reached on one thread, and the built
+ * actions and segments are identical to those of draw() with a
+ * DrawableTurtle. Rules that do much work besides moving the turtle gain
+ * less, because that work is done twice.
+ */
+public class ForkJoinFractal {
+
+    /**
+     * One level of a recursive drawing.
+     */
+    @FunctionalInterface
+    public interface Rule {
+
+        /**
+         * Draw the fractal at a depth. A rule may be called many times, on
+         * several threads at once, so what it draws must depend only on depth.
+         *
+         * @param turtle turtle to draw with; sub-branches must be drawn with
+         *               turtle.branch() rather than by calling the rule directly
+         * @param depth depth to draw at
+         */
+        void draw(Branch turtle, int depth);
+    }
+
+    /**
+     * Turtle that a rule draws with. Its draw() method does nothing.
+     */
+    public interface Branch extends Turtle {
+
+        /**
+         * Draw a sub-branch with the rule, starting from the current state
+         * and continuing from where it ends.
+         *
+         * @param depth depth of the sub-branch
+         */
+        void branch(int depth);
+    }
+
+    /**
+     * Actions and segments built by build().
+     */
+    public static class Result {
+
+        private final List<DrawableTurtle> parts;
+        private final List<Action> actions;
+        private SegmentStore segments;
+
+        private Result(List<DrawableTurtle> parts) {
+            this.parts = parts;
+            int size = 0;
+            for (DrawableTurtle part : parts) {
+                size += part.actions().size();
+            }
+            List<Action> joined = new ArrayList<>(size);
+            for (DrawableTurtle part : parts) {
+                joined.addAll(part.actions());
+            }
+            this.actions = Collections.unmodifiableList(joined);
+        }
+
+        /**
+         * @return number of separately recorded parts the drawing was joined from
+         */
+        int partCount() {
+            return parts.size();
+        }
+
+        /**
+         * @return the actions of the drawing, in program order; unmodifiable
+         */
+        public List<Action> actions() {
+            return actions;
+        }
+
+        /**
+         * @return the segments of the drawing, in program order; must not be modified
+         */
+        public synchronized SegmentStore segments() {
+            if (segments == null) {
+                segments = new SegmentStore();
+                for (DrawableTurtle part : parts) {
+                    part.segments().forEach(segments::add);
+                }
+            }
+            return segments;
+        }
+
+        /**
+         * Render the drawing without a screen, scaled and fitted as by
+         * DrawableTurtle.render().
+         *
+         * @param width image width in pixels, must be positive
+         * @param height image height in pixels, must be positive
+         * @return the finished drawing
+         */
+        public BufferedImage render(int width, int height) {
+            return DrawableTurtle.render(segments(), width, height);
+        }
+
+        /**
+         * Draw the drawing in a window on the screen.
+         */
+        public void draw() {
+            DrawableTurtle.showInWindow(actions);
+        }
+    }
+
+    // sub-branches with fewer actions than this are recorded by the task that reaches them
+    private static final long MIN_FORK_ACTIONS = 1 << 12;
+
+    private final Rule rule;
+    private final ForkJoinPool pool;
+    // number of actions in a sub-branch of each depth, learned by position-only runs
+    private final Map<Integer, Long> actionsAtDepth = new ConcurrentHashMap<>();
+
+    /**
+     * Create a fractal built on the common fork-join pool.
+     *
+     * @param rule rule drawing each level
+     */
+    public ForkJoinFractal(Rule rule) {
+        this(rule, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Create a fractal built on a given fork-join pool.
+     *
+     * @param rule rule drawing each level
+     * @param pool pool to run the tasks of build() on
+     */
+    public ForkJoinFractal(Rule rule, ForkJoinPool pool) {
+        this.rule = rule;
+        this.pool = pool;
+    }
+
+    /**
+     * Draw the fractal on the calling thread.
+     *
+     * @param turtle turtle to draw with
+     * @param depth depth of the whole drawing
+     */
+    public void draw(Turtle turtle, int depth) {
+        rule.draw(new SequentialBranch(turtle), depth);
+    }
+
+    /**
+     * Draw the fractal in parallel, starting at the origin, facing up, with a black pen.
+     *
+     * @param depth depth of the whole drawing
+     * @return the drawing; its actions and segments are identical to those
+     *         a new DrawableTurtle has after draw(turtle, depth)
+     */
+    public Result build(int depth) {
+        return new Result(pool.invoke(new BranchTask(depth, new TurtleCursor(), null)));
+    }
+
+    /*
+     * Branch that draws sub-branches by calling the rule again, on the same turtle.
+     */
+    private class SequentialBranch implements Branch {
+
+        private final Turtle turtle;
+
+        SequentialBranch(Turtle turtle) {
+            this.turtle = turtle;
+        }
+
+        @Override
+        public void branch(int depth) {
+            rule.draw(this, depth);
+        }
+
+        @Override
+        public void forward(int units) {
+            turtle.forward(units);
+        }
+
+        @Override
+        public void turn(double degrees) {
+            turtle.turn(degrees);
+        }
+
+        @Override
+        public void color(PenColor color) {
+            turtle.color(color);
+        }
+
+        @Override
+        public void polyline(int[] steps, double[] turns) {
+            turtle.polyline(steps, turns);
+        }
+
+        @Override
+        public void regularPolygon(int sides, int sideLength) {
+            turtle.regularPolygon(sides, sideLength);
+        }
+
+        @Override
+        public void arc(int radius, double degrees) {
+            turtle.arc(radius, degrees);
+        }
+
+        @Override
+        public void cubicCurve(int control1Ahead, int control1Right,
+                               int control2Ahead, int control2Right, int endAhead, int endRight) {
+            turtle.cubicCurve(control1Ahead, control1Right, control2Ahead, control2Right, endAhead, endRight);
+        }
+
+        @Override
+        public void draw() {
+        }
+    }
+
+    /*
+     * Task recording a sub-branch from a known starting state. Its result is
+     * the turtles holding the sub-branch's actions, in program order.
+     */
+    private class BranchTask extends RecursiveTask<List<DrawableTurtle>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int depth;
+        private final TurtleCursor start;
+        private final List<BranchStates> forked;
+
+        BranchTask(int depth, TurtleCursor start, List<BranchStates> forked) {
+            this.depth = depth;
+            this.start = start;
+            this.forked = forked;
+        }
+
+        @Override
+        protected List<DrawableTurtle> compute() {
+            ParallelBranch branch = new ParallelBranch(start, forked);
+            rule.draw(branch, depth);
+            return branch.finish();
+        }
+    }
+
+    /*
+     * Branch that records into a DrawableTurtle, forking tasks for large
+     * sub-branches and starting a new DrawableTurtle after each.
+     */
+    private class ParallelBranch implements Branch {
+
+        // recorded parts and forked tasks, in program order
+        private final List<Object> pieces = new ArrayList<>();
+        private DrawableTurtle current;
+        // states of the large sub-branches of this branch, if already known
+        private final List<BranchStates> forked;
+        private int nextForked;
+
+        ParallelBranch(TurtleCursor start, List<BranchStates> forked) {
+            this.current = new DrawableTurtle(start);
+            this.forked = forked;
+        }
+
+        @Override
+        public void branch(int depth) {
+            Long known = actionsAtDepth.get(depth);
+            if (known != null && known < MIN_FORK_ACTIONS) {
+                rule.draw(this, depth);
+                return;
+            }
+            TurtleCursor start = current.state();
+            BranchStates states;
+            if (forked != null) {
+                states = forked.get(nextForked++);
+            } else {
+                StateBranch state = new StateBranch(start.copy());
+                states = state.run(depth);
+            }
+            if (states == null) {
+                rule.draw(this, depth);
+                return;
+            }
+            BranchTask task = new BranchTask(depth, start, states.forked);
+            task.fork();
+            pieces.add(current);
+            pieces.add(task);
+            current = new DrawableTurtle(states.end.copy());
+        }
+
+        List<DrawableTurtle> finish() {
+            pieces.add(current);
+            List<DrawableTurtle> parts = new ArrayList<>();
+            for (Object piece : pieces) {
+                if (piece instanceof BranchTask) {
+                    parts.addAll(((BranchTask) piece).join());
+                } else if (!((DrawableTurtle) piece).actions().isEmpty()) {
+                    parts.add((DrawableTurtle) piece);
+                }
+            }
+            return parts;
+        }
+
+        @Override
+        public void forward(int units) {
+            current.forward(units);
+        }
+
+        @Override
+        public void turn(double degrees) {
+            current.turn(degrees);
+        }
+
+        @Override
+        public void color(PenColor color) {
+            current.color(color);
+        }
+
+        @Override
+        public void polyline(int[] steps, double[] turns) {
+            current.polyline(steps, turns);
+        }
+
+        @Override
+        public void regularPolygon(int sides, int sideLength) {
+            current.regularPolygon(sides, sideLength);
+        }
+
+        @Override
+        public void arc(int radius, double degrees) {
+            current.arc(radius, degrees);
+        }
+
+        @Override
+        public void cubicCurve(int control1Ahead, int control1Right,
+                               int control2Ahead, int control2Right, int endAhead, int endRight) {
+            current.cubicCurve(control1Ahead, control1Right, control2Ahead, control2Right, endAhead, endRight);
+        }
+
+        @Override
+        public void draw() {
+        }
+    }
+
+    /*
+     * Where a large sub-branch ends, and the same for its own large sub-branches in order.
+     */
+    private static class BranchStates {
+
+        private final TurtleCursor end;
+        private final List<BranchStates> forked;
+
+        BranchStates(TurtleCursor end, List<BranchStates> forked) {
+            this.end = end;
+            this.forked = forked;
+        }
+    }
+
+    /*
+     * Branch that only moves a cursor, exactly as DrawableTurtle moves its
+     * own, and counts actions, recording the count for each depth it draws
+     * and the states of the sub-branches large enough to fork.
+     */
+    private class StateBranch implements Branch {
+
+        private final TurtleCursor cursor;
+        private long actions;
+        // large sub-branches found so far of the branch being run, null if none
+        private List<BranchStates> found;
+
+        StateBranch(TurtleCursor cursor) {
+            this.cursor = cursor;
+        }
+
+        /*
+         * Run a sub-branch, returning its states if it is large enough to fork, null otherwise.
+         */
+        BranchStates run(int depth) {
+            branch(depth);
+            return found == null ? null : found.get(0);
+        }
+
+        @Override
+        public void branch(int depth) {
+            List<BranchStates> outer = found;
+            found = null;
+            long before = actions;
+            rule.draw(this, depth);
+            long count = actions - before;
+            actionsAtDepth.putIfAbsent(depth, count);
+            List<BranchStates> inner = found;
+            found = outer;
+            if (count >= MIN_FORK_ACTIONS) {
+                if (found == null) {
+                    found = new ArrayList<>();
+                }
+                found.add(new BranchStates(cursor.copy(),
+                        inner == null ? Collections.<BranchStates>emptyList() : inner));
+            }
+        }
+
+        @Override
+        public void forward(int units) {
+            cursor.forward(units);
+            actions++;
+        }
+
+        @Override
+        public void turn(double degrees) {
+            cursor.turn(degrees);
+            actions++;
+        }
+
+        @Override
+        public void color(PenColor color) {
+            cursor.color(color);
+            actions++;
+        }
+
+        @Override
+        public void arc(int radius, double degrees) {
+            if (radius <= 0) {
+                throw new IllegalArgumentException("radius must be positive");
+            }
+            if (degrees == 0) {
+                return; // as DrawableTurtle, which records nothing
+            }
+            cursor.arc(radius, degrees);
+            actions++;
+        }
+
+        @Override
+        public void cubicCurve(int control1Ahead, int control1Right,
+                               int control2Ahead, int control2Right, int endAhead, int endRight) {
+            cursor.cubicCurve(control1Ahead, control1Right, control2Ahead, control2Right, endAhead, endRight);
+            actions++;
+        }
+
+        @Override
+        public void draw() {
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+public class ForkJoinFractalTest {
+
+    /*
+     * Koch curve with a turn that is not exact in binary, so that any
+     * difference in the order of floating-point operations would show.
+     */
+    private static final ForkJoinFractal.Rule KOCH = (turtle, depth) -> {
+        if (depth == 0) {
+            turtle.forward(3);
+            return;
+        }
+        turtle.branch(depth - 1);
+        turtle.turn(-61.3);
+        turtle.branch(depth - 1);
+        turtle.turn(122.6);
+        turtle.branch(depth - 1);
+        turtle.turn(-61.3);
+        turtle.branch(depth - 1);
+    };
+
+    /*
+     * Binary tree that retraces each branch, with colors and arcs at the leaves.
+     */
+    private static final ForkJoinFractal.Rule TREE = (turtle, depth) -> {
+        if (depth == 0) {
+            turtle.arc(2, 200);
+            turtle.arc(2, 160);
+            return;
+        }
+        turtle.color(PenColor.values()[depth % PenColor.values().length]);
+        turtle.forward(depth * 2 + 1);
+        turtle.turn(-23.5);
+        turtle.branch(depth - 1);
+        turtle.turn(47);
+        turtle.branch(depth - 1);
+        turtle.turn(156.5);
+        turtle.forward(depth * 2 + 1);
+        turtle.turn(180);
+    };
+
+    private static void assertSameDrawing(DrawableTurtle expected, ForkJoinFractal.Result actual) {
+        List<Action> want = expected.actions();
+        List<Action> got = actual.actions();
+        assertEquals(want.size(), got.size());
+        for (int i = 0; i < want.size(); i++) {
+            assertEquals(want.get(i).type(), got.get(i).type());
+            assertEquals(want.get(i).toString(), got.get(i).toString());
+        }
+        SegmentStore wantSegments = expected.segments();
+        SegmentStore gotSegments = actual.segments();
+        assertEquals(wantSegments.size(), gotSegments.size());
+        for (int i = 0; i < wantSegments.size(); i++) {
+            // bit for bit, not merely close
+            assertEquals(wantSegments.startX(i), gotSegments.startX(i), 0.0);
+            assertEquals(wantSegments.startY(i), gotSegments.startY(i), 0.0);
+            assertEquals(wantSegments.endX(i), gotSegments.endX(i), 0.0);
+            assertEquals(wantSegments.endY(i), gotSegments.endY(i), 0.0);
+            assertEquals(wantSegments.color(i), gotSegments.color(i));
+        }
+    }
+
+    /**
+     * Tests that a chained fractal built in parallel matches the sequential drawing exactly.
+     */
+    @Test
+    public void kochMatchesSequentialTest() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ForkJoinFractal fractal = new ForkJoinFractal(KOCH, pool);
+            DrawableTurtle sequential = new DrawableTurtle();
+            fractal.draw(sequential, 8);
+            ForkJoinFractal.Result built = fractal.build(8);
+            assertTrue(built.partCount() > 1);
+            assertSameDrawing(sequential, built);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Tests that a branching fractal with colors and arcs matches the sequential drawing exactly.
+     */
+    @Test
+    public void treeMatchesSequentialTest() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ForkJoinFractal fractal = new ForkJoinFractal(TREE, pool);
+            DrawableTurtle sequential = new DrawableTurtle();
+            fractal.draw(sequential, 13);
+            ForkJoinFractal.Result built = fractal.build(13);
+            assertTrue(built.partCount() > 1);
+            assertSameDrawing(sequential, built);
+            // building again reuses what was learned about branch sizes
+            assertSameDrawing(sequential, fractal.build(13));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Tests that a small fractal is recorded as a single part.
+     */
+    @Test
+    public void smallFractalTest() {
+        ForkJoinFractal fractal = new ForkJoinFractal(KOCH);
+        ForkJoinFractal.Result built = fractal.build(2);
+        assertEquals(1, built.partCount());
+        assertEquals(16, built.segments().size());
+    }
+}
@@ -0,0 +1,635 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.function.LongSupplier;
+
+/**
+ * Draws the animation of a list of turtle actions onto a canvas image.
+ *
+ * The painter keeps the animation's progress: the first action not yet
+ * completely drawn, and the fraction of its length drawn so far. Each frame
+ * extends the drawing to a position on the AnimationSchedule, drawing the
+ * whole actions before it, then the part of the next action's segments up to
+ * it; a polyline is extended with a single Path2D, and an arc or curve with
+ * a single Arc2D or CubicCurve2D shape. Polylines are drawn as Path2D
+ * shapes in unrounded canvas coordinates wherever they are drawn, so a
+ * polyline looks the same animated, after a seek and after a redraw. The
+ * painter can also seek to
+ * any action, restoring the nearest checkpointed snapshot, and redraw what
+ * has been drawn so far for a new view, drawing only the segments that cross
+ * it, or simplified polylines when those are much denser than the pixels
+ * they cover.
+ *
+ * The canvas area drawn on is tracked, so that callers repaint or encode
+ * only that part of it. TurtleGUI plays frames on the screen in real time,
+ * and AnimationExporter takes them at a fixed rate without one. A painter
+ * must be used by one thread at a time.
+ */
+class FramePainter {
+
+    /** Number of actions drawn between checks of a frame's drawing time. */
+    static final int ACTIONS_PER_TIME_CHECK = 256;
+
+    private static final Color CANVAS_BG_COLOR = Color.WHITE;
+
+    // redraws use simplified polylines when there are more visible segments
+    // than one per this many canvas pixels
+    private static final int PIXELS_PER_SEGMENT_FOR_DETAIL = 16;
+
+    private final AnimationSchedule schedule;
+    private final CanvasCheckpoints checkpoints; // null if snapshots are not kept
+    private SegmentGrid segmentIndex; // created when first needed
+    private LevelOfDetail levelOfDetail; // created when first needed
+    private final Path2D.Double path = new Path2D.Double();
+
+    private final BufferedImage canvas;
+    private final Graphics2D graphics;
+    private final int canvasWidth;
+    private final int canvasHeight;
+    private final int originX;
+    private final int originY;
+    private final Line2D.Double line = new Line2D.Double();
+
+    // view transform: turtle point (centerX, centerY) is at the canvas origin,
+    // and one turtle step is zoom pixels
+    private double zoom;
+    private double centerX;
+    private double centerY;
+
+    // animation progress: first action not yet completely drawn, and the
+    // fraction of that action's length already drawn
+    private int nextAction;
+    private double drawnFraction;
+    private PolylineWalk walk; // position in the next action, if it is a polyline
+
+    // canvas area drawn on since it was last taken, empty if dirtyMinX > dirtyMaxX
+    private double dirtyMinX = Double.POSITIVE_INFINITY;
+    private double dirtyMinY = Double.POSITIVE_INFINITY;
+    private double dirtyMaxX = Double.NEGATIVE_INFINITY;
+    private double dirtyMaxY = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Create a painter with a blank canvas, at the start of the animation.
+     *
+     * @param schedule schedule of the actions to draw
+     * @param canvasWidth canvas width in pixels, must be positive
+     * @param canvasHeight canvas height in pixels, must be positive
+     * @param view view to draw the actions in, with the canvas origin at
+     *             ((canvasWidth - 1) / 2, (canvasHeight - 1) / 2) in integer pixels
+     * @param checkpoints snapshots to save as the animation passes their
+     *                    checkpoints and to restore when seeking, or null for none
+     */
+    FramePainter(AnimationSchedule schedule, int canvasWidth, int canvasHeight, Viewport view,
+                 CanvasCheckpoints checkpoints) {
+        this.schedule = schedule;
+        this.checkpoints = checkpoints;
+        this.canvasWidth = canvasWidth;
+        this.canvasHeight = canvasHeight;
+        this.originX = (canvasWidth - 1) / 2;
+        this.originY = (canvasHeight - 1) / 2;
+        this.zoom = view.scale;
+        this.centerX = view.centerX;
+        this.centerY = view.centerY;
+        this.canvas = new BufferedImage(canvasWidth, canvasHeight, BufferedImage.TYPE_INT_RGB);
+        this.graphics = canvas.createGraphics();
+        graphics.setBackground(CANVAS_BG_COLOR);
+        graphics.clearRect(0, 0, canvasWidth, canvasHeight);
+        graphics.setStroke(new BasicStroke(1.0f));
+    }
+
+    /**
+     * @return the canvas drawn on; it changes as the painter draws
+     */
+    BufferedImage canvas() {
+        return canvas;
+    }
+
+    /**
+     * @return the schedule of the actions drawn
+     */
+    AnimationSchedule schedule() {
+        return schedule;
+    }
+
+    /**
+     * @return index of the first action not yet completely drawn, or the
+     *         number of actions if all are
+     */
+    int nextAction() {
+        return nextAction;
+    }
+
+    /**
+     * @return true iff every action has been drawn completely
+     */
+    boolean isFinished() {
+        return nextAction >= schedule.size();
+    }
+
+    /**
+     * @return timeline position the drawing has reached
+     */
+    double drawnPosition() {
+        if (isFinished()) {
+            return schedule.totalLength();
+        }
+        double start = schedule.startOf(nextAction);
+        return start + (schedule.endOf(nextAction) - start) * drawnFraction;
+    }
+
+    /**
+     * @return pixels per turtle step of the current view
+     */
+    double zoom() {
+        return zoom;
+    }
+
+    /**
+     * @return x-coordinate of the turtle point at the canvas origin in the current view
+     */
+    double centerX() {
+        return centerX;
+    }
+
+    /**
+     * @return y-coordinate of the turtle point at the canvas origin in the current view
+     */
+    double centerY() {
+        return centerY;
+    }
+
+    /**
+     * Change the view. What has been drawn is not redrawn until redraw() is called.
+     *
+     * @param zoom pixels per turtle step, must be positive
+     * @param centerX x-coordinate of the turtle point at the canvas origin
+     * @param centerY y-coordinate of the turtle point at the canvas origin
+     */
+    void setView(double zoom, double centerX, double centerY) {
+        this.zoom = zoom;
+        this.centerX = centerX;
+        this.centerY = centerY;
+    }
+
+    /**
+     * Extend the drawing to a timeline position: draw the actions that end
+     * by it, saving snapshots at the checkpoints passed, then the part of
+     * the next action up to it.
+     *
+     * @param target timeline position to draw to
+     * @return number of segments, polyline parts and curve parts drawn on
+     */
+    int drawFrame(double target) {
+        return drawFrame(target, false, null, 0);
+    }
+
+    /**
+     * Extend the drawing towards a timeline position, as drawFrame(target),
+     * but stop after the action being drawn when a clock passes a deadline,
+     * checked every ACTIONS_PER_TIME_CHECK actions. The next frame continues
+     * where this one left off.
+     *
+     * @param target timeline position to draw to
+     * @param nanoClock clock in nanoseconds, such as System::nanoTime
+     * @param deadlineNanos time on nanoClock by which to stop drawing
+     * @return number of segments, polyline parts and curve parts drawn on
+     */
+    int drawFrame(double target, LongSupplier nanoClock, long deadlineNanos) {
+        return drawFrame(target, true, nanoClock, deadlineNanos);
+    }
+
+    private int drawFrame(double target, boolean timed, LongSupplier nanoClock, long deadlineNanos) {
+        int segmentsDrawn = 0;
+        int drawn = 0;
+        while (nextAction < schedule.size() && schedule.endOf(nextAction) <= target) {
+            segmentsDrawn += drawTo(1.0);
+            nextAction++;
+            drawnFraction = 0;
+            if (checkpoints != null && checkpoints.wants(nextAction)) {
+                checkpoints.save(nextAction, canvas);
+            }
+            if (timed && ++drawn % ACTIONS_PER_TIME_CHECK == 0 && nanoClock.getAsLong() - deadlineNanos > 0) {
+                return segmentsDrawn;
+            }
+        }
+        if (nextAction < schedule.size()) {
+            double start = schedule.startOf(nextAction);
+            double length = schedule.endOf(nextAction) - start;
+            segmentsDrawn += drawTo(length > 0 ? Math.max(0, (target - start) / length) : 0);
+        }
+        return segmentsDrawn;
+    }
+
+    /**
+     * Show the drawing as it is just before an action. Seeking forward
+     * continues from the canvas as it is, unless a snapshot is kept closer to
+     * the action; otherwise the nearest canvas snapshot at or before the
+     * action is restored. Then the actions in between are drawn, skipping
+     * segments outside the visible area, and snapshots are taken at the
+     * checkpoints passed. Marks the whole canvas as drawn on.
+     *
+     * @param action index of the action, 0 <= action <= number of actions
+     */
+    void seek(int action) {
+        int from;
+        if (action >= nextAction && (checkpoints == null || checkpoints.latest(action) <= nextAction)) {
+            from = nextAction;
+            if (from < action && drawnFraction > 0) {
+                drawTo(1.0); // finish the action the animation is partway through
+                from++;
+                if (checkpoints != null && checkpoints.wants(from)) {
+                    checkpoints.save(from, canvas);
+                }
+            }
+        } else {
+            from = checkpoints == null ? 0 : checkpoints.restore(action, canvas);
+            if (from == 0) {
+                graphics.clearRect(0, 0, canvasWidth, canvasHeight);
+            }
+        }
+        double[] view = visibleArea();
+        for (int i = from; i < action; i++) {
+            drawVisibleAction(i, view[0], view[1], view[2], view[3]);
+            if (checkpoints != null && checkpoints.wants(i + 1)) {
+                checkpoints.save(i + 1, canvas);
+            }
+        }
+        nextAction = action;
+        drawnFraction = 0;
+        walk = null;
+        markAllDirty();
+    }
+
+    /*
+     * Draw a whole action as the animation draws it, but only the parts near
+     * the given area: an arc or curve if any of its chords is near it, and
+     * the runs of segments of a polyline that are near it.
+     */
+    private void drawVisibleAction(int action, double minX, double minY, double maxX, double maxY) {
+        int first = schedule.segmentsBefore(action);
+        int end = schedule.segmentsBefore(action + 1);
+        if (schedule.actions().get(action).curve() != null) {
+            double flatness = CurveGeometry.FLATNESS; // the curve may stray this far from its chords
+            for (int segment = first; segment < end; segment++) {
+                if (near(segment, minX - flatness, minY - flatness, maxX + flatness, maxY + flatness)) {
+                    drawCurvePart(action, 0, 1);
+                    return;
+                }
+            }
+        } else if (end - first == 1) {
+            if (near(first, minX, minY, maxX, maxY)) {
+                drawSegment(first, 0, 1);
+            }
+        } else {
+            int segment = first;
+            while (segment < end) {
+                if (!near(segment, minX, minY, maxX, maxY)) {
+                    segment++;
+                    continue;
+                }
+                int runEnd = segment + 1;
+                while (runEnd < end && near(runEnd, minX, minY, maxX, maxY)) {
+                    runEnd++;
+                }
+                drawPolylineRun(Math.max(first, segment - 1), Math.min(end, runEnd + 1));
+                segment = runEnd;
+            }
+        }
+    }
+
+    /*
+     * Whether a segment's bounding box overlaps a rectangle.
+     */
+    private boolean near(int segment, double minX, double minY, double maxX, double maxY) {
+        SegmentStore segments = schedule.segments();
+        double x0 = segments.startX(segment);
+        double y0 = segments.startY(segment);
+        double x1 = segments.endX(segment);
+        double y1 = segments.endY(segment);
+        return Math.min(x0, x1) <= maxX && Math.max(x0, x1) >= minX
+                && Math.min(y0, y1) <= maxY && Math.max(y0, y1) >= minY;
+    }
+
+    /*
+     * The turtle-coordinate rectangle shown on the canvas in the current view,
+     * with a pixel's margin for the stroke: { minX, minY, maxX, maxY }.
+     */
+    private double[] visibleArea() {
+        double margin = 1 / zoom;
+        return new double[] {
+            centerX - originX / zoom - margin,
+            centerY - (canvasHeight - originY) / zoom - margin,
+            centerX + (canvasWidth - originX) / zoom + margin,
+            centerY + originY / zoom + margin,
+        };
+    }
+
+    /**
+     * Redraw the canvas for the current view, drawing only the segments drawn
+     * so far that cross the visible area. Discards the checkpointed snapshots,
+     * which show the old view, and marks the whole canvas as drawn on.
+     */
+    void redraw() {
+        if (checkpoints != null) {
+            checkpoints.clear();
+        }
+        if (segmentIndex == null) {
+            segmentIndex = new SegmentGrid(schedule.segments());
+        }
+        graphics.clearRect(0, 0, canvasWidth, canvasHeight);
+        double[] view = visibleArea();
+        double minX = view[0];
+        double minY = view[1];
+        double maxX = view[2];
+        double maxY = view[3];
+        int drawnSegments = schedule.segmentsBefore(nextAction);
+        int detailLimit = canvasWidth * canvasHeight / PIXELS_PER_SEGMENT_FOR_DETAIL;
+        if (segmentIndex.count(minX, minY, maxX, maxY, drawnSegments, detailLimit + 1) > detailLimit) {
+            drawSimplified(minX, minY, maxX, maxY, drawnSegments);
+        } else {
+            drawVisible(segmentIndex.query(minX, minY, maxX, maxY, drawnSegments));
+        }
+        if (nextAction < schedule.size() && drawnFraction > 0) {
+            if (schedule.actions().get(nextAction).curve() != null) {
+                drawCurvePart(nextAction, 0, drawnFraction);
+            } else if (schedule.segmentCount(nextAction) == 1) {
+                drawSegment(drawnSegments, 0, drawnFraction);
+            } else if (schedule.hasSegment(nextAction)) {
+                double length = schedule.endOf(nextAction) - schedule.startOf(nextAction);
+                drawPolylinePart(new PolylineWalk(drawnSegments),
+                        drawnSegments + schedule.segmentCount(nextAction), 0, drawnFraction * length);
+            }
+        }
+        markAllDirty();
+    }
+
+    /*
+     * Draw whole segments, given in increasing order, each as it is drawn by
+     * its action: consecutive segments of a polyline as one path, extended by
+     * a segment at each end so the joins there are drawn as they are in the
+     * whole polyline, and other segments one by one.
+     */
+    private void drawVisible(int[] visible) {
+        int k = 0;
+        while (k < visible.length) {
+            int segment = visible[k++];
+            int action = schedule.actionOfSegment(segment);
+            if (schedule.segmentCount(action) == 1 || schedule.actions().get(action).curve() != null) {
+                drawSegment(segment, 0, 1);
+                continue;
+            }
+            int first = schedule.segmentsBefore(action);
+            int end = schedule.segmentsBefore(action + 1);
+            int runEnd = segment + 1;
+            while (k < visible.length && visible[k] == runEnd && runEnd < end) {
+                runEnd++;
+                k++;
+            }
+            drawPolylineRun(Math.max(first, segment - 1), Math.min(end, runEnd + 1));
+        }
+    }
+
+    /**
+     * Take the canvas area drawn on since it was last taken, padded by a
+     * pixel for the stroke and clipped to the canvas.
+     *
+     * @return the area, or null if nothing visible was drawn
+     */
+    Rectangle takeDirtyArea() {
+        if (dirtyMinX > dirtyMaxX) {
+            return null;
+        }
+        int x = Math.max(0, (int) Math.floor(dirtyMinX) - 1);
+        int y = Math.max(0, (int) Math.floor(dirtyMinY) - 1);
+        int maxX = Math.min(canvasWidth, (int) Math.ceil(dirtyMaxX) + 2);
+        int maxY = Math.min(canvasHeight, (int) Math.ceil(dirtyMaxY) + 2);
+        dirtyMinX = dirtyMinY = Double.POSITIVE_INFINITY;
+        dirtyMaxX = dirtyMaxY = Double.NEGATIVE_INFINITY;
+        if (x >= maxX || y >= maxY) {
+            return null;
+        }
+        return new Rectangle(x, y, maxX - x, maxY - y);
+    }
+
+    private void markAllDirty() {
+        extendDirtyArea(0, 0, canvasWidth, canvasHeight);
+    }
+
+    private void extendDirtyArea(double minX, double minY, double maxX, double maxY) {
+        dirtyMinX = Math.min(dirtyMinX, minX);
+        dirtyMinY = Math.min(dirtyMinY, minY);
+        dirtyMaxX = Math.max(dirtyMaxX, maxX);
+        dirtyMaxY = Math.max(dirtyMaxY, maxY);
+    }
+
+    private double toCanvasX(double x) {
+        return originX + (x - centerX) * zoom;
+    }
+
+    private double toCanvasY(double y) {
+        return originY - (y - centerY) * zoom;
+    }
+
+    /*
+     * Extend the drawing of the next action to the given fraction of its
+     * length. A polyline is extended with a single Path2D, and an arc
+     * or curve with a single shape. Returns the number of segments, polyline
+     * parts and curve parts drawn on.
+     */
+    private int drawTo(double fraction) {
+        if (fraction <= drawnFraction) {
+            return 0;
+        }
+        if (!schedule.hasSegment(nextAction)) {
+            drawnFraction = fraction; // a turn, which only takes time
+            return 0;
+        }
+        int first = schedule.segmentsBefore(nextAction);
+        int count = schedule.segmentCount(nextAction);
+        int segmentsDrawn;
+        if (schedule.actions().get(nextAction).curve() != null) {
+            drawCurvePart(nextAction, drawnFraction, fraction);
+            segmentsDrawn = 1;
+        } else if (count == 1) {
+            drawSegment(first, drawnFraction, fraction);
+            segmentsDrawn = 1;
+        } else {
+            if (drawnFraction == 0 || walk == null) {
+                walk = new PolylineWalk(first);
+            }
+            double length = schedule.endOf(nextAction) - schedule.startOf(nextAction);
+            segmentsDrawn = drawPolylinePart(walk, first + count, drawnFraction * length,
+                    fraction >= 1 ? Double.POSITIVE_INFINITY : fraction * length);
+        }
+        drawnFraction = fraction;
+        return segmentsDrawn;
+    }
+
+    /*
+     * Draw part of a segment from the schedule, between two fractions of its length.
+     */
+    private void drawSegment(int segment, double fromFraction, double toFraction) {
+        SegmentStore segments = schedule.segments();
+        double initX = toCanvasX(segments.startX(segment));
+        double initY = toCanvasY(segments.startY(segment));
+        double finalX = toCanvasX(segments.endX(segment));
+        double finalY = toCanvasY(segments.endY(segment));
+        graphics.setPaint(PenColors.of(segments.color(segment)));
+        line.setLine(initX + (finalX - initX) * fromFraction,
+                initY + (finalY - initY) * fromFraction,
+                initX + (finalX - initX) * toFraction,
+                initY + (finalY - initY) * toFraction);
+        graphics.draw(line);
+        extendDirtyArea(Math.min(line.x1, line.x2), Math.min(line.y1, line.y2),
+                Math.max(line.x1, line.x2), Math.max(line.y1, line.y2));
+    }
+
+    /*
+     * Draw part of an arc or curve action from the schedule, between two
+     * fractions of its length, as an Arc2D or CubicCurve2D shape.
+     */
+    private void drawCurvePart(int action, double fromFraction, double toFraction) {
+        CurveGeometry curve = schedule.actions().get(action).curve();
+        int first = schedule.segmentsBefore(action);
+        int count = schedule.segmentCount(action);
+        double from = fromFraction <= 0 ? 0 : CurveGeometry.parameterAt(schedule.segments(), first, count, fromFraction);
+        double to = toFraction >= 1 ? 1 : CurveGeometry.parameterAt(schedule.segments(), first, count, toFraction);
+        Shape part = curve.shape(from, to, originX, originY, centerX, centerY, zoom);
+        graphics.setPaint(PenColors.of(schedule.segments().color(first)));
+        graphics.draw(part);
+        Rectangle2D bounds = part.getBounds2D();
+        extendDirtyArea(bounds.getMinX(), bounds.getMinY(), bounds.getMaxX(), bounds.getMaxY());
+    }
+
+    /*
+     * Position along a polyline: the index of a segment in the schedule's
+     * store, and the distance along the polyline where that segment starts.
+     */
+    private static class PolylineWalk {
+
+        private int segment;
+        private double segmentStart;
+
+        PolylineWalk(int firstSegment) {
+            this.segment = firstSegment;
+        }
+    }
+
+    /*
+     * Draw the part of a polyline between two distances along it as a single
+     * Path2D, walking forward from walk, which must be at or before
+     * fromLength; the polyline ends before segment end. Leaves walk at the
+     * segment containing toLength, and returns the number of segments drawn on.
+     */
+    private int drawPolylinePart(PolylineWalk walk, int end, double fromLength, double toLength) {
+        SegmentStore segments = schedule.segments();
+        while (walk.segment < end - 1 && walk.segmentStart + segments.length(walk.segment) <= fromLength) {
+            walk.segmentStart += segments.length(walk.segment);
+            walk.segment++;
+        }
+        path.reset();
+        addPathPoint(walk.segment, fromLength - walk.segmentStart);
+        int touched = 0;
+        while (walk.segment < end) {
+            double length = segments.length(walk.segment);
+            touched++;
+            if (walk.segmentStart + length > toLength) {
+                addPathPoint(walk.segment, toLength - walk.segmentStart);
+                break;
+            }
+            addPathPoint(walk.segment, length);
+            if (walk.segment == end - 1) {
+                break; // stay on the last segment
+            }
+            walk.segmentStart += length;
+            walk.segment++;
+        }
+        drawPath(segments.color(walk.segment));
+        return touched;
+    }
+
+    /*
+     * Draw whole segments first..end-1 of a polyline as a single Path2D.
+     */
+    private void drawPolylineRun(int first, int end) {
+        SegmentStore segments = schedule.segments();
+        path.reset();
+        addPathPoint(first, 0);
+        for (int segment = first; segment < end; segment++) {
+            addPathPoint(segment, segments.length(segment));
+        }
+        drawPath(segments.color(first));
+    }
+
+    /*
+     * Append the canvas point at a distance along a segment to the path,
+     * extending the dirty area.
+     */
+    private void addPathPoint(int segment, double distance) {
+        SegmentStore segments = schedule.segments();
+        double length = segments.length(segment);
+        double t = length > 0 ? Math.max(0, Math.min(1, distance / length)) : 1;
+        double x;
+        double y;
+        if (t == 0) {
+            x = segments.startX(segment);
+            y = segments.startY(segment);
+        } else if (t == 1) {
+            x = segments.endX(segment);
+            y = segments.endY(segment);
+        } else {
+            x = segments.startX(segment) + (segments.endX(segment) - segments.startX(segment)) * t;
+            y = segments.startY(segment) + (segments.endY(segment) - segments.startY(segment)) * t;
+        }
+        addPathPoint(toCanvasX(x), toCanvasY(y));
+    }
+
+    private void addPathPoint(double x, double y) {
+        if (path.getCurrentPoint() == null) {
+            path.moveTo(x, y);
+        } else {
+            path.lineTo(x, y);
+        }
+        extendDirtyArea(x, y, x, y);
+    }
+
+    private void drawPath(PenColor color) {
+        graphics.setPaint(PenColors.of(color));
+        graphics.draw(path);
+    }
+
+    /*
+     * Draw the first drawnSegments segments as polylines simplified for the
+     * current zoom, visiting only the polylines in the visible area.
+     */
+    private void drawSimplified(double minX, double minY, double maxX, double maxY, int drawnSegments) {
+        if (levelOfDetail == null) {
+            levelOfDetail = new LevelOfDetail(schedule.segments());
+        }
+        LevelOfDetail.Level level = levelOfDetail.level(zoom);
+        int drawnPolylines = drawnSegments == 0 ? 0 : levelOfDetail.polylineOf(drawnSegments - 1) + 1;
+        for (int p : levelOfDetail.overlapping(minX, minY, maxX, maxY, drawnPolylines)) {
+            if (level.endSegment(p) > drawnSegments) {
+                // the animation is partway through this polyline, the last one drawn
+                drawPolylineRun(level.firstSegment(p), drawnSegments);
+                break;
+            }
+            path.reset();
+            for (int k = 0; k < level.pointCount(p); k++) {
+                addPathPoint(toCanvasX(level.x(p, k)), toCanvasY(level.y(p, k)));
+            }
+            drawPath(level.color(p));
+        }
+    }
+}
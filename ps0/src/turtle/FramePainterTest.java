@@ -0,0 +1,154 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+import static org.junit.Assert.*;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+
+import org.junit.Test;
+
+public class FramePainterTest {
+
+    private static final int SIZE = 100;
+
+    private static FramePainter painter() {
+        DrawableTurtle turtle = new DrawableTurtle();
+        turtle.forward(30);
+        turtle.turn(90);
+        turtle.color(PenColor.RED);
+        turtle.polyline(new int[] { 20, 20, 20 }, new double[] { 90, 90, 90 });
+        turtle.arc(10, 180);
+        AnimationSchedule schedule = new AnimationSchedule(turtle.actions());
+        return new FramePainter(schedule, SIZE, SIZE, Viewport.fit(schedule.segments(), SIZE, SIZE, 1.0), null);
+    }
+
+    private static BufferedImage copy(BufferedImage image) {
+        BufferedImage copy = new BufferedImage(image.getWidth(), image.getHeight(), image.getType());
+        copy.setData(image.getData());
+        return copy;
+    }
+
+    /**
+     * Tests that each frame reaches its position on the schedule, and that
+     * every pixel it changes is inside the area it reports.
+     */
+    @Test
+    public void dirtyAreaTest() {
+        FramePainter painter = painter();
+        AnimationSchedule schedule = painter.schedule();
+        assertNull(painter.takeDirtyArea());
+        int frames = 0;
+        while (!painter.isFinished()) {
+            double target = schedule.totalLength() * frames / 7;
+            BufferedImage before = copy(painter.canvas());
+            painter.drawFrame(target);
+            assertEquals(target, painter.drawnPosition(), 1e-9);
+            Rectangle area = painter.takeDirtyArea();
+            for (int y = 0; y < SIZE; y++) {
+                for (int x = 0; x < SIZE; x++) {
+                    if (before.getRGB(x, y) != painter.canvas().getRGB(x, y)) {
+                        assertTrue("frame " + frames + " pixel " + x + "," + y,
+                                area != null && area.contains(x, y));
+                    }
+                }
+            }
+            assertNull(painter.takeDirtyArea());
+            frames++;
+        }
+        assertEquals(8, frames);
+    }
+
+    /**
+     * Tests that seeking back to the start blanks the canvas and marks all of it
+     * to be repainted.
+     */
+    @Test
+    public void seekTest() {
+        FramePainter painter = painter();
+        painter.drawFrame(painter.schedule().totalLength());
+        assertTrue(painter.isFinished());
+        painter.takeDirtyArea();
+        painter.seek(0);
+        assertEquals(0, painter.nextAction());
+        assertEquals(0, painter.drawnPosition(), 0);
+        assertEquals(new Rectangle(0, 0, SIZE, SIZE), painter.takeDirtyArea());
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                assertEquals(0xffffffff, painter.canvas().getRGB(x, y));
+            }
+        }
+    }
+
+    /**
+     * Tests that polylines drawn by the animation, by a seek and by a redraw
+     * produce the same pixels.
+     */
+    @Test
+    public void polylinesDrawnAlikeTest() {
+        DrawableTurtle turtle = new DrawableTurtle();
+        turtle.turn(17);
+        turtle.regularPolygon(7, 25);
+        turtle.color(PenColor.BLUE);
+        turtle.polyline(new int[] { 13, 29, 7, 31, 11 }, new double[] { 33, 101, 47, 259, 71 });
+        AnimationSchedule schedule = new AnimationSchedule(turtle.actions());
+        Viewport view = Viewport.fit(schedule.segments(), SIZE, SIZE, 1.0);
+
+        FramePainter animated = new FramePainter(schedule, SIZE, SIZE, view, null);
+        animated.drawFrame(schedule.totalLength());
+        FramePainter sought = new FramePainter(schedule, SIZE, SIZE, view, null);
+        sought.seek(schedule.size());
+        BufferedImage drawn = copy(animated.canvas());
+        animated.redraw();
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                assertEquals("seek pixel " + x + "," + y, drawn.getRGB(x, y), sought.canvas().getRGB(x, y));
+                assertEquals("redraw pixel " + x + "," + y, drawn.getRGB(x, y), animated.canvas().getRGB(x, y));
+            }
+        }
+    }
+
+    /**
+     * Tests that seeking forward from a partly drawn canvas, and seeking in
+     * a zoomed view that leaves most segments out of sight, draw the same
+     * pixels as drawing every action.
+     */
+    @Test
+    public void seekForwardTest() {
+        DrawableTurtle turtle = new DrawableTurtle();
+        for (int i = 0; i < 60; i++) {
+            turtle.forward(3 + i % 7);
+            turtle.turn(37);
+            if (i % 10 == 0) {
+                turtle.polyline(new int[] { 5, 9, 4 }, new double[] { 70, 290, 45 });
+                turtle.arc(6, 120);
+            }
+        }
+        AnimationSchedule schedule = new AnimationSchedule(turtle.actions());
+        Viewport fit = Viewport.fit(schedule.segments(), SIZE, SIZE, 1.0);
+        int target = schedule.size() * 3 / 4;
+
+        for (double zoom : new double[] { fit.scale, fit.scale * 5 }) {
+            FramePainter expected = new FramePainter(schedule, SIZE, SIZE, fit, null);
+            expected.setView(zoom, fit.centerX + 3, fit.centerY - 2);
+            expected.drawFrame(schedule.startOf(target));
+            while (expected.nextAction() < target) {
+                expected.drawFrame(schedule.endOf(expected.nextAction()));
+            }
+
+            FramePainter painter = new FramePainter(schedule, SIZE, SIZE, fit, null);
+            painter.setView(zoom, fit.centerX + 3, fit.centerY - 2);
+            painter.drawFrame((schedule.startOf(target / 3) + schedule.endOf(target / 3)) / 2);
+            painter.seek(target);
+            assertEquals(target, painter.nextAction());
+            for (int y = 0; y < SIZE; y++) {
+                for (int x = 0; x < SIZE; x++) {
+                    assertEquals("zoom " + zoom + " pixel " + x + "," + y,
+                            expected.canvas().getRGB(x, y), painter.canvas().getRGB(x, y));
+                }
+            }
+        }
+    }
+}
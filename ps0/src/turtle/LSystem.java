@@ -0,0 +1,135 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An L-system that draws with a turtle.
+ *
+ * An L-system rewrites an axiom by replacing each symbol with its production
+ * rule, repeated to some depth, and then interprets the resulting string as
+ * turtle commands:
+ *   F or G   move forward one step length
+ *   +        turn counterclockwise by the angle
+ *   -        turn clockwise by the angle
+ *   0 to 9   change to the pen color with that ordinal
+ *   other    no action (useful as placeholders such as X and Y)
+ *
+ * The string is never built: symbols are expanded depth-first as they are
+ * drawn, so memory use grows with the depth, not with the number of actions.
+ */
+public class LSystem {
+
+    private final String axiom;
+    private final Map<Character, String> rules;
+    private final double angle;
+
+    /**
+     * Create an L-system.
+     *
+     * @param axiom initial string
+     * @param rules production rule for each symbol that is rewritten; symbols
+     *              without a rule are left unchanged
+     * @param angle turn angle in degrees used by + and -
+     */
+    public LSystem(String axiom, Map<Character, String> rules, double angle) {
+        this.axiom = axiom;
+        this.rules = new HashMap<>(rules);
+        this.angle = angle;
+        for (String symbols : this.rules.values()) {
+            checkSymbols(symbols);
+        }
+        checkSymbols(axiom);
+    }
+
+    private static void checkSymbols(String symbols) {
+        if (symbols.indexOf('[') >= 0 || symbols.indexOf(']') >= 0) {
+            throw new IllegalArgumentException("branching with [ and ] needs a turtle that can jump: " + symbols);
+        }
+    }
+
+    /**
+     * @return the Hilbert curve, which fills a square of side (2^depth - 1) step lengths
+     */
+    public static LSystem hilbertCurve() {
+        Map<Character, String> rules = new HashMap<>();
+        rules.put('A', "+BF-AFA-FB+");
+        rules.put('B', "-AF+BFB+FA-");
+        return new LSystem("A", rules, 90);
+    }
+
+    /**
+     * @return the Heighway dragon curve, with 2^depth moves
+     */
+    public static LSystem dragonCurve() {
+        Map<Character, String> rules = new HashMap<>();
+        rules.put('X', "X+YF+");
+        rules.put('Y', "-FX-Y");
+        return new LSystem("FX", rules, 90);
+    }
+
+    /**
+     * @return the Koch snowflake, with 3 * 4^depth moves
+     */
+    public static LSystem kochSnowflake() {
+        Map<Character, String> rules = new HashMap<>();
+        rules.put('F', "F+F--F+F");
+        return new LSystem("F--F--F", rules, 60);
+    }
+
+    /**
+     * Expand this L-system and draw it.
+     *
+     * @param turtle turtle to draw with
+     * @param depth number of times to apply the production rules, must be nonnegative
+     * @param stepLength length of each move
+     */
+    public void draw(Turtle turtle, int depth, int stepLength) {
+        if (depth < 0) {
+            throw new IllegalArgumentException("depth must be nonnegative");
+        }
+        // strings[level] is being read at positions[level]; level 0 is the axiom
+        String[] strings = new String[depth + 1];
+        int[] positions = new int[depth + 1];
+        strings[0] = axiom;
+        int level = 0;
+        while (level >= 0) {
+            if (positions[level] == strings[level].length()) {
+                level--;
+                continue;
+            }
+            char symbol = strings[level].charAt(positions[level]++);
+            String production = level < depth ? rules.get(symbol) : null;
+            if (production != null) {
+                level++;
+                strings[level] = production;
+                positions[level] = 0;
+            } else {
+                interpret(turtle, symbol, stepLength);
+            }
+        }
+    }
+
+    private void interpret(Turtle turtle, char symbol, int stepLength) {
+        switch (symbol) {
+        case 'F':
+        case 'G':
+            turtle.forward(stepLength);
+            break;
+        case '+':
+            turtle.turn(-angle);
+            break;
+        case '-':
+            turtle.turn(angle);
+            break;
+        default:
+            if (symbol >= '0' && symbol <= '9' && symbol - '0' < PenColor.values().length) {
+                turtle.color(PenColor.values()[symbol - '0']);
+            }
+            break;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class LSystemTest {
+
+    /**
+     * Tests the number of moves in the built-in curves.
+     */
+    @Test
+    public void moveCountsTest() {
+        DrawableTurtle koch = new DrawableTurtle();
+        LSystem.kochSnowflake().draw(koch, 3, 1);
+        assertEquals(3 * 64, koch.segments().size());
+
+        DrawableTurtle dragon = new DrawableTurtle();
+        LSystem.dragonCurve().draw(dragon, 10, 1);
+        assertEquals(1024, dragon.segments().size());
+
+        DrawableTurtle hilbert = new DrawableTurtle();
+        LSystem.hilbertCurve().draw(hilbert, 4, 1);
+        assertEquals(255, hilbert.segments().size());
+    }
+
+    /**
+     * Tests that a Koch snowflake closes and that depth 0 draws the axiom.
+     */
+    @Test
+    public void snowflakeClosesTest() {
+        DrawableTurtle turtle = new DrawableTurtle();
+        LSystem.kochSnowflake().draw(turtle, 0, 9);
+        SegmentStore segments = turtle.segments();
+        assertEquals(3, segments.size());
+        assertEquals(0.0, segments.endX(2), 1e-9);
+        assertEquals(0.0, segments.endY(2), 1e-9);
+    }
+
+    /**
+     * Tests turn direction and color symbols.
+     */
+    @Test
+    public void symbolsTest() {
+        Map<Character, String> rules = new HashMap<>();
+        rules.put('X', "2F+F");
+        DrawableTurtle turtle = new DrawableTurtle();
+        new LSystem("X", rules, 90).draw(turtle, 1, 5);
+
+        SegmentStore segments = turtle.segments();
+        assertEquals(PenColor.RED, segments.color(0));
+        assertEquals(-5.0, segments.endX(1), 1e-9);
+        assertEquals(5.0, segments.endY(1), 1e-9);
+    }
+
+    /**
+     * Tests that branching is rejected.
+     */
+    @Test(expected=IllegalArgumentException.class)
+    public void branchingRejectedTest() {
+        Map<Character, String> rules = new HashMap<>();
+        rules.put('F', "F[+F]F");
+        new LSystem("F", rules, 25);
+    }
+}
@@ -0,0 +1,454 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Simplified polylines for drawing a segment store at small scales.
+ *
+ * Consecutive segments of one color that join end to start are grouped into
+ * polylines. For each zoom level the polylines are simplified so that they
+ * stay within half a pixel of the original: points closer than that to the
+ * previous kept point are dropped, then the rest are reduced with the
+ * Douglas-Peucker algorithm. Each polyline is simplified for a level only
+ * when it is first drawn at that level, so zooming in on part of a large
+ * drawing only simplifies the polylines in view, and the most recently used
+ * levels are cached. The polylines' bounding boxes are kept in a uniform
+ * grid, so finding the polylines in view only looks at those near it.
+ */
+class LevelOfDetail {
+
+    /** Largest distance in pixels between a simplified polyline and the original. */
+    static final double TOLERANCE_PIXELS = 0.5;
+
+    private static final int CACHED_LEVELS = 8;
+
+    // average number of polylines per grid cell the grid is sized for
+    private static final int POLYLINES_PER_CELL = 4;
+    private static final int MAX_CELLS_PER_SIDE = 1024;
+    // polylines whose bounding box covers more cells than this are not
+    // listed in the cells, but checked by every query
+    private static final int MAX_CELLS_PER_POLYLINE = 16;
+
+    private final SegmentStore segments;
+    private final int segmentCount;
+    // polyline p is made of segments runStart[p] .. runStart[p+1]-1
+    private final int[] runStart;
+    private final int runCount;
+    // bounds[4p .. 4p+3] are minX, minY, maxX, maxY of polyline p, which
+    // also bound it at every level, since simplifying only drops points
+    private final double[] bounds;
+
+    // grid over the bounding boxes: polylines in cell c are
+    // cellEntries[cellStart[c] .. cellStart[c+1]-1], in increasing order
+    private final double gridMinX;
+    private final double gridMinY;
+    private final double cellWidth;
+    private final double cellHeight;
+    private final int cellsPerSide;
+    private final int[] cellStart;
+    private final int[] cellEntries;
+    // polylines too large to list in the cells, in increasing order
+    private final int[] widePolylines;
+
+    private final Map<Integer, Level> levels = new LinkedHashMap<Integer, Level>(CACHED_LEVELS, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Level> eldest) {
+            return size() > CACHED_LEVELS;
+        }
+    };
+
+    /**
+     * Group the segments currently in a store into polylines.
+     *
+     * @param segments segments to simplify; segments added later are ignored
+     */
+    LevelOfDetail(SegmentStore segments) {
+        this.segments = segments;
+        this.segmentCount = segments.size();
+        int[] starts = new int[16];
+        int count = 0;
+        for (int i = 0; i < segmentCount; i++) {
+            if (i == 0 || segments.color(i) != segments.color(i - 1)
+                    || segments.startX(i) != segments.endX(i - 1) || segments.startY(i) != segments.endY(i - 1)) {
+                if (count + 1 >= starts.length) {
+                    starts = Arrays.copyOf(starts, starts.length * 2);
+                }
+                starts[count++] = i;
+            }
+        }
+        starts = Arrays.copyOf(starts, count + 1);
+        starts[count] = segmentCount;
+        this.runStart = starts;
+        this.runCount = count;
+        this.bounds = new double[count * 4];
+        for (int p = 0; p < count; p++) {
+            computeBounds(p);
+        }
+
+        this.gridMinX = count == 0 ? 0 : segments.minX();
+        this.gridMinY = count == 0 ? 0 : segments.minY();
+        double width = Math.max(count == 0 ? 0 : segments.maxX() - gridMinX, Double.MIN_NORMAL);
+        double height = Math.max(count == 0 ? 0 : segments.maxY() - gridMinY, Double.MIN_NORMAL);
+        this.cellsPerSide = (int) Math.max(1,
+                Math.min(MAX_CELLS_PER_SIDE, Math.ceil(Math.sqrt((double) count / POLYLINES_PER_CELL))));
+        this.cellWidth = width / cellsPerSide;
+        this.cellHeight = height / cellsPerSide;
+
+        // count entries per cell, then fill them in a second pass
+        int cells = cellsPerSide * cellsPerSide;
+        this.cellStart = new int[cells + 1];
+        int wide = 0;
+        for (int p = 0; p < count; p++) {
+            if (isWide(p)) {
+                wide++;
+                continue;
+            }
+            for (int row = row(bounds[4 * p + 1]); row <= row(bounds[4 * p + 3]); row++) {
+                for (int column = column(bounds[4 * p]); column <= column(bounds[4 * p + 2]); column++) {
+                    cellStart[row * cellsPerSide + column + 1]++;
+                }
+            }
+        }
+        for (int cell = 0; cell < cells; cell++) {
+            cellStart[cell + 1] += cellStart[cell];
+        }
+        this.cellEntries = new int[cellStart[cells]];
+        this.widePolylines = new int[wide];
+        int[] fill = Arrays.copyOf(cellStart, cells);
+        wide = 0;
+        for (int p = 0; p < count; p++) {
+            if (isWide(p)) {
+                widePolylines[wide++] = p;
+                continue;
+            }
+            for (int row = row(bounds[4 * p + 1]); row <= row(bounds[4 * p + 3]); row++) {
+                for (int column = column(bounds[4 * p]); column <= column(bounds[4 * p + 2]); column++) {
+                    cellEntries[fill[row * cellsPerSide + column]++] = p;
+                }
+            }
+        }
+    }
+
+    private boolean isWide(int polyline) {
+        int base = polyline * 4;
+        long columns = column(bounds[base + 2]) - column(bounds[base]) + 1;
+        long rows = row(bounds[base + 3]) - row(bounds[base + 1]) + 1;
+        return columns * rows > MAX_CELLS_PER_POLYLINE;
+    }
+
+    private int column(double x) {
+        return Math.max(0, Math.min(cellsPerSide - 1, (int) Math.floor((x - gridMinX) / cellWidth)));
+    }
+
+    private int row(double y) {
+        return Math.max(0, Math.min(cellsPerSide - 1, (int) Math.floor((y - gridMinY) / cellHeight)));
+    }
+
+    private void computeBounds(int polyline) {
+        double minX = segments.startX(runStart[polyline]);
+        double minY = segments.startY(runStart[polyline]);
+        double maxX = minX;
+        double maxY = minY;
+        for (int i = runStart[polyline]; i < runStart[polyline + 1]; i++) {
+            minX = Math.min(minX, segments.endX(i));
+            minY = Math.min(minY, segments.endY(i));
+            maxX = Math.max(maxX, segments.endX(i));
+            maxY = Math.max(maxY, segments.endY(i));
+        }
+        int base = polyline * 4;
+        bounds[base] = minX;
+        bounds[base + 1] = minY;
+        bounds[base + 2] = maxX;
+        bounds[base + 3] = maxY;
+    }
+
+    /**
+     * @return number of polylines
+     */
+    int polylineCount() {
+        return runCount;
+    }
+
+    /**
+     * @param segment segment index, 0 <= segment < number of segments grouped
+     * @return index of the polyline the segment belongs to
+     */
+    int polylineOf(int segment) {
+        int low = 0;
+        int high = runCount - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (runStart[mid] <= segment) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Find the polylines whose bounding boxes overlap a rectangle.
+     *
+     * @param minX left edge of the rectangle
+     * @param minY bottom edge of the rectangle
+     * @param maxX right edge of the rectangle
+     * @param maxY top edge of the rectangle
+     * @param limit only polylines with index less than limit are returned
+     * @return indices of matching polylines in increasing order, i.e. in drawing order
+     */
+    int[] overlapping(double minX, double minY, double maxX, double maxY, int limit) {
+        int[] found = new int[16];
+        int count = 0;
+        if (runCount > 0 && maxX >= gridMinX && maxY >= gridMinY
+                && minX <= gridMinX + cellWidth * cellsPerSide && minY <= gridMinY + cellHeight * cellsPerSide) {
+            for (int row = row(minY); row <= row(maxY); row++) {
+                for (int column = column(minX); column <= column(maxX); column++) {
+                    int cell = row * cellsPerSide + column;
+                    for (int entry = cellStart[cell]; entry < cellStart[cell + 1]; entry++) {
+                        int p = cellEntries[entry];
+                        if (p >= limit) {
+                            break; // entries within a cell are in increasing order
+                        }
+                        if (!overlaps(p, minX, minY, maxX, maxY)) {
+                            continue;
+                        }
+                        if (count == found.length) {
+                            found = Arrays.copyOf(found, count * 2);
+                        }
+                        found[count++] = p;
+                    }
+                }
+            }
+        }
+        for (int p : widePolylines) {
+            if (p >= limit) {
+                break;
+            }
+            if (overlaps(p, minX, minY, maxX, maxY)) {
+                if (count == found.length) {
+                    found = Arrays.copyOf(found, count * 2);
+                }
+                found[count++] = p;
+            }
+        }
+        // a polyline listed in several of the cells is found once from each
+        Arrays.sort(found, 0, count);
+        int distinct = 0;
+        for (int k = 0; k < count; k++) {
+            if (distinct == 0 || found[k] != found[distinct - 1]) {
+                found[distinct++] = found[k];
+            }
+        }
+        return Arrays.copyOf(found, distinct);
+    }
+
+    private boolean overlaps(int polyline, double minX, double minY, double maxX, double maxY) {
+        int base = polyline * 4;
+        return bounds[base] <= maxX && bounds[base + 1] <= maxY
+                && bounds[base + 2] >= minX && bounds[base + 3] >= minY;
+    }
+
+    /**
+     * @param zoom pixels per turtle step, must be positive
+     * @return the polylines simplified for drawing at that zoom
+     */
+    Level level(double zoom) {
+        int exponent = Math.getExponent(zoom);
+        Level level = levels.get(exponent);
+        if (level == null) {
+            // zoom < 2^(exponent+1), so this tolerance keeps errors within TOLERANCE_PIXELS
+            level = new Level(TOLERANCE_PIXELS / Math.scalb(1.0, exponent + 1));
+            levels.put(exponent, level);
+        }
+        return level;
+    }
+
+    /**
+     * The polylines simplified to one tolerance, each when first used.
+     */
+    class Level {
+
+        private final double tolerance;
+        // points of polyline p are (xs[p][k], ys[p][k]), or null if not simplified yet
+        private final double[][] xs;
+        private final double[][] ys;
+
+        private Level(double tolerance) {
+            this.tolerance = tolerance;
+            this.xs = new double[runCount][];
+            this.ys = new double[runCount][];
+        }
+
+        /**
+         * @param polyline polyline index
+         * @return index of the first segment in the polyline
+         */
+        int firstSegment(int polyline) {
+            return runStart[polyline];
+        }
+
+        /**
+         * @param polyline polyline index
+         * @return index after the last segment in the polyline
+         */
+        int endSegment(int polyline) {
+            return runStart[polyline + 1];
+        }
+
+        /**
+         * @param polyline polyline index
+         * @return color of the polyline
+         */
+        PenColor color(int polyline) {
+            return segments.color(runStart[polyline]);
+        }
+
+        /**
+         * @param polyline polyline index
+         * @param minX left edge of a rectangle
+         * @param minY bottom edge of a rectangle
+         * @param maxX right edge of a rectangle
+         * @param maxY top edge of a rectangle
+         * @return true iff the polyline's bounding box overlaps the rectangle
+         */
+        boolean overlaps(int polyline, double minX, double minY, double maxX, double maxY) {
+            return LevelOfDetail.this.overlaps(polyline, minX, minY, maxX, maxY);
+        }
+
+        /**
+         * @param polyline polyline index
+         * @return number of points in the simplified polyline
+         */
+        int pointCount(int polyline) {
+            return simplifiedXs(polyline).length;
+        }
+
+        /**
+         * @param polyline polyline index
+         * @param point point index, 0 <= point < pointCount(polyline)
+         * @return x-coordinate of the point
+         */
+        double x(int polyline, int point) {
+            return simplifiedXs(polyline)[point];
+        }
+
+        /**
+         * @param polyline polyline index
+         * @param point point index, 0 <= point < pointCount(polyline)
+         * @return y-coordinate of the point
+         */
+        double y(int polyline, int point) {
+            simplifiedXs(polyline);
+            return ys[polyline][point];
+        }
+
+        /**
+         * @return number of polylines simplified for this level so far
+         */
+        int simplifiedCount() {
+            int count = 0;
+            for (double[] points : xs) {
+                if (points != null) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        /*
+         * The x-coordinates of a simplified polyline, simplifying it if needed.
+         */
+        private double[] simplifiedXs(int polyline) {
+            if (xs[polyline] == null) {
+                simplify(polyline, runStart[polyline], runStart[polyline + 1]);
+            }
+            return xs[polyline];
+        }
+
+        /*
+         * Simplify polyline p, made of segments first..end-1.
+         */
+        private void simplify(int polyline, int first, int end) {
+            double tolerance = this.tolerance;
+            // each of the two passes may move the polyline by half the tolerance
+            tolerance /= 2;
+            // point 0 is the start of the first segment, point k the end of segment first+k-1
+            int points = end - first + 1;
+            double[] px = new double[points];
+            double[] py = new double[points];
+            px[0] = segments.startX(first);
+            py[0] = segments.startY(first);
+            int kept = 1;
+            for (int k = 1; k < points; k++) {
+                double x = segments.endX(first + k - 1);
+                double y = segments.endY(first + k - 1);
+                // drop points too close to the last kept one, but always keep the last point
+                if (k < points - 1 && Math.hypot(x - px[kept - 1], y - py[kept - 1]) <= tolerance) {
+                    continue;
+                }
+                px[kept] = x;
+                py[kept] = y;
+                kept++;
+            }
+
+            boolean[] keep = new boolean[kept];
+            keep[0] = true;
+            keep[kept - 1] = true;
+            // Douglas-Peucker with an explicit stack of (from, to) index ranges
+            int[] stack = new int[64];
+            int top = 0;
+            stack[top++] = 0;
+            stack[top++] = kept - 1;
+            while (top > 0) {
+                int to = stack[--top];
+                int from = stack[--top];
+                double dx = px[to] - px[from];
+                double dy = py[to] - py[from];
+                double length = Math.hypot(dx, dy);
+                int farthest = -1;
+                double farthestDistance = tolerance;
+                for (int k = from + 1; k < to; k++) {
+                    // distance to the segment, not the line, so that retraced
+                    // strokes that double back are not cut short
+                    double t = length == 0 ? 0
+                            : ((px[k] - px[from]) * dx + (py[k] - py[from]) * dy) / (length * length);
+                    t = Math.max(0, Math.min(1, t));
+                    double distance = Math.hypot(px[k] - px[from] - t * dx, py[k] - py[from] - t * dy);
+                    if (distance > farthestDistance) {
+                        farthestDistance = distance;
+                        farthest = k;
+                    }
+                }
+                if (farthest >= 0) {
+                    keep[farthest] = true;
+                    if (top + 4 > stack.length) {
+                        stack = Arrays.copyOf(stack, stack.length * 2);
+                    }
+                    stack[top++] = from;
+                    stack[top++] = farthest;
+                    stack[top++] = farthest;
+                    stack[top++] = to;
+                }
+            }
+
+            int count = 0;
+            for (int k = 0; k < kept; k++) {
+                if (keep[k]) {
+                    px[count] = px[k];
+                    py[count] = py[k];
+                    count++;
+                }
+            }
+            ys[polyline] = Arrays.copyOf(py, count);
+            xs[polyline] = Arrays.copyOf(px, count);
+        }
+    }
+}
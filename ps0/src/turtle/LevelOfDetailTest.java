@@ -0,0 +1,148 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class LevelOfDetailTest {
+
+    /**
+     * Tests that connected runs of one color become polylines.
+     */
+    @Test
+    public void polylinesTest() {
+        DrawableTurtle turtle = new DrawableTurtle();
+        for (int i = 0; i < 100; i++) {
+            turtle.forward(1);
+        }
+        turtle.turn(180);
+        for (int i = 0; i < 50; i++) {
+            turtle.forward(1);
+        }
+        turtle.color(PenColor.RED);
+        turtle.forward(10);
+
+        LevelOfDetail detail = new LevelOfDetail(turtle.segments());
+        assertEquals(2, detail.polylineCount());
+        LevelOfDetail.Level level = detail.level(1.0);
+        assertEquals(0, level.firstSegment(0));
+        assertEquals(150, level.endSegment(0));
+        assertEquals(PenColor.RED, level.color(1));
+        // the collinear run doubles back once, so its turning point must survive
+        assertEquals(3, level.pointCount(0));
+        assertEquals(100.0, level.y(0, 1), 0.0);
+        assertEquals(50.0, level.y(0, 2), 0.0);
+    }
+
+    /**
+     * Tests that a level simplifies only the polylines it is asked for, and
+     * that their bounds are known before they are simplified.
+     */
+    @Test
+    public void lazySimplificationTest() {
+        DrawableTurtle turtle = new DrawableTurtle();
+        PenColor[] colors = { PenColor.BLACK, PenColor.RED };
+        for (int p = 0; p < 100; p++) {
+            turtle.color(colors[p % 2]);
+            for (int i = 0; i < 20; i++) {
+                turtle.forward(1);
+            }
+        }
+        LevelOfDetail detail = new LevelOfDetail(turtle.segments());
+        assertEquals(100, detail.polylineCount());
+        LevelOfDetail.Level level = detail.level(0.25);
+        assertEquals(0, level.simplifiedCount());
+        assertTrue(level.overlaps(50, -1, 1000, 1, 1020));
+        assertFalse(level.overlaps(50, -1, 0, 1, 999));
+        assertEquals(0, level.simplifiedCount());
+
+        assertEquals(2, level.pointCount(50));
+        assertEquals(1020.0, level.y(50, 1), 0.0);
+        assertEquals(1, level.simplifiedCount());
+        assertSame(level, detail.level(0.25));
+    }
+
+    /**
+     * Tests that the polylines found in a rectangle match a scan of all of
+     * them, for polylines of all sizes, and are found in drawing order.
+     */
+    @Test
+    public void overlappingMatchesScanTest() {
+        Random random = new Random(6005);
+        DrawableTurtle turtle = new DrawableTurtle();
+        PenColor[] colors = { PenColor.BLACK, PenColor.RED };
+        for (int p = 0; p < 400; p++) {
+            turtle.color(colors[p % 2]);
+            int moves = p % 50 == 0 ? 200 : 1 + random.nextInt(5);
+            for (int i = 0; i < moves; i++) {
+                turtle.turn(random.nextInt(91) - 45);
+                turtle.forward(1 + random.nextInt(10));
+            }
+        }
+        LevelOfDetail detail = new LevelOfDetail(turtle.segments());
+        LevelOfDetail.Level level = detail.level(1.0);
+        SegmentStore store = turtle.segments();
+
+        for (int q = 0; q < 50; q++) {
+            double minX = store.minX() + random.nextDouble() * (store.maxX() - store.minX());
+            double minY = store.minY() + random.nextDouble() * (store.maxY() - store.minY());
+            double maxX = minX + random.nextDouble() * 100;
+            double maxY = minY + random.nextDouble() * 100;
+            int limit = random.nextInt(detail.polylineCount() + 1);
+
+            int[] found = detail.overlapping(minX, minY, maxX, maxY, limit);
+            int k = 0;
+            for (int p = 0; p < limit; p++) {
+                if (level.overlaps(p, minX, minY, maxX, maxY)) {
+                    assertTrue(k < found.length);
+                    assertEquals(p, found[k++]);
+                }
+            }
+            assertEquals(k, found.length);
+        }
+        assertEquals(0, detail.polylineOf(0));
+        assertEquals(detail.polylineCount() - 1, detail.polylineOf(store.size() - 1));
+    }
+
+    /**
+     * Tests that a simplified random walk stays within tolerance of every original point.
+     */
+    @Test
+    public void toleranceTest() {
+        Random random = new Random(6005);
+        DrawableTurtle turtle = new DrawableTurtle();
+        for (int i = 0; i < 5000; i++) {
+            turtle.turn(random.nextInt(61) - 30);
+            turtle.forward(1 + random.nextInt(3));
+        }
+        SegmentStore segments = turtle.segments();
+        LevelOfDetail detail = new LevelOfDetail(segments);
+        double zoom = 0.1;
+        LevelOfDetail.Level level = detail.level(zoom);
+        int points = level.pointCount(0);
+        assertTrue(points < segments.size() / 4);
+
+        double tolerance = LevelOfDetail.TOLERANCE_PIXELS / zoom;
+        for (int i = 0; i < segments.size(); i++) {
+            double best = Double.POSITIVE_INFINITY;
+            for (int k = 0; k + 1 < points; k++) {
+                best = Math.min(best, distanceToSegment(segments.endX(i), segments.endY(i),
+                        level.x(0, k), level.y(0, k), level.x(0, k + 1), level.y(0, k + 1)));
+            }
+            assertTrue("point " + i + " is " + best + " away", best <= tolerance);
+        }
+    }
+
+    private static double distanceToSegment(double x, double y, double x1, double y1, double x2, double y2) {
+        double dx = x2 - x1;
+        double dy = y2 - y1;
+        double lengthSquared = dx * dx + dy * dy;
+        double t = lengthSquared == 0 ? 0 : Math.max(0, Math.min(1, ((x - x1) * dx + (y - y1) * dy) / lengthSquared));
+        return Math.hypot(x - x1 - t * dx, y - y1 - t * dy);
+    }
+}
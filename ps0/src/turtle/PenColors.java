@@ -0,0 +1,39 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+import java.awt.Color;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Screen colors for turtle pen colors, shared by every renderer.
+ */
+class PenColors {
+
+    private static final Map<PenColor, Color> PEN_COLORS = new EnumMap<>(PenColor.class);
+    static {
+        PEN_COLORS.put(PenColor.BLACK, Color.BLACK);
+        PEN_COLORS.put(PenColor.GRAY, Color.GRAY);
+        PEN_COLORS.put(PenColor.RED, Color.RED);
+        PEN_COLORS.put(PenColor.PINK, Color.PINK);
+        PEN_COLORS.put(PenColor.ORANGE, Color.ORANGE);
+        PEN_COLORS.put(PenColor.YELLOW, new Color(228, 228, 0));
+        PEN_COLORS.put(PenColor.GREEN, Color.GREEN);
+        PEN_COLORS.put(PenColor.CYAN, Color.CYAN);
+        PEN_COLORS.put(PenColor.BLUE, Color.BLUE);
+        PEN_COLORS.put(PenColor.MAGENTA, Color.MAGENTA);
+    }
+
+    private PenColors() {
+    }
+
+    /**
+     * @param color pen color
+     * @return screen color used to draw with the given pen, black if unknown
+     */
+    static Color of(PenColor color) {
+        return PEN_COLORS.getOrDefault(color, Color.BLACK);
+    }
+}
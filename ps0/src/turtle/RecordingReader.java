@@ -0,0 +1,266 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Plays back a recording written by RecordingWriter.
+ *
+ * The file is memory-mapped and only its header and trailer are read when it
+ * is opened. Actions are decoded on demand, one checkpoint block at a time,
+ * so opening is fast however long the recording is. Anything that walks the
+ * whole action list, such as showing it in a TurtleGUI, still decodes every
+ * block.
+ *
+ * A reader is not safe for use by multiple threads.
+ */
+public class RecordingReader implements Closeable {
+
+    private static final PenColor[] COLORS = PenColor.values();
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int actionCount;
+    private final int checkpointInterval;
+    private final int indexOffset;
+
+    // most recently decoded block of actions
+    private int cachedBlock = -1;
+    private Action[] cachedActions;
+
+    /**
+     * Open a recording.
+     *
+     * @param file recording file
+     * @throws IOException if the file cannot be read or is not a valid recording
+     */
+    public RecordingReader(File file) throws IOException {
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            long fileSize = channel.size();
+            if (fileSize > Integer.MAX_VALUE) {
+                throw new IOException("recording too large to map: " + fileSize + " bytes");
+            }
+            if (fileSize < RecordingWriter.HEADER_SIZE + RecordingWriter.TRAILER_SIZE) {
+                throw new IOException("not a turtle recording: too short");
+            }
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            int trailer = (int) fileSize - RecordingWriter.TRAILER_SIZE;
+            if (buffer.getInt(0) != RecordingWriter.MAGIC || buffer.getInt(trailer + 20) != RecordingWriter.MAGIC) {
+                throw new IOException("not a turtle recording");
+            }
+            if (buffer.get(4) != RecordingWriter.VERSION) {
+                throw new IOException("unsupported recording version " + buffer.get(4));
+            }
+            long indexOffset = buffer.getLong(trailer);
+            long actionCount = buffer.getLong(trailer + 8);
+            this.checkpointInterval = buffer.getInt(trailer + 16);
+            if (actionCount > Integer.MAX_VALUE || checkpointInterval <= 0
+                    || indexOffset < RecordingWriter.HEADER_SIZE || indexOffset > trailer) {
+                throw new IOException("corrupt recording trailer");
+            }
+            this.actionCount = (int) actionCount;
+            this.indexOffset = (int) indexOffset;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return number of recorded actions
+     */
+    public int size() {
+        return actionCount;
+    }
+
+    /**
+     * @return the recorded actions, decoded as they are read; the list is
+     *         unmodifiable and only valid until this reader is closed
+     */
+    public List<Action> actions() {
+        return new RecordedActions();
+    }
+
+    /**
+     * Perform every recorded action, in order, on a turtle.
+     *
+     * @param turtle turtle to perform the actions
+     */
+    public void replay(Turtle turtle) {
+        decode(RecordingWriter.HEADER_SIZE, actionCount, turtle);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /*
+     * Decode a run of actions starting at a byte offset and perform them on a turtle.
+     */
+    private void decode(int offset, int count, Turtle turtle) {
+        ByteBuffer in = buffer.duplicate();
+        in.position(offset);
+        for (int i = 0; i < count; i++) {
+            int op = in.get() & 0xff;
+            switch (op >>> 4) {
+            case RecordingWriter.OP_FORWARD:
+                int encoded = readVarint(in);
+                turtle.forward((encoded >>> 1) ^ -(encoded & 1));
+                break;
+            case RecordingWriter.OP_TURN:
+                turtle.turn((double) readVarint(in) / RecordingWriter.TURN_QUANTA_PER_DEGREE);
+                break;
+            case RecordingWriter.OP_TURN_EXACT:
+                turtle.turn(in.getDouble());
+                break;
+            case RecordingWriter.OP_COLOR:
+                turtle.color(COLORS[op & 0xf]);
+                break;
+            case RecordingWriter.OP_ARC:
+                int radius = readVarint(in);
+                turtle.arc(radius, in.getDouble());
+                break;
+            case RecordingWriter.OP_CURVE:
+                int[] points = new int[6];
+                for (int k = 0; k < points.length; k++) {
+                    int zigzag = readVarint(in);
+                    points[k] = (zigzag >>> 1) ^ -(zigzag & 1);
+                }
+                turtle.cubicCurve(points[0], points[1], points[2], points[3], points[4], points[5]);
+                break;
+            default:
+                throw new IllegalStateException("corrupt recording: opcode " + op + " at byte " + (in.position() - 1));
+            }
+        }
+    }
+
+    private static int readVarint(ByteBuffer in) {
+        int value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = in.get();
+            value |= (b & 0x7f) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    /*
+     * Decode one block of actions, starting from the turtle state saved at its checkpoint.
+     */
+    private Action[] decodeBlock(int block) {
+        if (block == cachedBlock) {
+            return cachedActions;
+        }
+        int checkpoint = indexOffset + block * RecordingWriter.CHECKPOINT_SIZE;
+        TurtleCursor cursor = new TurtleCursor(buffer.getDouble(checkpoint + 8), buffer.getDouble(checkpoint + 16),
+                buffer.getDouble(checkpoint + 24), COLORS[buffer.get(checkpoint + 32)]);
+        BlockDecoder decoder = new BlockDecoder(cursor,
+                Math.min(checkpointInterval, actionCount - block * checkpointInterval));
+        decode((int) buffer.getLong(checkpoint), decoder.actions.length, decoder);
+        cachedBlock = block;
+        cachedActions = decoder.actions;
+        return cachedActions;
+    }
+
+    /*
+     * Turtle that collects decoded actions, tracking the turtle's state so that
+     * moves carry their line segments.
+     */
+    private static class BlockDecoder implements Turtle {
+
+        private final TurtleCursor cursor;
+        private final Action[] actions;
+        private int count;
+        // chords of the block's arcs and curves, created by the first of them
+        private SegmentStore chords;
+
+        BlockDecoder(TurtleCursor cursor, int size) {
+            this.cursor = cursor;
+            this.actions = new Action[size];
+        }
+
+        @Override
+        public void forward(int units) {
+            double startX = cursor.x();
+            double startY = cursor.y();
+            cursor.forward(units);
+            actions[count++] = Action.forward(units,
+                    new LineSegment(startX, startY, cursor.x(), cursor.y(), cursor.color()));
+        }
+
+        @Override
+        public void turn(double degrees) {
+            actions[count++] = Action.turn(cursor.turn(degrees));
+        }
+
+        @Override
+        public void color(PenColor color) {
+            cursor.color(color);
+            actions[count++] = Action.color(color);
+        }
+
+        @Override
+        public void arc(int radius, double degrees) {
+            CurveGeometry arc = cursor.arcGeometry(radius, degrees);
+            cursor.arc(radius, degrees);
+            int first = arc.addChords(chords(), cursor.color(), cursor.x(), cursor.y());
+            actions[count++] = Action.arc(chords, first, chords.size() - first, radius, degrees, arc);
+        }
+
+        @Override
+        public void cubicCurve(int control1Ahead, int control1Right,
+                               int control2Ahead, int control2Right, int endAhead, int endRight) {
+            CurveGeometry curve = cursor.cubicGeometry(control1Ahead, control1Right,
+                    control2Ahead, control2Right, endAhead, endRight);
+            cursor.cubicCurve(control1Ahead, control1Right, control2Ahead, control2Right, endAhead, endRight);
+            int first = curve.addChords(chords(), cursor.color(), cursor.x(), cursor.y());
+            int[] points = { control1Ahead, control1Right, control2Ahead, control2Right, endAhead, endRight };
+            actions[count++] = Action.curve(chords, first, chords.size() - first, points, curve);
+        }
+
+        private SegmentStore chords() {
+            if (chords == null) {
+                chords = new SegmentStore();
+            }
+            return chords;
+        }
+
+        @Override
+        public void draw() {
+        }
+    }
+
+    /*
+     * Random-access view of the recorded actions.
+     */
+    private class RecordedActions extends AbstractList<Action> implements RandomAccess {
+
+        @Override
+        public Action get(int index) {
+            if (index < 0 || index >= actionCount) {
+                throw new IndexOutOfBoundsException("index " + index + " of " + actionCount);
+            }
+            return decodeBlock(index / checkpointInterval)[index % checkpointInterval];
+        }
+
+        @Override
+        public int size() {
+            return actionCount;
+        }
+    }
+}
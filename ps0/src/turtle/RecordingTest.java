@@ -0,0 +1,128 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.Test;
+
+import turtle.Action.ActionType;
+
+public class RecordingTest {
+
+    /*
+     * Draw enough actions to span several checkpoint blocks, including turns
+     * that cannot be quantized exactly and negative moves.
+     */
+    private static void drawSpiral(Turtle turtle) {
+        PenColor[] colors = PenColor.values();
+        for (int i = 0; i < 10000; i++) {
+            turtle.forward(i % 50 - 5);
+            turtle.turn(i % 3 == 0 ? 360.0 / 7 : 90.5);
+            if (i % 97 == 0) {
+                turtle.color(colors[i % colors.length]);
+            }
+        }
+    }
+
+    /**
+     * Tests that a recording reads back the same actions and segments.
+     */
+    @Test
+    public void roundTripTest() throws IOException {
+        File file = File.createTempFile("turtle", ".rec");
+        file.deleteOnExit();
+
+        DrawableTurtle original = new DrawableTurtle();
+        original.forward(3);
+        try (RecordingWriter writer = new RecordingWriter(file)) {
+            original.record(writer);
+            drawSpiral(original);
+            assertEquals(original.actions().size(), writer.size());
+        }
+
+        try (RecordingReader reader = new RecordingReader(file)) {
+            List<Action> expected = original.actions();
+            List<Action> actual = reader.actions();
+            assertEquals(expected.size(), reader.size());
+            assertEquals(expected.size(), actual.size());
+            // read out of order to cross checkpoint blocks in both directions
+            for (int i : new int[] { 9000, 1, 4095, 4096, 20000, 0, expected.size() - 1 }) {
+                assertEquals(expected.get(i).type(), actual.get(i).type());
+                assertEquals(expected.get(i).toString(), actual.get(i).toString());
+                if (expected.get(i).type() == ActionType.FORWARD) {
+                    LineSegment want = expected.get(i).lineSegment();
+                    LineSegment got = actual.get(i).lineSegment();
+                    assertEquals(want.end().x(), got.end().x(), 0.0);
+                    assertEquals(want.end().y(), got.end().y(), 0.0);
+                    assertEquals(want.color(), got.color());
+                }
+            }
+
+            DrawableTurtle replayed = new DrawableTurtle();
+            reader.replay(replayed);
+            SegmentStore want = original.segments();
+            SegmentStore got = replayed.segments();
+            assertEquals(want.size(), got.size());
+            for (int i = 0; i < want.size(); i++) {
+                assertEquals(want.endX(i), got.endX(i), 0.0);
+                assertEquals(want.endY(i), got.endY(i), 0.0);
+                assertEquals(want.color(i), got.color(i));
+            }
+        }
+    }
+
+    /**
+     * Tests that other files are rejected.
+     */
+    @Test(expected=IOException.class)
+    public void notARecordingTest() throws IOException {
+        File file = File.createTempFile("turtle", ".rec");
+        file.deleteOnExit();
+        Files.write(file.toPath(), new byte[64]);
+        new RecordingReader(file).close();
+    }
+
+    /**
+     * Tests that arcs and curves are recorded as themselves.
+     */
+    @Test
+    public void curveRoundTripTest() throws IOException {
+        File file = File.createTempFile("turtle", ".rec");
+        file.deleteOnExit();
+
+        DrawableTurtle original = new DrawableTurtle();
+        try (RecordingWriter writer = new RecordingWriter(file)) {
+            original.record(writer);
+            original.arc(40, 135.5);
+            original.forward(5);
+            original.cubicCurve(10, -20, 30, 20, 40, -3);
+            original.arc(7, -400);
+            assertEquals(4, writer.size());
+        }
+
+        try (RecordingReader reader = new RecordingReader(file)) {
+            List<Action> actual = reader.actions();
+            assertEquals(ActionType.ARC, actual.get(0).type());
+            assertEquals(ActionType.CURVE, actual.get(2).type());
+            assertEquals(original.actions().get(3).toString(), actual.get(3).toString());
+
+            DrawableTurtle replayed = new DrawableTurtle();
+            reader.replay(replayed);
+            assertEquals(4, replayed.actions().size());
+            SegmentStore want = original.segments();
+            SegmentStore got = replayed.segments();
+            assertEquals(want.size(), got.size());
+            for (int i = 0; i < want.size(); i++) {
+                assertEquals(want.endX(i), got.endX(i), 0.0);
+                assertEquals(want.endY(i), got.endY(i), 0.0);
+            }
+        }
+    }
+}
@@ -0,0 +1,231 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Turtle that records its actions to a compact binary file.
+ *
+ * A recording is a header, the encoded actions, a checkpoint index and a
+ * trailer. Each action starts with one byte whose high nibble is the opcode;
+ * a color change keeps the pen color in the low nibble. Moves are followed by
+ * their step count as a zigzag varint, and turns by the normalized change in
+ * heading, as a varint count of 1/1024 degree when that is exact and as an
+ * 8-byte double otherwise. Arcs are followed by their radius as a varint and
+ * their change in heading as a double, and curves by their six relative
+ * coordinates as zigzag varints. Every CHECKPOINT_INTERVAL actions the index
+ * records the byte offset and full turtle state, so a reader can start
+ * decoding at any checkpoint without reading what comes before it.
+ *
+ * Recordings are read back with RecordingReader.
+ */
+public class RecordingWriter implements Turtle, Closeable {
+
+    static final int MAGIC = 0x5452544c; // "TRTL"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 5;
+    // index offset, action count, checkpoint interval, magic
+    static final int TRAILER_SIZE = 8 + 8 + 4 + 4;
+    // action offset, x, y, heading, color
+    static final int CHECKPOINT_SIZE = 8 + 8 + 8 + 8 + 1;
+
+    static final int CHECKPOINT_INTERVAL = 4096;
+    static final int TURN_QUANTA_PER_DEGREE = 1024;
+    private static final long TURN_QUANTA_PER_CIRCLE = 360L * TURN_QUANTA_PER_DEGREE;
+
+    static final int OP_FORWARD = 0;
+    static final int OP_TURN = 1;
+    static final int OP_TURN_EXACT = 2;
+    static final int OP_COLOR = 3;
+    static final int OP_ARC = 4;
+    static final int OP_CURVE = 5;
+
+    private final DataOutputStream out;
+    private final ByteArrayOutputStream indexBytes = new ByteArrayOutputStream();
+    private final DataOutputStream index = new DataOutputStream(indexBytes);
+    private final TurtleCursor cursor = new TurtleCursor();
+
+    private long position;
+    private long actionCount;
+    private boolean closed;
+
+    /**
+     * Start a recording on an output stream.
+     *
+     * @param out stream to write the recording to; closed when this writer is closed
+     * @throws IOException if the header cannot be written
+     */
+    public RecordingWriter(OutputStream out) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(out));
+        this.out.writeInt(MAGIC);
+        this.out.writeByte(VERSION);
+        this.position = HEADER_SIZE;
+    }
+
+    /**
+     * Start a recording in a file.
+     *
+     * @param file file to write the recording to, overwritten if it exists
+     * @throws IOException if the file cannot be written
+     */
+    public RecordingWriter(File file) throws IOException {
+        this(new FileOutputStream(file));
+    }
+
+    @Override
+    public void forward(int units) {
+        try {
+            startAction();
+            out.writeByte(OP_FORWARD << 4);
+            writeVarint((units << 1) ^ (units >> 31));
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+        cursor.forward(units);
+    }
+
+    @Override
+    public void turn(double degrees) {
+        degrees = TurtleCursor.normalize(degrees);
+        try {
+            startAction();
+            long quanta = Math.round(degrees * TURN_QUANTA_PER_DEGREE);
+            if (quanta < TURN_QUANTA_PER_CIRCLE && (double) quanta / TURN_QUANTA_PER_DEGREE == degrees) {
+                out.writeByte(OP_TURN << 4);
+                writeVarint((int) quanta);
+            } else {
+                out.writeByte(OP_TURN_EXACT << 4);
+                out.writeDouble(degrees);
+                position += 8;
+            }
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+        cursor.turn(degrees);
+    }
+
+    @Override
+    public void color(PenColor color) {
+        try {
+            startAction();
+            out.writeByte(OP_COLOR << 4 | color.ordinal());
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+        cursor.color(color);
+    }
+
+    @Override
+    public void arc(int radius, double degrees) {
+        if (radius <= 0) {
+            throw new IllegalArgumentException("radius must be positive");
+        }
+        try {
+            startAction();
+            out.writeByte(OP_ARC << 4);
+            writeVarint(radius);
+            out.writeDouble(degrees);
+            position += 8;
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+        cursor.arc(radius, degrees);
+    }
+
+    @Override
+    public void cubicCurve(int control1Ahead, int control1Right,
+                           int control2Ahead, int control2Right, int endAhead, int endRight) {
+        try {
+            startAction();
+            out.writeByte(OP_CURVE << 4);
+            for (int value : new int[] { control1Ahead, control1Right, control2Ahead, control2Right,
+                                         endAhead, endRight }) {
+                writeVarint((value << 1) ^ (value >> 31));
+            }
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+        cursor.cubicCurve(control1Ahead, control1Right, control2Ahead, control2Right, endAhead, endRight);
+    }
+
+    /**
+     * Flush the actions recorded so far to the underlying stream.
+     */
+    @Override
+    public void draw() {
+        try {
+            out.flush();
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+    }
+
+    /**
+     * @return number of actions recorded so far
+     */
+    public long size() {
+        return actionCount;
+    }
+
+    /**
+     * Finish the recording by writing its index and trailer, and close the stream.
+     *
+     * @throws IOException if the recording cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            index.flush();
+            indexBytes.writeTo(out);
+            out.writeLong(position);
+            out.writeLong(actionCount);
+            out.writeInt(CHECKPOINT_INTERVAL);
+            out.writeInt(MAGIC);
+        } finally {
+            out.close();
+        }
+    }
+
+    /*
+     * Count the action about to be written, first adding a checkpoint to the
+     * index if the action starts a new block.
+     */
+    private void startAction() throws IOException {
+        if (closed) {
+            throw new IOException("recording is closed");
+        }
+        if (actionCount % CHECKPOINT_INTERVAL == 0) {
+            index.writeLong(position);
+            index.writeDouble(cursor.x());
+            index.writeDouble(cursor.y());
+            index.writeDouble(cursor.heading());
+            index.writeByte(cursor.color().ordinal());
+        }
+        actionCount++;
+        position++;
+    }
+
+    private void writeVarint(int value) throws IOException {
+        while ((value & ~0x7f) != 0) {
+            out.writeByte((value & 0x7f) | 0x80);
+            value >>>= 7;
+            position++;
+        }
+        out.writeByte(value);
+        position++;
+    }
+}
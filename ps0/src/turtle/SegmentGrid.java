@@ -0,0 +1,302 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+import java.util.Arrays;
+
+/**
+ * A uniform grid spatial index over the segments of a segment store.
+ *
+ * Each segment is listed in every grid cell that it crosses, found by
+ * walking along it from cell to cell, so a rectangle query only looks at
+ * segments near that rectangle, and a long segment costs one entry per cell
+ * along it rather than per cell of its bounding box. Drawings whose segments
+ * are long compared to the cells get a coarser grid, so that the index stays
+ * within ENTRIES_PER_SEGMENT entries per segment. Queries do not modify the
+ * index and may run concurrently.
+ */
+public class SegmentGrid {
+
+    // average number of segments per cell the grid is sized for
+    private static final int SEGMENTS_PER_CELL = 8;
+    private static final int MAX_CELLS_PER_SIDE = 2048;
+    // the grid is made coarser if the segments would cross more cells than this on average
+    private static final int ENTRIES_PER_SEGMENT = 16;
+
+    private final SegmentStore segments;
+    private final int indexedCount;
+
+    private final double minX;
+    private final double minY;
+    private final double cellWidth;
+    private final double cellHeight;
+    private final int columns;
+    private final int rows;
+
+    // segments in cell c are cellEntries[cellStart[c] .. cellStart[c+1]-1], in increasing order
+    private final int[] cellStart;
+    private final int[] cellEntries;
+
+    /*
+     * Receives the cells a segment crosses.
+     */
+    @FunctionalInterface
+    private interface CellVisitor {
+
+        void visit(int cell);
+    }
+
+    /**
+     * Index the segments currently in a store.
+     *
+     * Segments added to the store later are not indexed.
+     *
+     * @param segments segments to index
+     */
+    public SegmentGrid(SegmentStore segments) {
+        this.segments = segments;
+        this.indexedCount = segments.size();
+
+        double[] bounds = { segments.minX(), segments.minY(), segments.maxX(), segments.maxY() };
+        if (indexedCount == 0) {
+            Arrays.fill(bounds, 0);
+        }
+        double width = Math.max(bounds[2] - bounds[0], Double.MIN_NORMAL);
+        double height = Math.max(bounds[3] - bounds[1], Double.MIN_NORMAL);
+
+        // a segment crosses about 1 + (|dx| / width + |dy| / height) * cellsPerSide cells
+        double crossings = 0;
+        for (int i = 0; i < indexedCount; i++) {
+            crossings += Math.abs(segments.endX(i) - segments.startX(i)) / width
+                    + Math.abs(segments.endY(i) - segments.startY(i)) / height;
+        }
+        double cellsPerSide = Math.ceil(Math.sqrt((double) indexedCount / SEGMENTS_PER_CELL));
+        if (crossings > 0) {
+            cellsPerSide = Math.min(cellsPerSide,
+                    Math.floor((ENTRIES_PER_SEGMENT - 1) * (double) indexedCount / crossings));
+        }
+        int side = (int) Math.max(1, Math.min(MAX_CELLS_PER_SIDE, cellsPerSide));
+        this.minX = bounds[0];
+        this.minY = bounds[1];
+        this.columns = side;
+        this.rows = side;
+        this.cellWidth = width / columns;
+        this.cellHeight = height / rows;
+
+        // count entries per cell, then fill them in a second pass
+        this.cellStart = new int[columns * rows + 1];
+        for (int i = 0; i < indexedCount; i++) {
+            forEachCell(i, cell -> cellStart[cell + 1]++);
+        }
+        for (int cell = 0; cell < columns * rows; cell++) {
+            cellStart[cell + 1] += cellStart[cell];
+        }
+        this.cellEntries = new int[cellStart[columns * rows]];
+        int[] fill = Arrays.copyOf(cellStart, columns * rows);
+        for (int i = 0; i < indexedCount; i++) {
+            final int segment = i;
+            forEachCell(i, cell -> cellEntries[fill[cell]++] = segment);
+        }
+    }
+
+    /*
+     * Visit each cell a segment crosses once, walking from the cell of its
+     * start to the cell of its end one cell boundary at a time.
+     */
+    private void forEachCell(int i, CellVisitor visitor) {
+        double x0 = (segments.startX(i) - minX) / cellWidth;
+        double y0 = (segments.startY(i) - minY) / cellHeight;
+        double x1 = (segments.endX(i) - minX) / cellWidth;
+        double y1 = (segments.endY(i) - minY) / cellHeight;
+        int column = column(segments.startX(i));
+        int row = row(segments.startY(i));
+        int endColumn = column(segments.endX(i));
+        int endRow = row(segments.endY(i));
+        int stepX = Integer.signum(endColumn - column);
+        int stepY = Integer.signum(endRow - row);
+        double dx = x1 - x0;
+        double dy = y1 - y0;
+        // distance along the segment, as a fraction of it, to the next vertical
+        // and horizontal cell boundaries, and between successive ones
+        double deltaX = stepX == 0 ? Double.POSITIVE_INFINITY : Math.abs(1 / dx);
+        double deltaY = stepY == 0 ? Double.POSITIVE_INFINITY : Math.abs(1 / dy);
+        double nextX = stepX == 0 ? Double.POSITIVE_INFINITY : ((stepX > 0 ? column + 1 : column) - x0) / dx;
+        double nextY = stepY == 0 ? Double.POSITIVE_INFINITY : ((stepY > 0 ? row + 1 : row) - y0) / dy;
+        visitor.visit(row * columns + column);
+        while (column != endColumn || row != endRow) {
+            if (row == endRow || (column != endColumn && nextX < nextY)) {
+                column += stepX;
+                nextX += deltaX;
+            } else {
+                row += stepY;
+                nextY += deltaY;
+            }
+            visitor.visit(row * columns + column);
+        }
+    }
+
+    private int column(double x) {
+        return Math.max(0, Math.min(columns - 1, (int) Math.floor((x - minX) / cellWidth)));
+    }
+
+    private int row(double y) {
+        return Math.max(0, Math.min(rows - 1, (int) Math.floor((y - minY) / cellHeight)));
+    }
+
+    /**
+     * @return the store whose segments are indexed
+     */
+    public SegmentStore segments() {
+        return segments;
+    }
+
+    /**
+     * @return number of indexed segments, i.e. the size of the store when the index was built
+     */
+    public int size() {
+        return indexedCount;
+    }
+
+    /**
+     * Find the segments that cross or touch a rectangle.
+     *
+     * @param queryMinX left edge of the rectangle
+     * @param queryMinY bottom edge of the rectangle
+     * @param queryMaxX right edge of the rectangle
+     * @param queryMaxY top edge of the rectangle
+     * @param limit only segments with index less than limit are returned
+     * @return indices of matching segments in increasing order, i.e. in drawing order
+     */
+    public int[] query(double queryMinX, double queryMinY, double queryMaxX, double queryMaxY, int limit) {
+        if (indexedCount == 0 || queryMaxX < minX || queryMaxY < minY
+                || queryMinX > minX + cellWidth * columns || queryMinY > minY + cellHeight * rows) {
+            return new int[0];
+        }
+        int column0 = column(queryMinX);
+        int column1 = column(queryMaxX);
+        int row0 = row(queryMinY);
+        int row1 = row(queryMaxY);
+
+        int[] found = new int[16];
+        int count = 0;
+        for (int row = row0; row <= row1; row++) {
+            for (int column = column0; column <= column1; column++) {
+                int cell = row * columns + column;
+                for (int entry = cellStart[cell]; entry < cellStart[cell + 1]; entry++) {
+                    int i = cellEntries[entry];
+                    if (i >= limit) {
+                        break; // entries within a cell are in increasing order
+                    }
+                    if (!crosses(i, queryMinX, queryMinY, queryMaxX, queryMaxY)) {
+                        continue;
+                    }
+                    if (count == found.length) {
+                        found = Arrays.copyOf(found, count * 2);
+                    }
+                    found[count++] = i;
+                }
+            }
+        }
+        // a segment listed in several of the cells is found once from each
+        Arrays.sort(found, 0, count);
+        int distinct = 0;
+        for (int k = 0; k < count; k++) {
+            if (distinct == 0 || found[k] != found[distinct - 1]) {
+                found[distinct++] = found[k];
+            }
+        }
+        return Arrays.copyOf(found, distinct);
+    }
+
+    /**
+     * Count the segments that cross or touch a rectangle, up to a maximum,
+     * without listing them. Counting stops as soon as the maximum is reached,
+     * so asking whether more than some number of segments are in view costs
+     * no more than visiting that many.
+     *
+     * @param queryMinX left edge of the rectangle
+     * @param queryMinY bottom edge of the rectangle
+     * @param queryMaxX right edge of the rectangle
+     * @param queryMaxY top edge of the rectangle
+     * @param limit only segments with index less than limit are counted
+     * @param max largest count to return
+     * @return the number of matching segments, or max if there are more
+     */
+    public int count(double queryMinX, double queryMinY, double queryMaxX, double queryMaxY, int limit, int max) {
+        if (indexedCount == 0 || queryMaxX < minX || queryMaxY < minY
+                || queryMinX > minX + cellWidth * columns || queryMinY > minY + cellHeight * rows) {
+            return 0;
+        }
+        int column0 = column(queryMinX);
+        int column1 = column(queryMaxX);
+        int row0 = row(queryMinY);
+        int row1 = row(queryMaxY);
+
+        int count = 0;
+        for (int row = row0; row <= row1; row++) {
+            for (int column = column0; column <= column1; column++) {
+                int cell = row * columns + column;
+                for (int entry = cellStart[cell]; entry < cellStart[cell + 1] && count < max; entry++) {
+                    int i = cellEntries[entry];
+                    if (i >= limit) {
+                        break; // entries within a cell are in increasing order
+                    }
+                    double t = entry(i, queryMinX, queryMinY, queryMaxX, queryMaxY);
+                    if (Double.isNaN(t)) {
+                        continue;
+                    }
+                    // count a segment listed in several cells only in the cell where it enters the rectangle
+                    double x = segments.startX(i) + (segments.endX(i) - segments.startX(i)) * t;
+                    double y = segments.startY(i) + (segments.endY(i) - segments.startY(i)) * t;
+                    if (column(x) == column && row(y) == row) {
+                        count++;
+                    }
+                }
+                if (count >= max) {
+                    return max;
+                }
+            }
+        }
+        return count;
+    }
+
+    /*
+     * Whether a segment crosses or touches a rectangle.
+     */
+    private boolean crosses(int i, double queryMinX, double queryMinY, double queryMaxX, double queryMaxY) {
+        return !Double.isNaN(entry(i, queryMinX, queryMinY, queryMaxX, queryMaxY));
+    }
+
+    /*
+     * The fraction of a segment's length at which it enters a rectangle, or
+     * NaN if it misses it, found by clipping the segment's parameter range to
+     * each pair of rectangle edges in turn.
+     */
+    private double entry(int i, double queryMinX, double queryMinY, double queryMaxX, double queryMaxY) {
+        double x0 = segments.startX(i);
+        double y0 = segments.startY(i);
+        double dx = segments.endX(i) - x0;
+        double dy = segments.endY(i) - y0;
+        double[] range = { 0, 1 };
+        boolean crosses = clip(-dx, x0 - queryMinX, range) && clip(dx, queryMaxX - x0, range)
+                && clip(-dy, y0 - queryMinY, range) && clip(dy, queryMaxY - y0, range);
+        return crosses ? range[0] : Double.NaN;
+    }
+
+    /*
+     * Narrow range to the parameters t where p * t <= q; false if none are left.
+     */
+    private static boolean clip(double p, double q, double[] range) {
+        if (p == 0) {
+            return q >= 0;
+        }
+        double t = q / p;
+        if (p < 0) {
+            range[0] = Math.max(range[0], t);
+        } else {
+            range[1] = Math.min(range[1], t);
+        }
+        return range[0] <= range[1];
+    }
+}
@@ -0,0 +1,148 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+import static org.junit.Assert.*;
+
+import java.awt.geom.Line2D;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class SegmentGridTest {
+
+    /**
+     * Tests queries against a brute-force scan of random short segments.
+     */
+    @Test
+    public void queryMatchesScanTest() {
+        Random random = new Random(6005);
+        SegmentStore store = new SegmentStore();
+        for (int i = 0; i < 2000; i++) {
+            double x = random.nextDouble() * 1000 - 500;
+            double y = random.nextDouble() * 1000 - 500;
+            store.add(x, y, x + random.nextGaussian() * 40, y + random.nextGaussian() * 40, PenColor.BLACK);
+        }
+        SegmentGrid grid = new SegmentGrid(store);
+        assertEquals(2000, grid.size());
+
+        for (int q = 0; q < 50; q++) {
+            double minX = random.nextDouble() * 1200 - 600;
+            double minY = random.nextDouble() * 1200 - 600;
+            double maxX = minX + random.nextDouble() * 300;
+            double maxY = minY + random.nextDouble() * 300;
+            int limit = random.nextInt(2001);
+
+            assertQueryMatchesScan(store, grid, minX, minY, maxX, maxY, limit);
+        }
+    }
+
+    /**
+     * Tests that counts match queries, counting segments that cross several
+     * cells once, and stop at the maximum.
+     */
+    @Test
+    public void countMatchesQueryTest() {
+        Random random = new Random(6005);
+        SegmentStore store = new SegmentStore();
+        for (int i = 0; i < 2000; i++) {
+            double x = random.nextDouble() * 1000 - 500;
+            double y = random.nextDouble() * 1000 - 500;
+            store.add(x, y, x + random.nextGaussian() * 200, y + random.nextGaussian() * 200, PenColor.BLACK);
+        }
+        SegmentGrid grid = new SegmentGrid(store);
+
+        for (int q = 0; q < 50; q++) {
+            double minX = random.nextDouble() * 1200 - 600;
+            double minY = random.nextDouble() * 1200 - 600;
+            double maxX = minX + random.nextDouble() * 300;
+            double maxY = minY + random.nextDouble() * 300;
+            int limit = random.nextInt(2001);
+            int found = grid.query(minX, minY, maxX, maxY, limit).length;
+
+            assertEquals(found, grid.count(minX, minY, maxX, maxY, limit, Integer.MAX_VALUE));
+            assertEquals(Math.min(found, 10), grid.count(minX, minY, maxX, maxY, limit, 10));
+        }
+    }
+
+    /**
+     * Tests an index of long segments across the whole drawing, which cross
+     * many cells each, against a brute-force scan.
+     */
+    @Test
+    public void longDiagonalSegmentsTest() {
+        SegmentStore store = new SegmentStore();
+        int spokes = 100000;
+        for (int i = 0; i < spokes; i++) {
+            double angle = Math.PI * i / spokes;
+            store.add(-1000 * Math.cos(angle), -1000 * Math.sin(angle),
+                    1000 * Math.cos(angle), 1000 * Math.sin(angle), PenColor.BLACK);
+        }
+        SegmentGrid grid = new SegmentGrid(store);
+        assertEquals(spokes, grid.size());
+
+        Random random = new Random(6005);
+        for (int q = 0; q < 20; q++) {
+            double minX = random.nextDouble() * 2000 - 1000;
+            double minY = random.nextDouble() * 2000 - 1000;
+            double size = random.nextDouble() * 50;
+            assertQueryMatchesScan(store, grid, minX, minY, minX + size, minY + size, spokes);
+        }
+        // a corner away from every spoke's circle crosses none of them
+        assertEquals(0, grid.query(900, 900, 950, 950, spokes).length);
+    }
+
+    private static void assertQueryMatchesScan(SegmentStore store, SegmentGrid grid,
+                                               double minX, double minY, double maxX, double maxY, int limit) {
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < limit; i++) {
+            if (crosses(store, i, minX, minY, maxX, maxY)) {
+                expected.add(i);
+            }
+        }
+        int[] found = grid.query(minX, minY, maxX, maxY, limit);
+        assertEquals(expected.size(), found.length);
+        for (int i = 0; i < found.length; i++) {
+            assertEquals((int) expected.get(i), found[i]);
+        }
+    }
+
+    /*
+     * Whether a segment crosses a rectangle: an endpoint is inside it, or the
+     * segment crosses one of its edges.
+     */
+    private static boolean crosses(SegmentStore store, int i, double minX, double minY, double maxX, double maxY) {
+        double x0 = store.startX(i);
+        double y0 = store.startY(i);
+        double x1 = store.endX(i);
+        double y1 = store.endY(i);
+        if (inside(x0, y0, minX, minY, maxX, maxY) || inside(x1, y1, minX, minY, maxX, maxY)) {
+            return true;
+        }
+        return Line2D.linesIntersect(x0, y0, x1, y1, minX, minY, maxX, minY)
+                || Line2D.linesIntersect(x0, y0, x1, y1, maxX, minY, maxX, maxY)
+                || Line2D.linesIntersect(x0, y0, x1, y1, maxX, maxY, minX, maxY)
+                || Line2D.linesIntersect(x0, y0, x1, y1, minX, maxY, minX, minY);
+    }
+
+    private static boolean inside(double x, double y, double minX, double minY, double maxX, double maxY) {
+        return x >= minX && x <= maxX && y >= minY && y <= maxY;
+    }
+
+    /**
+     * Tests an empty index and segments added after indexing.
+     */
+    @Test
+    public void emptyAndLateSegmentsTest() {
+        SegmentStore store = new SegmentStore();
+        SegmentGrid grid = new SegmentGrid(store);
+        assertEquals(0, grid.query(-10, -10, 10, 10, Integer.MAX_VALUE).length);
+
+        store.add(0, 0, 5, 0, PenColor.RED);
+        assertEquals(0, grid.query(-10, -10, 10, 10, Integer.MAX_VALUE).length);
+        assertEquals(1, new SegmentGrid(store).query(-10, -10, 10, 10, Integer.MAX_VALUE).length);
+    }
+}
@@ -0,0 +1,113 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+/**
+ * Hash index of the newest segment drawn between each pair of points in a
+ * segment store.
+ *
+ * Segments are keyed by their exact endpoints, in either direction, so
+ * coordinates should be rounded to a grid first for segments that retrace
+ * each other to compare equal. A segment is redundant only if the newest
+ * segment between the same points has the same color: an older one of that
+ * color may have been drawn over since, and drawing it again changes the
+ * picture. Segments are stored in the direction they were drawn. The table
+ * is open-addressed and holds only store indices.
+ */
+class SegmentSet {
+
+    private final SegmentStore store;
+    // store index + 1 of each entry, or 0 for an empty slot; the length is a power of 2
+    private int[] slots = new int[16];
+    private int size;
+
+    /**
+     * Create an empty index that adds segments to a store.
+     *
+     * @param store store to add segments to; must only be added to through this index
+     */
+    SegmentSet(SegmentStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Add a segment to the store unless the newest segment between the same
+     * points has the same color.
+     *
+     * @param startX x-coordinate of the start point
+     * @param startY y-coordinate of the start point
+     * @param endX x-coordinate of the end point
+     * @param endY y-coordinate of the end point
+     * @param color segment color
+     * @return index of the new segment in the store, or -1 if the newest segment
+     *         with the same endpoints, in either order, has the same color
+     */
+    int addIfAbsent(double startX, double startY, double endX, double endY, PenColor color) {
+        int mask = slots.length - 1;
+        int slot = hash(startX, startY, endX, endY) & mask;
+        while (slots[slot] != 0) {
+            int i = slots[slot] - 1;
+            if (sameEndpoints(i, startX, startY, endX, endY)) {
+                if (store.color(i) == color) {
+                    return -1;
+                }
+                int index = store.add(startX, startY, endX, endY, color);
+                slots[slot] = index + 1;
+                return index;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int index = store.add(startX, startY, endX, endY, color);
+        slots[slot] = index + 1;
+        if (++size * 2 > slots.length) {
+            grow();
+        }
+        return index;
+    }
+
+    /**
+     * @return number of distinct pairs of endpoints of the segments added
+     */
+    int size() {
+        return size;
+    }
+
+    private boolean sameEndpoints(int i, double startX, double startY, double endX, double endY) {
+        return (store.startX(i) == startX && store.startY(i) == startY
+                        && store.endX(i) == endX && store.endY(i) == endY)
+                || (store.startX(i) == endX && store.startY(i) == endY
+                        && store.endX(i) == startX && store.endY(i) == startY);
+    }
+
+    /*
+     * Hash a segment independently of its direction, by hashing its endpoints
+     * with the lexicographically smaller one first.
+     */
+    private static int hash(double startX, double startY, double endX, double endY) {
+        if (endX < startX || (endX == startX && endY < startY)) {
+            return hash(endX, endY, startX, startY);
+        }
+        long h = Double.doubleToLongBits(startX + 0.0);
+        h = h * 0x9E3779B97F4A7C15L + Double.doubleToLongBits(startY + 0.0);
+        h = h * 0x9E3779B97F4A7C15L + Double.doubleToLongBits(endX + 0.0);
+        h = h * 0x9E3779B97F4A7C15L + Double.doubleToLongBits(endY + 0.0);
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private void grow() {
+        int[] old = slots;
+        slots = new int[old.length * 2];
+        int mask = slots.length - 1;
+        for (int entry : old) {
+            if (entry != 0) {
+                int i = entry - 1;
+                int slot = hash(store.startX(i), store.startY(i), store.endX(i), store.endY(i)) & mask;
+                while (slots[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = entry;
+            }
+        }
+    }
+}
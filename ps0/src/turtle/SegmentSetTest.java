@@ -0,0 +1,61 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class SegmentSetTest {
+
+    /**
+     * Tests that equal segments are found in either direction, and only with the same color.
+     */
+    @Test
+    public void addIfAbsentTest() {
+        SegmentStore store = new SegmentStore();
+        SegmentSet set = new SegmentSet(store);
+        assertEquals(0, set.addIfAbsent(1, 2, 3, 4, PenColor.BLACK));
+        assertEquals(-1, set.addIfAbsent(1, 2, 3, 4, PenColor.BLACK));
+        assertEquals(-1, set.addIfAbsent(3, 4, 1, 2, PenColor.BLACK));
+        assertEquals(1, set.addIfAbsent(3, 4, 1, 2, PenColor.RED));
+        assertEquals(2, store.size());
+        // kept in the direction drawn
+        assertEquals(3.0, store.startX(1), 0.0);
+    }
+
+    /**
+     * Tests that a segment drawn over by another color is drawn again, and
+     * that only the newest segment between two points suppresses retracing.
+     */
+    @Test
+    public void newestColorTest() {
+        SegmentStore store = new SegmentStore();
+        SegmentSet set = new SegmentSet(store);
+        assertEquals(0, set.addIfAbsent(0, 0, 5, 5, PenColor.RED));
+        assertEquals(1, set.addIfAbsent(5, 5, 0, 0, PenColor.BLUE));
+        assertEquals(2, set.addIfAbsent(0, 0, 5, 5, PenColor.RED));
+        assertEquals(-1, set.addIfAbsent(5, 5, 0, 0, PenColor.RED));
+        assertEquals(3, set.addIfAbsent(0, 0, 5, 5, PenColor.BLUE));
+        assertEquals(4, store.size());
+        assertEquals(1, set.size());
+    }
+
+    /**
+     * Tests that the table keeps finding segments as it grows.
+     */
+    @Test
+    public void growTest() {
+        SegmentStore store = new SegmentStore();
+        SegmentSet set = new SegmentSet(store);
+        for (int i = 0; i < 10000; i++) {
+            assertEquals(i, set.addIfAbsent(i, 0, i, 1, PenColor.BLUE));
+        }
+        for (int i = 0; i < 10000; i++) {
+            assertEquals(-1, set.addIfAbsent(i, 1, i, 0, PenColor.BLUE));
+        }
+        assertEquals(10000, set.size());
+        assertEquals(-1, set.addIfAbsent(-0.0, 0, 0, 1, PenColor.BLUE));
+    }
+}
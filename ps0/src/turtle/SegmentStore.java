@@ -0,0 +1,221 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+import java.util.Arrays;
+
+/**
+ * A growable, compact sequence of line segments.
+ * 
+ * Segments are stored in primitive arrays (four coordinates and one color byte
+ * per segment) rather than as LineSegment objects, so very long drawings do
+ * not allocate per segment. Readers iterate by index or with a
+ * SegmentVisitor; LineSegment objects are only created on request.
+ * 
+ * The store also keeps the bounding box of its segments up to date as they
+ * are added, so the extent of a drawing is known without a pass over it.
+ */
+public class SegmentStore {
+
+    /**
+     * Receives the segments of a store in order.
+     */
+    public interface SegmentVisitor {
+
+        /**
+         * Visit one segment.
+         * 
+         * @param startX x-coordinate of start point
+         * @param startY y-coordinate of start point
+         * @param endX x-coordinate of end point
+         * @param endY y-coordinate of end point
+         * @param color segment color
+         */
+        public void visit(double startX, double startY, double endX, double endY, PenColor color);
+    }
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int COORDS_PER_SEGMENT = 4;
+    private static final PenColor[] COLORS = PenColor.values();
+
+    // coords[4i .. 4i+3] are startX, startY, endX, endY of segment i
+    private double[] coords;
+    private byte[] colors;
+    private int size;
+
+    private double minX = Double.POSITIVE_INFINITY;
+    private double minY = Double.POSITIVE_INFINITY;
+    private double maxX = Double.NEGATIVE_INFINITY;
+    private double maxY = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Create an empty store.
+     */
+    public SegmentStore() {
+        this.coords = new double[INITIAL_CAPACITY * COORDS_PER_SEGMENT];
+        this.colors = new byte[INITIAL_CAPACITY];
+        this.size = 0;
+    }
+
+    /**
+     * Append a segment.
+     * 
+     * @param startX x-coordinate of start point
+     * @param startY y-coordinate of start point
+     * @param endX x-coordinate of end point
+     * @param endY y-coordinate of end point
+     * @param color segment color
+     * @return index of the new segment
+     */
+    int add(double startX, double startY, double endX, double endY, PenColor color) {
+        if (size == colors.length) {
+            int capacity = colors.length + (colors.length >> 1);
+            coords = Arrays.copyOf(coords, capacity * COORDS_PER_SEGMENT);
+            colors = Arrays.copyOf(colors, capacity);
+        }
+        int base = size * COORDS_PER_SEGMENT;
+        coords[base] = startX;
+        coords[base + 1] = startY;
+        coords[base + 2] = endX;
+        coords[base + 3] = endY;
+        colors[size] = (byte) color.ordinal();
+        minX = Math.min(minX, Math.min(startX, endX));
+        minY = Math.min(minY, Math.min(startY, endY));
+        maxX = Math.max(maxX, Math.max(startX, endX));
+        maxY = Math.max(maxY, Math.max(startY, endY));
+        return size++;
+    }
+
+    /**
+     * @return number of segments in this store
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return smallest x-coordinate of any segment, or positive infinity if the store is empty
+     */
+    public double minX() {
+        return minX;
+    }
+
+    /**
+     * @return smallest y-coordinate of any segment, or positive infinity if the store is empty
+     */
+    public double minY() {
+        return minY;
+    }
+
+    /**
+     * @return largest x-coordinate of any segment, or negative infinity if the store is empty
+     */
+    public double maxX() {
+        return maxX;
+    }
+
+    /**
+     * @return largest y-coordinate of any segment, or negative infinity if the store is empty
+     */
+    public double maxY() {
+        return maxY;
+    }
+
+    /**
+     * @param index segment index, 0 <= index < size()
+     * @return x-coordinate of the start of the segment
+     */
+    public double startX(int index) {
+        return coords[checkIndex(index) * COORDS_PER_SEGMENT];
+    }
+
+    /**
+     * @param index segment index, 0 <= index < size()
+     * @return y-coordinate of the start of the segment
+     */
+    public double startY(int index) {
+        return coords[checkIndex(index) * COORDS_PER_SEGMENT + 1];
+    }
+
+    /**
+     * @param index segment index, 0 <= index < size()
+     * @return x-coordinate of the end of the segment
+     */
+    public double endX(int index) {
+        return coords[checkIndex(index) * COORDS_PER_SEGMENT + 2];
+    }
+
+    /**
+     * @param index segment index, 0 <= index < size()
+     * @return y-coordinate of the end of the segment
+     */
+    public double endY(int index) {
+        return coords[checkIndex(index) * COORDS_PER_SEGMENT + 3];
+    }
+
+    /**
+     * @param index segment index, 0 <= index < size()
+     * @return color of the segment
+     */
+    public PenColor color(int index) {
+        return COLORS[colors[checkIndex(index)]];
+    }
+
+    /**
+     * @param index segment index, 0 <= index < size()
+     * @return length of the segment
+     */
+    public double length(int index) {
+        int base = checkIndex(index) * COORDS_PER_SEGMENT;
+        return Math.hypot(coords[base + 2] - coords[base], coords[base + 3] - coords[base + 1]);
+    }
+
+    /**
+     * Create an immutable copy of one segment.
+     * 
+     * @param index segment index, 0 <= index < size()
+     * @return the segment as a LineSegment
+     */
+    public LineSegment get(int index) {
+        int base = checkIndex(index) * COORDS_PER_SEGMENT;
+        return new LineSegment(coords[base], coords[base + 1], coords[base + 2], coords[base + 3],
+                COLORS[colors[index]]);
+    }
+
+    /**
+     * Visit every segment in order.
+     * 
+     * @param visitor receives each segment
+     */
+    public void forEach(SegmentVisitor visitor) {
+        forEach(0, size, visitor);
+    }
+
+    /**
+     * Visit a range of segments in order.
+     * 
+     * @param from index of first segment to visit, inclusive
+     * @param to index of last segment to visit, exclusive; from <= to <= size()
+     * @param visitor receives each segment
+     */
+    public void forEach(int from, int to, SegmentVisitor visitor) {
+        if (from < 0 || from > to || to > size) {
+            throw new IndexOutOfBoundsException("range [" + from + ", " + to + ") of " + size);
+        }
+        double[] coords = this.coords;
+        byte[] colors = this.colors;
+        for (int i = from; i < to; i++) {
+            int base = i * COORDS_PER_SEGMENT;
+            visitor.visit(coords[base], coords[base + 1], coords[base + 2], coords[base + 3],
+                    COLORS[colors[i]]);
+        }
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + " of " + size);
+        }
+        return index;
+    }
+}
@@ -0,0 +1,82 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class SegmentStoreTest {
+
+    /**
+     * Tests that segments read back as they were added.
+     */
+    @Test
+    public void addAndReadTest() {
+        SegmentStore store = new SegmentStore();
+        assertEquals(0, store.size());
+        assertEquals(0, store.add(0, 0, 3, 4, PenColor.RED));
+        assertEquals(1, store.add(3, 4, 3, 10, PenColor.BLUE));
+
+        assertEquals(2, store.size());
+        assertEquals(3.0, store.endX(0), 0.0);
+        assertEquals(4.0, store.startY(1), 0.0);
+        assertEquals(PenColor.RED, store.color(0));
+        assertEquals(PenColor.BLUE, store.color(1));
+        assertEquals(5.0, store.length(0), 0.001);
+
+        LineSegment segment = store.get(1);
+        assertEquals(3.0, segment.start().x(), 0.0);
+        assertEquals(10.0, segment.end().y(), 0.0);
+        assertEquals(PenColor.BLUE, segment.color());
+    }
+
+    /**
+     * Tests that the store grows past its initial capacity and visits segments in order.
+     */
+    @Test
+    public void growAndVisitTest() {
+        SegmentStore store = new SegmentStore();
+        int count = 1000;
+        for (int i = 0; i < count; i++) {
+            store.add(i, 0, i, 1, PenColor.values()[i % PenColor.values().length]);
+        }
+        assertEquals(count, store.size());
+
+        List<Double> starts = new ArrayList<>();
+        store.forEach(10, 13, (startX, startY, endX, endY, color) -> starts.add(startX));
+        assertEquals(3, starts.size());
+        assertEquals(10.0, starts.get(0), 0.0);
+        assertEquals(12.0, starts.get(2), 0.0);
+        assertEquals(PenColor.values()[(count - 1) % PenColor.values().length], store.color(count - 1));
+    }
+
+    /**
+     * Tests that indices past the end are rejected.
+     */
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void indexOutOfBoundsTest() {
+        SegmentStore store = new SegmentStore();
+        store.add(0, 0, 1, 1, PenColor.BLACK);
+        store.startX(1);
+    }
+
+    /**
+     * Tests that the bounding box covers every segment added.
+     */
+    @Test
+    public void boundsTest() {
+        SegmentStore store = new SegmentStore();
+        assertTrue(store.minX() > store.maxX());
+        store.add(1, 2, 3, -4, PenColor.BLACK);
+        store.add(3, -4, -5, 6, PenColor.BLACK);
+        assertEquals(-5.0, store.minX(), 0.0);
+        assertEquals(-4.0, store.minY(), 0.0);
+        assertEquals(3.0, store.maxX(), 0.0);
+        assertEquals(6.0, store.maxY(), 0.0);
+    }
+}
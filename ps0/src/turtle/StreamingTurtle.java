@@ -0,0 +1,197 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Turtle that passes its actions to another turtle on a separate thread.
+ *
+ * The program drawing with this turtle and the turtle consuming its actions,
+ * for example a CanvasTurtle showing them on screen, an SvgTurtle or a
+ * RecordingWriter, run at the same time. Actions wait in a bounded buffer in
+ * between; when the consumer falls behind and the buffer is full, the
+ * program waits for it. Memory use is set by the buffer size, however long
+ * the program runs.
+ *
+ * Arcs and curves are passed on as they are, so the consumer draws them
+ * its own way. Calls to draw() are passed on in order. close() must be
+ * called when the program is done, to wait for the consumer to catch up. If
+ * the consumer fails, later actions and close() throw with its failure as
+ * the cause. This turtle must only be used by one thread.
+ */
+public class StreamingTurtle implements Turtle, Closeable {
+
+    // number of actions the consumer takes from the buffer at most at a time
+    private static final int BATCH_SIZE = 1024;
+
+    private final ActionRingBuffer buffer;
+    private final Thread consumerThread;
+    private volatile Throwable failure;
+    private boolean closed;
+
+    /**
+     * Start passing actions to a turtle.
+     *
+     * @param consumer turtle to perform the actions, on a new thread; must not
+     *                 be used by any other thread until this turtle is closed
+     * @param capacity number of actions that may wait for the consumer, must be positive
+     */
+    public StreamingTurtle(Turtle consumer, int capacity) {
+        this.buffer = new ActionRingBuffer(capacity);
+        this.consumerThread = new Thread(() -> consume(consumer), "turtle stream");
+        // the thread only holds actions that close() has not waited for
+        consumerThread.setDaemon(true);
+        consumerThread.start();
+    }
+
+    private void consume(Turtle consumer) {
+        byte[] kinds = new byte[BATCH_SIZE];
+        double[] amounts = new double[BATCH_SIZE];
+        PenColor[] colors = PenColor.values();
+        // operands of an arc or curve, which may arrive in different batches
+        double[] operands = new double[6];
+        int operandCount = 0;
+        byte operandsFor = ActionRingBuffer.END;
+        try {
+            while (true) {
+                int taken = buffer.take(kinds, amounts);
+                for (int i = 0; i < taken; i++) {
+                    switch (kinds[i]) {
+                    case ActionRingBuffer.ARC:
+                    case ActionRingBuffer.CURVE:
+                        operandsFor = kinds[i];
+                        operands[0] = amounts[i];
+                        operandCount = 1;
+                        break;
+                    case ActionRingBuffer.OPERAND:
+                        operands[operandCount++] = amounts[i];
+                        if (operandsFor == ActionRingBuffer.ARC && operandCount == 2) {
+                            consumer.arc((int) operands[0], operands[1]);
+                        } else if (operandsFor == ActionRingBuffer.CURVE && operandCount == 6) {
+                            consumer.cubicCurve((int) operands[0], (int) operands[1], (int) operands[2],
+                                    (int) operands[3], (int) operands[4], (int) operands[5]);
+                        }
+                        break;
+                    case ActionRingBuffer.FORWARD:
+                        consumer.forward((int) amounts[i]);
+                        break;
+                    case ActionRingBuffer.TURN:
+                        consumer.turn(amounts[i]);
+                        break;
+                    case ActionRingBuffer.COLOR:
+                        consumer.color(colors[(int) amounts[i]]);
+                        break;
+                    case ActionRingBuffer.DRAW:
+                        consumer.draw();
+                        break;
+                    case ActionRingBuffer.END:
+                        return;
+                    default:
+                        throw new AssertionError("unknown action kind " + kinds[i]);
+                    }
+                }
+            }
+        } catch (InterruptedException ie) {
+            failure = ie;
+            buffer.fail(ie);
+        } catch (RuntimeException | Error e) {
+            failure = e;
+            buffer.fail(e);
+        }
+    }
+
+    private void publish(byte kind, double amount) {
+        if (closed) {
+            throw new IllegalStateException("turtle stream is closed");
+        }
+        try {
+            buffer.put(kind, amount);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for the turtle stream consumer", ie);
+        }
+    }
+
+    @Override
+    public void forward(int units) {
+        publish(ActionRingBuffer.FORWARD, units);
+    }
+
+    @Override
+    public void turn(double degrees) {
+        publish(ActionRingBuffer.TURN, degrees);
+    }
+
+    @Override
+    public void color(PenColor color) {
+        publish(ActionRingBuffer.COLOR, color.ordinal());
+    }
+
+    @Override
+    public void arc(int radius, double degrees) {
+        if (radius <= 0) {
+            throw new IllegalArgumentException("radius must be positive");
+        }
+        publish(ActionRingBuffer.ARC, radius);
+        publish(ActionRingBuffer.OPERAND, degrees);
+    }
+
+    @Override
+    public void cubicCurve(int control1Ahead, int control1Right,
+                           int control2Ahead, int control2Right, int endAhead, int endRight) {
+        publish(ActionRingBuffer.CURVE, control1Ahead);
+        publish(ActionRingBuffer.OPERAND, control1Right);
+        publish(ActionRingBuffer.OPERAND, control2Ahead);
+        publish(ActionRingBuffer.OPERAND, control2Right);
+        publish(ActionRingBuffer.OPERAND, endAhead);
+        publish(ActionRingBuffer.OPERAND, endRight);
+    }
+
+    /**
+     * Ask the consumer to draw, once it has performed the actions before this call.
+     */
+    @Override
+    public void draw() {
+        publish(ActionRingBuffer.DRAW, 0);
+    }
+
+    /**
+     * Wait until the consumer has performed every action, then stop its thread.
+     * Does not close the consumer.
+     *
+     * @throws IOException if the consumer failed with an I/O error, or this
+     *                     thread was interrupted while waiting
+     * @throws IllegalStateException if the consumer failed otherwise
+     */
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            try {
+                buffer.put(ActionRingBuffer.END, 0);
+            } catch (IllegalStateException ise) {
+                // the consumer has failed; reported below
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted while waiting for the turtle stream consumer");
+            }
+            closed = true;
+        }
+        try {
+            consumerThread.join();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for the turtle stream consumer");
+        }
+        Throwable cause = failure;
+        if (cause instanceof UncheckedIOException) {
+            throw ((UncheckedIOException) cause).getCause();
+        } else if (cause != null) {
+            throw new IllegalStateException("turtle stream consumer failed", cause);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+import static org.junit.Assert.*;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+public class StreamingTurtleTest {
+
+    /**
+     * Tests that a streamed drawing matches the same drawing made directly.
+     */
+    @Test
+    public void sameAsDirectTest() throws IOException {
+        DrawableTurtle direct = new DrawableTurtle();
+        DrawableTurtle consumer = new DrawableTurtle();
+        try (StreamingTurtle streaming = new StreamingTurtle(consumer, 4)) {
+            LSystem.dragonCurve().draw(direct, 8, 3);
+            LSystem.dragonCurve().draw(streaming, 8, 3);
+            direct.color(PenColor.RED);
+            streaming.color(PenColor.RED);
+            direct.forward(7);
+            streaming.forward(7);
+        }
+        SegmentStore expected = direct.segments();
+        SegmentStore actual = consumer.segments();
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.startX(i), actual.startX(i), 0.0);
+            assertEquals(expected.startY(i), actual.startY(i), 0.0);
+            assertEquals(expected.endX(i), actual.endX(i), 0.0);
+            assertEquals(expected.endY(i), actual.endY(i), 0.0);
+            assertEquals(expected.color(i), actual.color(i));
+        }
+        assertEquals(direct.actions().size(), consumer.actions().size());
+    }
+
+    /**
+     * Tests that the producer waits while the buffer is full.
+     */
+    @Test
+    public void backpressureTest() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        DrawableTurtle drawn = new DrawableTurtle();
+        Turtle slow = new Turtle() {
+            @Override
+            public void forward(int units) {
+                try {
+                    release.await();
+                } catch (InterruptedException ie) {
+                    throw new IllegalStateException(ie);
+                }
+                drawn.forward(units);
+            }
+
+            @Override
+            public void turn(double degrees) {
+                drawn.turn(degrees);
+            }
+
+            @Override
+            public void color(PenColor color) {
+                drawn.color(color);
+            }
+
+            @Override
+            public void draw() {
+            }
+        };
+        int capacity = 8;
+        StreamingTurtle streaming = new StreamingTurtle(slow, capacity);
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < 100; i++) {
+                streaming.forward(1);
+            }
+        });
+        producer.start();
+        // the consumer holds one action and the buffer the next capacity; the rest must wait
+        long deadline = System.currentTimeMillis() + 10000;
+        while (producer.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(Thread.State.WAITING, producer.getState());
+        assertEquals(0, drawn.segments().size());
+
+        release.countDown();
+        producer.join();
+        streaming.close();
+        assertEquals(100, drawn.segments().size());
+    }
+
+    /**
+     * Tests that a failure of the consumer reaches the producer.
+     */
+    @Test
+    public void consumerFailureTest() {
+        Turtle failing = new DrawableTurtle() {
+            @Override
+            public void turn(double degrees) {
+                throw new UnsupportedOperationException("no turning");
+            }
+        };
+        StreamingTurtle streaming = new StreamingTurtle(failing, 2);
+        streaming.forward(1);
+        streaming.turn(90);
+        try {
+            // the consumer fails at the turn, so eventually a move or close() must throw
+            for (int i = 0; i < 1000000; i++) {
+                streaming.forward(1);
+            }
+            streaming.close();
+            fail("expected the consumer failure");
+        } catch (IllegalStateException ise) {
+            assertTrue(ise.getCause() instanceof UnsupportedOperationException);
+        } catch (IOException ioe) {
+            fail("unexpected " + ioe);
+        }
+    }
+
+    /**
+     * Tests that streamed moves reach a canvas.
+     */
+    @Test
+    public void canvasTest() throws IOException {
+        CanvasTurtle canvas = new CanvasTurtle(40, 40);
+        try (StreamingTurtle streaming = new StreamingTurtle(canvas, 16)) {
+            streaming.color(PenColor.RED);
+            streaming.turn(90);
+            streaming.forward(10);
+        }
+        assertEquals(1, canvas.segmentCount());
+        BufferedImage image = canvas.snapshot();
+        assertEquals(PenColors.of(PenColor.RED).getRGB(), image.getRGB(25, 20));
+        assertEquals(0xffffffff, image.getRGB(15, 20));
+        assertEquals(0xffffffff, image.getRGB(25, 10));
+    }
+
+    /**
+     * Tests that arcs and curves reach the consumer as themselves.
+     */
+    @Test
+    public void curveTest() throws IOException {
+        DrawableTurtle consumer = new DrawableTurtle();
+        // a capacity of 3 splits the operands of a curve across batches
+        try (StreamingTurtle streaming = new StreamingTurtle(consumer, 3)) {
+            streaming.arc(30, 45);
+            streaming.cubicCurve(1, -2, 3, -4, 5, -6);
+            streaming.forward(1);
+        }
+        assertEquals(3, consumer.actions().size());
+        assertEquals("arc of radius 30 turning 45.0 degrees", consumer.actions().get(0).toString());
+        assertEquals("curve to 5 ahead, -6 right", consumer.actions().get(1).toString());
+    }
+}
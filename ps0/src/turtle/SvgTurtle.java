@@ -0,0 +1,257 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+import java.awt.Color;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Turtle that writes its drawing as SVG while it moves.
+ *
+ * Nothing is kept per segment: each move is written as soon as it is made,
+ * and runs of connected moves in the same color are written as a single
+ * polyline path. Arcs and curves are written as SVG arc and cubic Bezier
+ * commands in the same paths. As in TurtleGUI, the turtle origin is at the
+ * center of the image and y increases upward.
+ */
+public class SvgTurtle implements Turtle, Closeable {
+
+    // coordinates are written with this many digits after the decimal point
+    private static final int COORDINATE_DECIMALS = 3;
+    private static final long COORDINATE_SCALE = 1000;
+    // largest angle of a single SVG arc command written for an arc
+    private static final double ARC_PIECE_DEGREES = 90;
+
+    private final Writer out;
+    private final TurtleCursor cursor = new TurtleCursor();
+    private final StringBuilder number = new StringBuilder();
+
+    // whether a path is open, and the color and last point of that path
+    private boolean inPath;
+    private PenColor pathColor;
+    private double pathX;
+    private double pathY;
+
+    private boolean closed;
+
+    /**
+     * Start an SVG drawing on a writer.
+     *
+     * @param out writer for the SVG document; closed when this turtle is closed
+     * @param width image width in pixels, must be positive
+     * @param height image height in pixels, must be positive
+     * @throws IOException if the document header cannot be written
+     */
+    public SvgTurtle(Writer out, int width, int height) throws IOException {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("invalid image size");
+        }
+        this.out = out;
+        out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        out.write("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"" + width + "\" height=\"" + height
+                + "\" viewBox=\"" + (-width / 2.0) + " " + (-height / 2.0) + " " + width + " " + height + "\">\n");
+        out.write("<rect x=\"" + (-width / 2.0) + "\" y=\"" + (-height / 2.0) + "\" width=\"" + width
+                + "\" height=\"" + height + "\" fill=\"white\"/>\n");
+        out.write("<g transform=\"scale(1,-1)\" fill=\"none\" stroke-width=\"1\" "
+                + "stroke-linecap=\"round\" stroke-linejoin=\"round\">\n");
+    }
+
+    /**
+     * Start an SVG drawing on an output stream, encoded in UTF-8.
+     *
+     * @param out stream for the SVG document; closed when this turtle is closed
+     * @param width image width in pixels, must be positive
+     * @param height image height in pixels, must be positive
+     * @throws IOException if the document header cannot be written
+     */
+    public SvgTurtle(OutputStream out, int width, int height) throws IOException {
+        this(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)), width, height);
+    }
+
+    @Override
+    public void forward(int units) {
+        double startX = cursor.x();
+        double startY = cursor.y();
+        cursor.forward(units);
+        try {
+            continuePath(startX, startY);
+            out.write(" L");
+            writePoint(cursor.x(), cursor.y());
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+        pathX = cursor.x();
+        pathY = cursor.y();
+    }
+
+    /**
+     * Move along an arc, written as SVG elliptical arc commands of at most
+     * ARC_PIECE_DEGREES each.
+     * 
+     * @see Turtle#arc(int, double)
+     */
+    @Override
+    public void arc(int radius, double degrees) {
+        if (radius <= 0) {
+            throw new IllegalArgumentException("radius must be positive");
+        }
+        if (degrees == 0) {
+            return;
+        }
+        double startX = cursor.x();
+        double startY = cursor.y();
+        CurveGeometry arc = cursor.arcGeometry(radius, degrees);
+        cursor.arc(radius, degrees);
+        // an SVG arc whose ends coincide draws nothing, so full circles need several pieces
+        int pieces = (int) Math.ceil(Math.abs(degrees) / ARC_PIECE_DEGREES);
+        try {
+            continuePath(startX, startY);
+            for (int k = 1; k <= pieces; k++) {
+                // counterclockwise in turtle coordinates is the positive-angle direction, sweep flag 1
+                out.write(" A " + radius + " " + radius + " 0 0 " + (degrees < 0 ? "1" : "0"));
+                if (k == pieces) {
+                    writePoint(cursor.x(), cursor.y());
+                } else {
+                    writePoint(arc.x((double) k / pieces), arc.y((double) k / pieces));
+                }
+            }
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+        pathX = cursor.x();
+        pathY = cursor.y();
+    }
+
+    /**
+     * Move along a cubic Bezier curve, written as an SVG cubic curve command.
+     * 
+     * @see Turtle#cubicCurve(int, int, int, int, int, int)
+     */
+    @Override
+    public void cubicCurve(int control1Ahead, int control1Right,
+                           int control2Ahead, int control2Right, int endAhead, int endRight) {
+        double startX = cursor.x();
+        double startY = cursor.y();
+        CurveGeometry curve = cursor.cubicGeometry(control1Ahead, control1Right,
+                control2Ahead, control2Right, endAhead, endRight);
+        cursor.cubicCurve(control1Ahead, control1Right, control2Ahead, control2Right, endAhead, endRight);
+        try {
+            continuePath(startX, startY);
+            out.write(" C");
+            writePoint(curve.pointX(1), curve.pointY(1));
+            writePoint(curve.pointX(2), curve.pointY(2));
+            writePoint(cursor.x(), cursor.y());
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+        pathX = cursor.x();
+        pathY = cursor.y();
+    }
+
+    /*
+     * Start a new path at a point unless the current path ends there in the current color.
+     */
+    private void continuePath(double startX, double startY) throws IOException {
+        if (!inPath || pathColor != cursor.color() || pathX != startX || pathY != startY) {
+            endPath();
+            Color color = PenColors.of(cursor.color());
+            out.write(String.format("<path stroke=\"#%02x%02x%02x\" d=\"M",
+                    color.getRed(), color.getGreen(), color.getBlue()));
+            writePoint(startX, startY);
+            inPath = true;
+            pathColor = cursor.color();
+        }
+    }
+
+    @Override
+    public void turn(double degrees) {
+        cursor.turn(degrees);
+    }
+
+    @Override
+    public void color(PenColor color) {
+        cursor.color(color);
+    }
+
+    /**
+     * Flush what has been drawn so far to the underlying writer.
+     */
+    @Override
+    public void draw() {
+        try {
+            out.flush();
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+    }
+
+    /**
+     * Finish the SVG document and close the writer.
+     *
+     * @throws IOException if the document cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            endPath();
+            out.write("</g>\n</svg>\n");
+        } finally {
+            out.close();
+        }
+    }
+
+    private void endPath() throws IOException {
+        if (inPath) {
+            out.write("\"/>\n");
+            inPath = false;
+        }
+    }
+
+    private void writePoint(double x, double y) throws IOException {
+        number.setLength(0);
+        number.append(' ');
+        appendCoordinate(x);
+        number.append(' ');
+        appendCoordinate(y);
+        out.append(number);
+    }
+
+    /*
+     * Append a coordinate in fixed-point notation, without trailing zeros,
+     * avoiding Double.toString's exponent notation.
+     */
+    private void appendCoordinate(double value) {
+        long scaled = Math.round(value * COORDINATE_SCALE);
+        if (scaled < 0) {
+            number.append('-');
+            scaled = -scaled;
+        }
+        number.append(scaled / COORDINATE_SCALE);
+        long fraction = scaled % COORDINATE_SCALE;
+        if (fraction != 0) {
+            number.append('.');
+            int digits = COORDINATE_DECIMALS;
+            while (fraction % 10 == 0) {
+                fraction /= 10;
+                digits--;
+            }
+            String text = Long.toString(fraction);
+            for (int i = text.length(); i < digits; i++) {
+                number.append('0');
+            }
+            number.append(text);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+public class SvgTurtleTest {
+
+    private static int count(String text, String pattern) {
+        int count = 0;
+        for (int i = text.indexOf(pattern); i >= 0; i = text.indexOf(pattern, i + 1)) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Tests that connected moves in one color become a single path.
+     */
+    @Test
+    public void mergedPathTest() throws IOException {
+        StringWriter out = new StringWriter();
+        try (SvgTurtle turtle = new SvgTurtle(out, 200, 100)) {
+            for (int i = 0; i < 4; i++) {
+                turtle.forward(10);
+                turtle.turn(90);
+            }
+        }
+        String svg = out.toString();
+        assertEquals(1, count(svg, "<path"));
+        assertTrue(svg, svg.contains("d=\"M 0 0 L 0 10 L 10 10 L 10 0 L 0 0\""));
+        assertTrue(svg.contains("viewBox=\"-100.0 -50.0 200 100\""));
+        assertTrue(svg.trim().endsWith("</svg>"));
+    }
+
+    /**
+     * Tests that a color change starts a new path and coordinates are written in fixed point.
+     */
+    @Test
+    public void colorChangeTest() throws IOException {
+        StringWriter out = new StringWriter();
+        try (SvgTurtle turtle = new SvgTurtle(out, 100, 100)) {
+            turtle.turn(30);
+            turtle.forward(10);
+            turtle.color(PenColor.RED);
+            turtle.forward(10);
+            turtle.color(PenColor.RED);
+            turtle.forward(1);
+        }
+        String svg = out.toString();
+        assertEquals(2, count(svg, "<path"));
+        assertTrue(svg, svg.contains("stroke=\"#ff0000\" d=\"M 5 8.66 L 10 17.321 L 10.5 18.187\""));
+    }
+
+    /**
+     * Tests that arcs and curves are written as SVG arc and curve commands.
+     */
+    @Test
+    public void curveTest() throws IOException {
+        StringWriter out = new StringWriter();
+        try (SvgTurtle turtle = new SvgTurtle(out, 100, 100)) {
+            turtle.arc(10, 180);
+            turtle.arc(10, -90);
+            turtle.cubicCurve(0, 10, 10, 10, 10, 0);
+        }
+        String svg = out.toString();
+        assertEquals(1, count(svg, "<path"));
+        assertTrue(svg, svg.contains("d=\"M 0 0 A 10 10 0 0 0 10 10 A 10 10 0 0 0 20 0"
+                + " A 10 10 0 0 1 30 -10 C 30 -20 40 -20 40 -10\""));
+    }
+}
@@ -0,0 +1,183 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+import java.awt.BasicStroke;
+import java.awt.Graphics2D;
+import java.awt.geom.Line2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Renders a drawing into a pyramid of image tiles for zoomable viewers.
+ *
+ * Level 0 is a single tile showing the whole drawing; each further level
+ * doubles the scale, so level z is a grid of 2^z by 2^z tiles. Tiles are
+ * written as directory/z/x/y.png, with x counted from the left and y from
+ * the top, as web map viewers expect. Tiles have a transparent background,
+ * and tiles that no segment crosses are not written at all.
+ *
+ * Only tiles inside written tiles of the level above are considered, and
+ * each tile draws only the segments a spatial index finds near it, so the
+ * work and the output grow with what is drawn rather than with the area.
+ * The tiles of each level are rendered in parallel.
+ */
+public class TilePyramid {
+
+    /** Side length of a tile in pixels. */
+    public static final int TILE_SIZE = 256;
+
+    /** Largest number of levels that can be written. */
+    public static final int MAX_LEVELS = 24;
+
+    private final SegmentGrid index;
+    // the pyramid covers the square [left, left + side] x [top - side, top] in turtle coordinates
+    private final double left;
+    private final double top;
+    private final double side;
+
+    /**
+     * Prepare to tile the segments currently in a store.
+     *
+     * @param segments segments to draw, in drawing order; segments added later are not drawn
+     */
+    public TilePyramid(SegmentStore segments) {
+        this.index = new SegmentGrid(segments);
+        if (segments.size() == 0) {
+            this.left = 0;
+            this.top = 0;
+            this.side = 1;
+        } else {
+            // leave a pixel of space around the drawing on level 0, so strokes at its edge are not cut
+            double extent = Math.max(1, Math.max(segments.maxX() - segments.minX(), segments.maxY() - segments.minY()));
+            this.side = extent * TILE_SIZE / (TILE_SIZE - 2);
+            this.left = (segments.minX() + segments.maxX() - side) / 2;
+            this.top = (segments.minY() + segments.maxY() + side) / 2;
+        }
+    }
+
+    /**
+     * @param level pyramid level, 0 <= level < MAX_LEVELS
+     * @return pixels per turtle step in the tiles of that level
+     */
+    public double pixelsPerStep(int level) {
+        return Math.scalb((double) TILE_SIZE, level) / side;
+    }
+
+    /**
+     * Render the top levels of the pyramid and write them to disk.
+     *
+     * @param directory directory to write the tiles under; created if needed
+     * @param levels number of levels to write, 1 <= levels <= MAX_LEVELS
+     * @return number of tiles written
+     * @throws IOException if a tile cannot be written
+     */
+    public long write(File directory, int levels) throws IOException {
+        if (levels < 1 || levels > MAX_LEVELS) {
+            throw new IllegalArgumentException("levels must be between 1 and " + MAX_LEVELS);
+        }
+        long written = 0;
+        // tiles of the current level that may have something in them, as packed (x, y) pairs
+        List<Long> candidates = new ArrayList<>();
+        if (index.size() > 0) {
+            candidates.add(tileKey(0, 0));
+        }
+        for (int level = 0; level < levels && !candidates.isEmpty(); level++) {
+            final int z = level;
+            List<Long> drawn;
+            try {
+                drawn = candidates.parallelStream()
+                        .filter(key -> writeTile(directory, z, tileX(key), tileY(key)))
+                        .collect(Collectors.toList());
+            } catch (UncheckedIOException uioe) {
+                throw uioe.getCause();
+            }
+            written += drawn.size();
+            candidates = new ArrayList<>(drawn.size() * 4);
+            for (long key : drawn) {
+                int x = tileX(key);
+                int y = tileY(key);
+                for (int child = 0; child < 4; child++) {
+                    candidates.add(tileKey(2 * x + (child & 1), 2 * y + (child >> 1)));
+                }
+            }
+        }
+        return written;
+    }
+
+    private static long tileKey(int x, int y) {
+        return ((long) x << 32) | (y & 0xffffffffL);
+    }
+
+    private static int tileX(long key) {
+        return (int) (key >>> 32);
+    }
+
+    private static int tileY(long key) {
+        return (int) key;
+    }
+
+    /*
+     * Render one tile and write it, unless no segment crosses it.
+     * Returns true iff the tile was written.
+     */
+    private boolean writeTile(File directory, int level, int x, int y) {
+        double scale = pixelsPerStep(level);
+        // pixel (0, 0) of the tile is at turtle point (tileLeft, tileTop);
+        // the query is widened by one pixel to catch strokes at the border
+        double tileLeft = left + x * TILE_SIZE / scale;
+        double tileTop = top - y * TILE_SIZE / scale;
+        double margin = 1 / scale;
+        int[] found = index.query(tileLeft - margin, tileTop - TILE_SIZE / scale - margin,
+                tileLeft + TILE_SIZE / scale + margin, tileTop + margin, index.size());
+
+        SegmentStore segments = index.segments();
+        Line2D.Double line = new Line2D.Double();
+        BufferedImage image = null;
+        Graphics2D graphics = null;
+        PenColor lastColor = null;
+        try {
+            for (int i : found) {
+                line.setLine((segments.startX(i) - tileLeft) * scale, (tileTop - segments.startY(i)) * scale,
+                        (segments.endX(i) - tileLeft) * scale, (tileTop - segments.endY(i)) * scale);
+                if (!line.intersects(-1, -1, TILE_SIZE + 2, TILE_SIZE + 2)) {
+                    continue;
+                }
+                if (graphics == null) {
+                    image = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_ARGB);
+                    graphics = image.createGraphics();
+                    graphics.setStroke(new BasicStroke(1.0f));
+                }
+                if (segments.color(i) != lastColor) {
+                    lastColor = segments.color(i);
+                    graphics.setPaint(PenColors.of(lastColor));
+                }
+                graphics.draw(line);
+            }
+        } finally {
+            if (graphics != null) {
+                graphics.dispose();
+            }
+        }
+        if (image == null) {
+            return false;
+        }
+
+        File column = new File(new File(directory, Integer.toString(level)), Integer.toString(x));
+        try {
+            if (!column.isDirectory() && !column.mkdirs() && !column.isDirectory()) {
+                throw new IOException("cannot create directory " + column);
+            }
+            TurtleRenderer.writePng(image, new File(column, y + ".png"));
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,82 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+import static org.junit.Assert.*;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Test;
+
+public class TilePyramidTest {
+
+    /*
+     * Create an empty directory that is deleted, with its tiles, when the JVM exits.
+     */
+    private static File tempDirectory() throws IOException {
+        File directory = Files.createTempDirectory("tiles").toFile();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> delete(directory)));
+        return directory;
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    /**
+     * Tests that a horizontal line only produces tiles along it.
+     */
+    @Test
+    public void skipsEmptyTilesTest() throws IOException {
+        SegmentStore store = new SegmentStore();
+        store.add(0, 0, 1000, 0, PenColor.RED);
+        store.add(0, 1000, 0, 1000, PenColor.RED); // a point, to make the drawing square
+        File directory = tempDirectory();
+
+        // the line runs along the bottom row of tiles, and the point is in the top-left tile
+        long written = new TilePyramid(store).write(directory, 4);
+        assertEquals(1 + (2 + 1) + (4 + 1) + (8 + 1), written);
+        assertTrue(new File(directory, "3/5/7.png").isFile());
+        assertFalse(new File(directory, "3/5/6.png").exists());
+
+        BufferedImage top = ImageIO.read(new File(directory, "0/0/0.png"));
+        assertEquals(TilePyramid.TILE_SIZE, top.getWidth());
+        assertEquals(0, top.getRGB(128, 128) >>> 24); // transparent where nothing is drawn
+        assertEquals(0xffff0000, top.getRGB(128, 255));
+    }
+
+    /**
+     * Tests that level 0 fits the drawing in one tile and each level doubles the scale.
+     */
+    @Test
+    public void levelScaleTest() {
+        SegmentStore store = new SegmentStore();
+        store.add(0, 0, 512, 512, PenColor.BLACK);
+        TilePyramid pyramid = new TilePyramid(store);
+        assertTrue(512 * pyramid.pixelsPerStep(0) <= TilePyramid.TILE_SIZE);
+        assertTrue(512 * pyramid.pixelsPerStep(0) > TilePyramid.TILE_SIZE - 4);
+        assertEquals(8 * pyramid.pixelsPerStep(0), pyramid.pixelsPerStep(3), 1e-12);
+    }
+
+    /**
+     * Tests that an empty drawing writes no tiles.
+     */
+    @Test
+    public void emptyDrawingTest() throws IOException {
+        File directory = tempDirectory();
+        assertEquals(0, new TilePyramid(new SegmentStore()).write(directory, 3));
+        assertEquals(0, directory.list().length);
+    }
+}
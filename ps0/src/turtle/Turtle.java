@@ -10,7 +10,10 @@ package turtle;
  * standard directions/rotations use Logo semantics: initial heading
  * of zero is 'up', and positive angles rotate the turtle clockwise.
  * 
- * You may not modify this interface.
+ * You may not modify this interface. The polyline, regularPolygon, arc and
+ * cubicCurve operations are default methods built from the others, so a
+ * turtle only needs to implement them if it can draw them more efficiently
+ * or, for the curves, more accurately.
  */
 public interface Turtle {
 
@@ -35,6 +38,121 @@ public interface Turtle {
      */
     public void color(PenColor color);
 
+    /**
+     * Draw a sequence of connected moves: for each i in order, move forward
+     * steps[i] and then turn turns[i] degrees clockwise.
+     * 
+     * @param steps number of steps of each move; each must be positive
+     * @param turns change in heading after each move, in degrees clockwise;
+     *              must have the same length as steps
+     */
+    public default void polyline(int[] steps, double[] turns) {
+        if (steps.length != turns.length) {
+            throw new IllegalArgumentException("steps and turns must have the same length");
+        }
+        for (int i = 0; i < steps.length; i++) {
+            forward(steps[i]);
+            turn(turns[i]);
+        }
+    }
+
+    /**
+     * Draw a regular polygon clockwise from the current position and heading,
+     * ending where it started with the same heading: move forward sideLength
+     * and turn 360/sides degrees clockwise, sides times.
+     * 
+     * @param sides number of sides; must be at least 3
+     * @param sideLength length of each side in steps; must be positive
+     */
+    public default void regularPolygon(int sides, int sideLength) {
+        if (sides < 3) {
+            throw new IllegalArgumentException("a polygon needs at least 3 sides");
+        }
+        double exteriorAngle = 360.0 / sides;
+        for (int i = 0; i < sides; i++) {
+            forward(sideLength);
+            turn(exteriorAngle);
+        }
+    }
+
+    /**
+     * Move along a circular arc that starts in the current direction, turning
+     * by a number of degrees as it curves: to the right, around a center
+     * radius steps to the right, if degrees is positive, and to the left otherwise.
+     * 
+     * The default implementation moves along chords of the arc, each between
+     * two half turns. Since moves are whole steps, the chords are rounded, so
+     * the turtle ends near the end of the arc rather than exactly on it.
+     * 
+     * @param radius radius of the arc in steps; must be positive
+     * @param degrees change in heading along the arc, with positive being clockwise
+     */
+    public default void arc(int radius, double degrees) {
+        if (radius <= 0) {
+            throw new IllegalArgumentException("radius must be positive");
+        }
+        if (degrees == 0) {
+            return;
+        }
+        // chords of at most 10 degrees, but at least about a step long
+        double arcLength = radius * Math.toRadians(Math.abs(degrees));
+        int pieces = (int) Math.max(1, Math.min(Math.ceil(Math.abs(degrees) / 10), Math.floor(arcLength)));
+        double piece = degrees / pieces;
+        int chord = (int) Math.max(1, Math.round(2 * radius * Math.sin(Math.toRadians(Math.abs(piece)) / 2)));
+        for (int i = 0; i < pieces; i++) {
+            turn(piece / 2);
+            forward(chord);
+            turn(piece / 2);
+        }
+    }
+
+    /**
+     * Move along a cubic Bezier curve and turn to face along it where it ends.
+     * Points are given relative to the turtle's current position and heading,
+     * as a number of steps ahead (negative for behind) and a number of steps to
+     * the right (negative for the left).
+     * 
+     * The default implementation moves in straight lines between points on
+     * the curve. Since moves are whole steps, the turtle ends near the end of
+     * the curve rather than exactly on it.
+     * 
+     * @param control1Ahead steps ahead of the first control point
+     * @param control1Right steps to the right of the first control point
+     * @param control2Ahead steps ahead of the second control point
+     * @param control2Right steps to the right of the second control point
+     * @param endAhead steps ahead of the end point
+     * @param endRight steps to the right of the end point
+     */
+    public default void cubicCurve(int control1Ahead, int control1Right,
+                                   int control2Ahead, int control2Right, int endAhead, int endRight) {
+        // work in the turtle's own frame: x is steps ahead, y is steps to the right
+        CurveGeometry curve = CurveGeometry.cubic(0, 0, control1Ahead, control1Right,
+                control2Ahead, control2Right, endAhead, endRight);
+        double outline = Math.hypot(control1Ahead, control1Right)
+                + Math.hypot(control2Ahead - control1Ahead, control2Right - control1Right)
+                + Math.hypot(endAhead - control2Ahead, endRight - control2Right);
+        int pieces = (int) Math.max(1, Math.min(32, Math.ceil(outline / 8)));
+        double ahead = 0;
+        double right = 0;
+        double heading = 0;
+        for (int k = 1; k <= pieces; k++) {
+            double dx = curve.x((double) k / pieces) - ahead;
+            double dy = curve.y((double) k / pieces) - right;
+            int steps = (int) Math.round(Math.hypot(dx, dy));
+            if (steps == 0) {
+                continue;
+            }
+            double direction = Math.toDegrees(Math.atan2(dy, dx));
+            turn(direction - heading);
+            forward(steps);
+            heading = direction;
+            ahead += steps * Math.cos(Math.toRadians(direction));
+            right += steps * Math.sin(Math.toRadians(direction));
+        }
+        turn(TurtleCursor.endTangent(control1Ahead, control1Right, control2Ahead, control2Right,
+                endAhead, endRight) - heading);
+    }
+
     /**
      * Draw the image created by this turtle.
      */
@@ -0,0 +1,259 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+/**
+ * Mutable position, heading and pen color of a turtle.
+ *
+ * Every turtle in this package moves with a cursor, so that the same sequence
+ * of moves produces exactly the same coordinates whichever turtle draws it,
+ * and a drawing can be replayed from any saved cursor state.
+ */
+class TurtleCursor {
+
+    private static final int CIRCLE_DEGREES = 360;
+    private static final int TABLE_STEP_DEGREES = 15;
+    private static final int TABLE_STEPS_PER_QUADRANT = 6;
+
+    // exact sines of 0, 15, 30, ..., 90 degrees, so that headings on this grid
+    // (in particular the axis-aligned ones) move the turtle without drift
+    private static final double[] SINE_TABLE = {
+        0.0,
+        (Math.sqrt(6) - Math.sqrt(2)) / 4,
+        0.5,
+        Math.sqrt(2) / 2,
+        Math.sqrt(3) / 2,
+        (Math.sqrt(6) + Math.sqrt(2)) / 4,
+        1.0,
+    };
+
+    private double x;
+    private double y;
+    private double heading;
+    private double directionX;
+    private double directionY;
+    private PenColor color;
+
+    /**
+     * Create a cursor at the origin, facing up, with a black pen.
+     */
+    TurtleCursor() {
+        this(0.0, 0.0, 0.0, PenColor.BLACK);
+    }
+
+    /**
+     * Create a cursor in a given state.
+     *
+     * @param x x-coordinate
+     * @param y y-coordinate
+     * @param heading heading in degrees clockwise from north, 0 <= heading < 360
+     * @param color pen color
+     */
+    TurtleCursor(double x, double y, double heading, PenColor color) {
+        this.x = x;
+        this.y = y;
+        this.heading = heading;
+        this.color = color;
+        updateDirection();
+    }
+
+    /**
+     * @return a new cursor in the same state as this one
+     */
+    TurtleCursor copy() {
+        return new TurtleCursor(x, y, heading, color);
+    }
+
+    /**
+     * @return x-coordinate of the current position
+     */
+    double x() {
+        return x;
+    }
+
+    /**
+     * @return y-coordinate of the current position
+     */
+    double y() {
+        return y;
+    }
+
+    /**
+     * @return current heading in degrees clockwise from north, 0 <= heading < 360
+     */
+    double heading() {
+        return heading;
+    }
+
+    /**
+     * @return current pen color
+     */
+    PenColor color() {
+        return color;
+    }
+
+    /**
+     * @param degrees an angle in degrees
+     * @return the same angle, 0 <= angle < 360
+     */
+    static double normalize(double degrees) {
+        if (degrees >= 0 && degrees < CIRCLE_DEGREES) {
+            return degrees;
+        }
+        return (degrees % CIRCLE_DEGREES + CIRCLE_DEGREES) % CIRCLE_DEGREES;
+    }
+
+    /**
+     * Move forward along the current heading.
+     *
+     * @param steps distance to move
+     */
+    void forward(double steps) {
+        x += directionX * steps;
+        y += directionY * steps;
+    }
+
+    /**
+     * @param radius radius of an arc, must be positive
+     * @param degrees change in heading along the arc, clockwise if positive
+     * @return the arc from the current position that turns by degrees, with
+     *         its center to the right of the heading for a clockwise arc and to the left otherwise
+     */
+    CurveGeometry arcGeometry(double radius, double degrees) {
+        double side = degrees >= 0 ? radius : -radius;
+        double centerX = x + directionY * side;
+        double centerY = y - directionX * side;
+        return CurveGeometry.arc(centerX, centerY, radius, Math.atan2(y - centerY, x - centerX),
+                -Math.toRadians(degrees));
+    }
+
+    /**
+     * Move along an arc, turning as it curves.
+     *
+     * @param radius radius of the arc, must be positive
+     * @param degrees change in heading along the arc, clockwise if positive
+     */
+    void arc(double radius, double degrees) {
+        CurveGeometry arc = arcGeometry(radius, degrees);
+        x = arc.x(1);
+        y = arc.y(1);
+        turn(degrees);
+    }
+
+    /**
+     * Points of a cubic Bezier curve are given relative to the current
+     * position, as steps ahead along the heading and steps to the right of it.
+     *
+     * @return the cubic Bezier curve from the current position with the given
+     *         control points and end point
+     */
+    CurveGeometry cubicGeometry(double control1Ahead, double control1Right,
+                                double control2Ahead, double control2Right, double endAhead, double endRight) {
+        return CurveGeometry.cubic(x, y,
+                x + directionX * control1Ahead + directionY * control1Right,
+                y + directionY * control1Ahead - directionX * control1Right,
+                x + directionX * control2Ahead + directionY * control2Right,
+                y + directionY * control2Ahead - directionX * control2Right,
+                x + directionX * endAhead + directionY * endRight,
+                y + directionY * endAhead - directionX * endRight);
+    }
+
+    /**
+     * Move along a cubic Bezier curve, given as in cubicGeometry, and turn to
+     * face along the curve where it ends.
+     */
+    void cubicCurve(double control1Ahead, double control1Right,
+                    double control2Ahead, double control2Right, double endAhead, double endRight) {
+        CurveGeometry curve = cubicGeometry(control1Ahead, control1Right,
+                control2Ahead, control2Right, endAhead, endRight);
+        x = curve.x(1);
+        y = curve.y(1);
+        turn(endTangent(control1Ahead, control1Right, control2Ahead, control2Right, endAhead, endRight));
+    }
+
+    /**
+     * @return direction in which a cubic Bezier curve, given relative to a
+     *         turtle as in cubicGeometry, ends, in degrees clockwise from the
+     *         turtle's heading; 0 if all its points coincide
+     */
+    static double endTangent(double control1Ahead, double control1Right,
+                             double control2Ahead, double control2Right, double endAhead, double endRight) {
+        // the end tangent points from the last control point that differs from the end
+        double[] aheads = { control2Ahead, control1Ahead, 0 };
+        double[] rights = { control2Right, control1Right, 0 };
+        for (int i = 0; i < aheads.length; i++) {
+            if (aheads[i] != endAhead || rights[i] != endRight) {
+                return Math.toDegrees(Math.atan2(endRight - rights[i], endAhead - aheads[i]));
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Round the current position to the nearest multiple of 1/scale in each coordinate.
+     *
+     * @param scale number of grid points per step, a power of 2 so that the
+     *              rounded coordinates are exact
+     */
+    void snap(int scale) {
+        // adding 0.0 turns -0.0 into 0.0, so equal positions have equal bits
+        x = Math.rint(x * scale) / scale + 0.0;
+        y = Math.rint(y * scale) / scale + 0.0;
+    }
+
+    /**
+     * Change the heading clockwise.
+     *
+     * @param degrees change in heading
+     * @return the change actually applied, normalized so 0 <= change < 360
+     */
+    double turn(double degrees) {
+        degrees = normalize(degrees);
+        heading = (heading + degrees) % CIRCLE_DEGREES;
+        updateDirection();
+        return degrees;
+    }
+
+    /**
+     * @param color new pen color
+     */
+    void color(PenColor color) {
+        this.color = color;
+    }
+
+    /*
+     * Recompute the unit vector of the current heading. Headings are clockwise
+     * from north, so the vector is (sin heading, cos heading).
+     */
+    private void updateDirection() {
+        if (heading % TABLE_STEP_DEGREES == 0) {
+            int step = (int) (heading / TABLE_STEP_DEGREES);
+            int quadrant = step / TABLE_STEPS_PER_QUADRANT;
+            double sin = SINE_TABLE[step % TABLE_STEPS_PER_QUADRANT];
+            double cos = SINE_TABLE[TABLE_STEPS_PER_QUADRANT - step % TABLE_STEPS_PER_QUADRANT];
+            switch (quadrant) {
+            case 0:
+                directionX = sin;
+                directionY = cos;
+                break;
+            case 1:
+                directionX = cos;
+                directionY = -sin;
+                break;
+            case 2:
+                directionX = -sin;
+                directionY = -cos;
+                break;
+            default:
+                directionX = -cos;
+                directionY = sin;
+                break;
+            }
+        } else {
+            double radians = Math.toRadians(heading);
+            directionX = Math.sin(radians);
+            directionY = Math.cos(radians);
+        }
+    }
+}
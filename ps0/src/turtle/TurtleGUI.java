@@ -3,16 +3,26 @@
  */
 package turtle;
 
-import java.awt.BasicStroke;
-import java.awt.Color;
 import java.awt.Container;
-import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.awt.image.BufferedImage;
-import java.util.EnumMap;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.lang.management.ManagementFactory;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 import javax.swing.GroupLayout;
 import javax.swing.GroupLayout.Alignment;
@@ -20,39 +30,59 @@ import javax.swing.ImageIcon;
 import javax.swing.JButton;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
-import javax.swing.SwingWorker;
-
-import turtle.Action.ActionType;
+import javax.swing.JSlider;
+import javax.swing.SwingUtilities;
 
 /**
  * Displays turtle graphics in a window on the screen.
+ * 
+ * The view starts out fitted to the whole drawing, can be zoomed with the
+ * mouse wheel, panned by dragging, and reset by double-clicking. Redrawing
+ * the view only draws the segments that cross it, found with a spatial
+ * index, and when those are much denser than the pixels they cover it draws
+ * simplified polylines instead.
+ * 
+ * Arcs and curves are animated along their length and drawn as Arc2D and
+ * CubicCurve2D shapes; redrawing the view draws the chords they are stored as.
+ * 
+ * The slider under the canvas seeks to any action. Snapshots of the canvas
+ * are checkpointed every CHECKPOINT_INTERVAL actions as the animation or a
+ * seek passes them, so a seek restores the nearest snapshot before its
+ * target, or carries on from the canvas when seeking forward past no
+ * snapshot, and draws only the visible parts of the actions after it. Run
+ * plays on from the slider's position, or from the start once the drawing
+ * is finished.
+ * 
+ * Each animation frame is measured in the window's AnimationMetrics, which
+ * is also registered with the platform MBean server while the window is open.
  */
 public class TurtleGUI extends JFrame {
 
     private static final long serialVersionUID = 1L;
 
-    private static final Color CANVAS_BG_COLOR = Color.WHITE;
-    private static final Map<PenColor, Color> PEN_COLORS = new EnumMap<>(PenColor.class);
-    static {
-        PEN_COLORS.put(PenColor.BLACK, Color.BLACK);
-        PEN_COLORS.put(PenColor.GRAY, Color.GRAY);
-        PEN_COLORS.put(PenColor.RED, Color.RED);
-        PEN_COLORS.put(PenColor.PINK, Color.PINK);
-        PEN_COLORS.put(PenColor.ORANGE, Color.ORANGE);
-        PEN_COLORS.put(PenColor.YELLOW, new Color(228, 228, 0));
-        PEN_COLORS.put(PenColor.GREEN, Color.GREEN);
-        PEN_COLORS.put(PenColor.CYAN, Color.CYAN);
-        PEN_COLORS.put(PenColor.BLUE, Color.BLUE);
-        PEN_COLORS.put(PenColor.MAGENTA, Color.MAGENTA);
-    }
-
-    private static final double LENGTH_OF_A_TURN = 20;
-    private static final long MILLIS_PER_DRAWING = 5000;
     private static final double ROUGH_FPS = 60;
 
-    private static final long MILLIS_PER_FRAME = (long) (1000.0 / ROUGH_FPS);
+    private static final int MILLIS_PER_FRAME = (int) (1000.0 / ROUGH_FPS);
+
+    // time a frame may spend drawing, leaving the rest of the frame for repainting
+    private static final long DRAW_NANOS_PER_FRAME = MILLIS_PER_FRAME * 1_000_000L * 3 / 4;
 
-    private final List<Action> actionList;
+    private static final double ZOOM_PER_WHEEL_NOTCH = 1.25;
+    private static final double MIN_ZOOM = 1.0 / 64;
+    private static final double MAX_ZOOM = 4096;
+
+    // canvas snapshots are taken every this many actions, and kept in this
+    // much memory uncompressed and this much compressed
+    private static final int CHECKPOINT_INTERVAL = 4096;
+    private static final long MAX_SNAPSHOT_BYTES = 64L << 20;
+    private static final long MAX_COMPRESSED_SNAPSHOT_BYTES = 64L << 20;
+
+    // numbers the windows, to give each one's metrics a distinct MBean name
+    private static final AtomicInteger windowsOpened = new AtomicInteger();
+
+    private final AnimationSchedule schedule;
+    private final AnimationMetrics metrics = new AnimationMetrics(MILLIS_PER_FRAME);
+    private final FramePainter painter;
 
     private final int canvasWidth;
     private final int canvasHeight;
@@ -60,14 +90,18 @@ public class TurtleGUI extends JFrame {
     private final int originX;
     private final int originY;
 
+    // view the window opens with, restored by a double-click
+    private final Viewport homeView;
+
     private boolean isRunning;
+    private Animation animation;
+    private boolean updatingSlider; // true while the program, not the user, moves the slider
 
     private final JButton runButton = new JButton();
     private final JLabel currentActionLabel = new JLabel();
     private final JLabel currentAction = new JLabel();
     private final JLabel drawLabel;
-    private final BufferedImage canvas;
-    private final Graphics2D graphics;
+    private final JSlider timeline;
 
     /**
      * Construct a new turtle graphics window.
@@ -79,13 +113,17 @@ public class TurtleGUI extends JFrame {
     public TurtleGUI(List<Action> actionList, int canvasWidth, int canvasHeight) {
         super("TurtleGUI");
 
-        this.actionList = actionList;
+        this.schedule = new AnimationSchedule(actionList);
         this.canvasWidth = canvasWidth;
         this.canvasHeight = canvasHeight;
         this.originX = (canvasWidth - 1) / 2;
         this.originY = (canvasHeight - 1) / 2;
+        this.homeView = Viewport.fit(schedule.segments(), canvasWidth, canvasHeight, 1.0);
+        this.painter = new FramePainter(schedule, canvasWidth, canvasHeight, homeView,
+                new CanvasCheckpoints(CHECKPOINT_INTERVAL, MAX_SNAPSHOT_BYTES, MAX_COMPRESSED_SNAPSHOT_BYTES));
 
-        this.setDefaultCloseOperation(EXIT_ON_CLOSE);
+        // dispose rather than exit, so the window's closed event is delivered
+        this.setDefaultCloseOperation(DISPOSE_ON_CLOSE);
         Container cp = this.getContentPane();
         GroupLayout layout = new GroupLayout(cp);
         cp.setLayout(layout);
@@ -94,40 +132,60 @@ public class TurtleGUI extends JFrame {
 
         currentActionLabel.setText("Currently performing: ");
 
-        canvas = new BufferedImage(canvasWidth, canvasHeight, BufferedImage.TYPE_INT_RGB);
-        graphics = canvas.createGraphics();
-        graphics.setBackground(CANVAS_BG_COLOR);
-        graphics.clearRect(0, 0, canvasWidth, canvasHeight);
-        graphics.setStroke(new BasicStroke(1.0f));
-
-        drawLabel = new JLabel(new ImageIcon(canvas));
+        drawLabel = new JLabel(new ImageIcon(painter.canvas()));
+        MouseAdapter viewListener = new ViewListener();
+        drawLabel.addMouseListener(viewListener);
+        drawLabel.addMouseMotionListener(viewListener);
+        drawLabel.addMouseWheelListener(viewListener);
+
+        timeline = new JSlider(0, schedule.size(), 0);
+        timeline.addChangeListener(e -> {
+            if (!updatingSlider) {
+                if (isRunning) {
+                    animation.stop();
+                    stoppedAnimation();
+                }
+                seek(timeline.getValue());
+            }
+        });
 
         stoppedAnimation(); // initialize interface elements
+        registerMetrics();
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                if (isRunning) {
+                    animation.stop();
+                    stoppedAnimation();
+                }
+            }
+        });
 
         runButton.addActionListener(new ActionListener() {
             
-            private AnimationThread animationThread;
-            
             public void actionPerformed(ActionEvent e) {
                 if (!isRunning) {
                     runButton.setText("Stop");
                     isRunning = true;
-                    animationThread = new AnimationThread();
-                    animationThread.execute();
+                    animation = new Animation();
+                    animation.start();
                 } else {
-                    animationThread.cancel(true);
+                    animation.stop();
+                    stoppedAnimation();
                 }
             }
         });
 
         layout.setHorizontalGroup(layout.createParallelGroup()
                 .addComponent(drawLabel)
+                .addComponent(timeline)
                 .addGroup(layout.createSequentialGroup()
                         .addComponent(runButton)
                         .addComponent(currentActionLabel)
                         .addComponent(currentAction)));
         layout.setVerticalGroup(layout.createSequentialGroup()
                 .addComponent(drawLabel)
+                .addComponent(timeline)
                 .addGroup(layout.createParallelGroup(Alignment.CENTER)
                         .addComponent(runButton)
                         .addComponent(currentActionLabel)
@@ -136,6 +194,38 @@ public class TurtleGUI extends JFrame {
         pack();
     }
 
+    /**
+     * @return measurements of this window's animation frames
+     */
+    public AnimationMetrics metrics() {
+        return metrics;
+    }
+
+    /*
+     * Make the metrics visible over JMX while the window is open. The
+     * animation does not depend on them, so a failure to register is ignored.
+     */
+    private void registerMetrics() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName name;
+        try {
+            name = new ObjectName("turtle:type=AnimationMetrics,window=" + windowsOpened.incrementAndGet());
+            server.registerMBean(metrics, name);
+        } catch (JMException jme) {
+            return;
+        }
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                try {
+                    server.unregisterMBean(name);
+                } catch (JMException jme) {
+                    // already unregistered
+                }
+            }
+        });
+    }
+
     private void stoppedAnimation() {
         currentAction.setText("STOPPED");
         isRunning = false;
@@ -146,101 +236,156 @@ public class TurtleGUI extends JFrame {
         currentAction.setText(s);
     }
 
-    private class AnimationThread extends SwingWorker<Void, Void> {
+    private void showProgress() {
+        int nextAction = painter.nextAction();
+        if (nextAction < schedule.size()) {
+            showCurrentAction((nextAction + 1) + ". " + schedule.actions().get(nextAction));
+        }
+        updatingSlider = true;
+        timeline.setValue(nextAction);
+        updatingSlider = false;
+    }
 
-        @Override
-        protected Void doInBackground() {
-            animate();
-            return null;
+    /*
+     * Show the drawing as it is just before an action.
+     */
+    private void seek(int action) {
+        painter.seek(action);
+        repaintCanvas();
+        if (action < schedule.size()) {
+            showCurrentAction((action + 1) + ". " + schedule.actions().get(action));
         }
+    }
 
-        private void animate() {
-            graphics.clearRect(0, 0, canvasWidth, canvasHeight);
-            drawLabel.repaint();
+    /*
+     * Repaint the whole canvas.
+     */
+    private void repaintCanvas() {
+        painter.takeDirtyArea();
+        drawLabel.repaint();
+    }
 
-            // first calculate the total length of line segments and turns,
-            // in order to allocate draw time proportionally
+    /*
+     * Repaint only the part of the canvas drawn on since the last repaint.
+     */
+    private void repaintDirtyArea() {
+        Rectangle area = painter.takeDirtyArea();
+        if (area != null) {
+            // the canvas icon is centered in its label
+            int offsetX = (drawLabel.getWidth() - canvasWidth) / 2;
+            int offsetY = (drawLabel.getHeight() - canvasHeight) / 2;
+            drawLabel.repaint(offsetX + area.x, offsetY + area.y, area.width, area.height);
+        }
+    }
 
-            double totalLength = 0;
-            for (Action a : actionList) {
-                if (a.type() == ActionType.TURN) {
-                    totalLength += LENGTH_OF_A_TURN;
-                } else if (a.type() == ActionType.FORWARD) {
-                    totalLength += a.lineSegment().length();
-                }
-            }
+    /*
+     * Redraw the canvas for the current view.
+     */
+    private void redrawView() {
+        painter.redraw();
+        repaintCanvas();
+    }
 
-            // now draw the animation
+    /*
+     * Zooms around the mouse pointer, pans on drag, and resets the view on double-click.
+     */
+    private class ViewListener extends MouseAdapter {
 
-            double cumulativeLength = 0;
-            long initialTime = System.currentTimeMillis();
-            for (int i = 0; i < actionList.size(); i++) {
-                if (isCancelled()) {
-                    break;
-                }
-                Action action = actionList.get(i);
-                showCurrentAction((i + 1) + ". " + action);
-                if (action.lineSegment() != null) {
-                    long startTime = (long) (initialTime + cumulativeLength / totalLength * MILLIS_PER_DRAWING);
-                    cumulativeLength += action.lineSegment().length();
-                    long endTime = (long) (initialTime + cumulativeLength / totalLength * MILLIS_PER_DRAWING);
-                    draw(action.lineSegment(), startTime, endTime);
-                } else {
-                    cumulativeLength += LENGTH_OF_A_TURN;
-                    double drawTime = (initialTime + cumulativeLength / totalLength * MILLIS_PER_DRAWING - System.currentTimeMillis());
-                    if (drawTime > 0) {
-                        try {
-                            Thread.sleep((long) drawTime);
-                        } catch (InterruptedException ie) {
-                        }
-                    }
-                }
-            }
-            stoppedAnimation();
-        }
+        private int lastX;
+        private int lastY;
 
-        private void draw(LineSegment lineSeg, long initialTime, long endTime) {
-            long drawTime = endTime - initialTime;
+        @Override
+        public void mouseWheelMoved(MouseWheelEvent e) {
+            double zoom = painter.zoom();
+            double newZoom = zoom * Math.pow(ZOOM_PER_WHEEL_NOTCH, -e.getPreciseWheelRotation());
+            newZoom = Math.max(Math.min(MIN_ZOOM, homeView.scale), Math.min(MAX_ZOOM, newZoom));
+            // keep the turtle point under the pointer in place
+            double pointerX = painter.centerX() + (e.getX() - originX) / zoom;
+            double pointerY = painter.centerY() - (e.getY() - originY) / zoom;
+            painter.setView(newZoom,
+                    pointerX - (e.getX() - originX) / newZoom,
+                    pointerY + (e.getY() - originY) / newZoom);
+            redrawView();
+        }
 
-            double initX = originX + lineSeg.start().x();
-            double initY = originY - lineSeg.start().y();
+        @Override
+        public void mousePressed(MouseEvent e) {
+            lastX = e.getX();
+            lastY = e.getY();
+        }
 
-            double finalX = originX + lineSeg.end().x();
-            double finalY = originY - lineSeg.end().y();
+        @Override
+        public void mouseDragged(MouseEvent e) {
+            double zoom = painter.zoom();
+            painter.setView(zoom,
+                    painter.centerX() - (e.getX() - lastX) / zoom,
+                    painter.centerY() + (e.getY() - lastY) / zoom);
+            lastX = e.getX();
+            lastY = e.getY();
+            redrawView();
+        }
 
-            int fromX = (int) initX;
-            int fromY = (int) initY;
+        @Override
+        public void mouseClicked(MouseEvent e) {
+            if (e.getClickCount() == 2) {
+                painter.setView(homeView.scale, homeView.centerX, homeView.centerY);
+                redrawView();
+            }
+        }
+    }
 
-            boolean abort = false;
-            long elapsedTime = System.currentTimeMillis() - initialTime;
+    /*
+     * Plays the animation one frame at a time on the event dispatch thread.
+     * A timer thread posts each frame there, stamped with the time it was
+     * posted, so the frame can measure how long it waited in the event queue.
+     * No frame is posted while the previous one is still queued or running.
+     */
+    private class Animation {
 
-            graphics.setPaint(PEN_COLORS.getOrDefault(lineSeg.color(), Color.BLACK));
+        private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "turtle animation timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        private final AtomicBoolean framePending = new AtomicBoolean();
+        private final AnimationPlayer player;
+        private boolean stopped; // only used on the event dispatch thread
 
-            while (!abort && elapsedTime + MILLIS_PER_FRAME < drawTime) {
-                // while we have time remaining for this action
-                double fractionDone = Math.max(elapsedTime * 1.0 / drawTime, 0);
-                int toX = (int) Math.round(initX * (1 - fractionDone) + finalX * fractionDone);
-                int toY = (int) Math.round(initY * (1 - fractionDone) + finalY * fractionDone);
-                graphics.drawLine(fromX, fromY, toX, toY);
-                drawLabel.repaint();
+        Animation() {
+            if (painter.isFinished()) {
+                seek(0);
+            }
+            this.player = new AnimationPlayer(painter, metrics, DRAW_NANOS_PER_FRAME, System::nanoTime);
+        }
 
-                try {
-                    Thread.sleep(MILLIS_PER_FRAME);
-                } catch (InterruptedException ie) {
-                    abort = true;
-                }
+        void start() {
+            timer.scheduleAtFixedRate(this::postFrame, MILLIS_PER_FRAME, MILLIS_PER_FRAME, TimeUnit.MILLISECONDS);
+        }
 
-                // update
-                fromX = toX;
-                fromY = toY;
+        void stop() {
+            stopped = true;
+            timer.shutdownNow();
+        }
 
-                elapsedTime = System.currentTimeMillis() - initialTime;
+        /*
+         * Runs on the timer thread.
+         */
+        private void postFrame() {
+            if (framePending.compareAndSet(false, true)) {
+                long postedNanos = System.nanoTime();
+                SwingUtilities.invokeLater(() -> frame(postedNanos));
             }
+        }
 
-            // finish the line if we're still not done
-            if (!abort && (fromX != finalX || fromY != finalY)) {
-                graphics.drawLine(fromX, fromY, (int) finalX, (int) finalY);
-                drawLabel.repaint();
+        private void frame(long postedNanos) {
+            try {
+                if (!stopped && !player.frame(postedNanos, TurtleGUI.this::repaintDirtyArea,
+                        TurtleGUI.this::showProgress)) {
+                    stop();
+                    stoppedAnimation();
+                }
+            } finally {
+                framePending.set(false);
             }
         }
     }
@@ -0,0 +1,164 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.geom.Line2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.stream.IntStream;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Renders turtle drawings to images without a screen.
+ * 
+ * The canvas is split into square tiles which are rasterized in parallel, so
+ * rendering needs neither Swing nor the real-time animation of TurtleGUI.
+ * When there are several tiles, the segments are indexed with a SegmentGrid
+ * and each tile draws only those that cross it.
+ * As in TurtleGUI, y increases upward, and unless another center is given
+ * the turtle origin is at the center of the image.
+ */
+public class TurtleRenderer {
+
+    /** Side length in pixels of the tiles rendered in parallel. */
+    public static final int TILE_SIZE = 256;
+
+    private static final Color CANVAS_BG_COLOR = Color.WHITE;
+
+    private TurtleRenderer() {
+    }
+
+    /**
+     * Render line segments to a new image.
+     * 
+     * @param segments segments to draw, in drawing order; must not be modified while rendering
+     * @param width image width in pixels, must be positive
+     * @param height image height in pixels, must be positive
+     * @param scale pixels per turtle step, must be positive
+     * @return RGB image of the segments
+     */
+    public static BufferedImage render(SegmentStore segments, int width, int height, double scale) {
+        return render(segments, width, height, scale, 0, 0);
+    }
+
+    /**
+     * Render line segments to a new image, with a given turtle point at its center.
+     * 
+     * @param segments segments to draw, in drawing order; must not be modified while rendering
+     * @param width image width in pixels, must be positive
+     * @param height image height in pixels, must be positive
+     * @param scale pixels per turtle step, must be positive
+     * @param centerX x-coordinate of the turtle point drawn at the center of the image
+     * @param centerY y-coordinate of the turtle point drawn at the center of the image
+     * @return RGB image of the segments
+     */
+    public static BufferedImage render(SegmentStore segments, int width, int height, double scale,
+                                       double centerX, double centerY) {
+        if (width <= 0 || height <= 0 || !(scale > 0)) {
+            throw new IllegalArgumentException("invalid image size or scale");
+        }
+        final BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        final double originX = (width - 1) / 2.0 - centerX * scale;
+        final double originY = (height - 1) / 2.0 + centerY * scale;
+        final int tilesAcross = (width + TILE_SIZE - 1) / TILE_SIZE;
+        final int tilesDown = (height + TILE_SIZE - 1) / TILE_SIZE;
+        final SegmentGrid index = tilesAcross * tilesDown > 1 ? new SegmentGrid(segments) : null;
+
+        // each tile is a view onto a disjoint region of the same raster,
+        // so tiles can be drawn concurrently without locking
+        IntStream.range(0, tilesAcross * tilesDown).parallel().forEach(tile -> {
+            int tileX = (tile % tilesAcross) * TILE_SIZE;
+            int tileY = (tile / tilesAcross) * TILE_SIZE;
+            int tileWidth = Math.min(TILE_SIZE, width - tileX);
+            int tileHeight = Math.min(TILE_SIZE, height - tileY);
+            renderTile(image.getSubimage(tileX, tileY, tileWidth, tileHeight), segments, index,
+                    originX - tileX, originY - tileY, scale);
+        });
+        return image;
+    }
+
+    /**
+     * Render line segments to a new image, moved and scaled so that all of them fit.
+     * 
+     * @param segments segments to draw, in drawing order; must not be modified while rendering
+     * @param width image width in pixels, must be positive
+     * @param height image height in pixels, must be positive
+     * @return RGB image of the segments, centered on the drawing and at most
+     *         one pixel per turtle step
+     */
+    public static BufferedImage renderToFit(SegmentStore segments, int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("invalid image size");
+        }
+        Viewport view = Viewport.fit(segments, width, height, 1.0);
+        return render(segments, width, height, view.scale, view.centerX, view.centerY);
+    }
+
+    /*
+     * Draw the segments that cross a tile, found with index if it is not
+     * null and by scanning them all otherwise.
+     */
+    private static void renderTile(BufferedImage tile, SegmentStore segments, SegmentGrid index,
+                                   double originX, double originY, double scale) {
+        int width = tile.getWidth();
+        int height = tile.getHeight();
+        Graphics2D graphics = tile.createGraphics();
+        try {
+            graphics.setBackground(CANVAS_BG_COLOR);
+            graphics.clearRect(0, 0, width, height);
+            graphics.setStroke(new BasicStroke(1.0f));
+
+            Line2D.Double line = new Line2D.Double();
+            PenColor[] lastColor = new PenColor[1];
+            SegmentStore.SegmentVisitor drawSegment = (startX, startY, endX, endY, color) -> {
+                double x1 = originX + startX * scale;
+                double y1 = originY - startY * scale;
+                double x2 = originX + endX * scale;
+                double y2 = originY - endY * scale;
+                // skip segments whose bounding box misses this tile entirely
+                if (Math.max(x1, x2) < -1 || Math.min(x1, x2) > width
+                        || Math.max(y1, y2) < -1 || Math.min(y1, y2) > height) {
+                    return;
+                }
+                if (color != lastColor[0]) {
+                    lastColor[0] = color;
+                    graphics.setPaint(PenColors.of(color));
+                }
+                line.setLine(x1, y1, x2, y2);
+                graphics.draw(line);
+            };
+            if (index == null) {
+                segments.forEach(drawSegment);
+                return;
+            }
+            // the tile widened by a pixel, in turtle coordinates
+            int[] found = index.query((-1 - originX) / scale, (originY - height - 1) / scale,
+                    (width + 1 - originX) / scale, (originY + 1) / scale, index.size());
+            for (int i : found) {
+                drawSegment.visit(segments.startX(i), segments.startY(i), segments.endX(i), segments.endY(i),
+                        segments.color(i));
+            }
+        } finally {
+            graphics.dispose();
+        }
+    }
+
+    /**
+     * Write an image to a file in PNG format.
+     * 
+     * @param image image to write
+     * @param file destination file, overwritten if it exists
+     * @throws IOException if the file cannot be written
+     */
+    public static void writePng(BufferedImage image, File file) throws IOException {
+        if (!ImageIO.write(image, "png", file)) {
+            throw new IOException("no PNG writer available");
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+import static org.junit.Assert.*;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.geom.Line2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TurtleRendererTest {
+
+    /*
+     * Render segments onto one image in a single pass, without tiles or an index.
+     */
+    private static BufferedImage renderSinglePass(SegmentStore segments, int width, int height, double scale,
+                                                  double centerX, double centerY) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setBackground(Color.WHITE);
+        graphics.clearRect(0, 0, width, height);
+        graphics.setStroke(new BasicStroke(1.0f));
+        double originX = (width - 1) / 2.0 - centerX * scale;
+        double originY = (height - 1) / 2.0 + centerY * scale;
+        Line2D.Double line = new Line2D.Double();
+        segments.forEach((startX, startY, endX, endY, color) -> {
+            graphics.setPaint(PenColors.of(color));
+            line.setLine(originX + startX * scale, originY - startY * scale,
+                    originX + endX * scale, originY - endY * scale);
+            graphics.draw(line);
+        });
+        graphics.dispose();
+        return image;
+    }
+
+    private static void assertSameImage(BufferedImage expected, BufferedImage actual) {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                assertEquals("pixel " + x + "," + y, expected.getRGB(x, y), actual.getRGB(x, y));
+            }
+        }
+    }
+
+    /**
+     * Tests that tiles drawing only the segments their index finds match a
+     * single-pass render, with short and long segments in many colors
+     * crossing tile borders and overlapping each other.
+     */
+    @Test
+    public void tilesMatchSinglePassTest() {
+        Random random = new Random(6005);
+        PenColor[] colors = PenColor.values();
+        SegmentStore store = new SegmentStore();
+        for (int i = 0; i < 3000; i++) {
+            double x = random.nextDouble() * 800 - 400;
+            double y = random.nextDouble() * 600 - 300;
+            double length = i % 10 == 0 ? 600 : 30;
+            store.add(x, y, x + random.nextGaussian() * length, y + random.nextGaussian() * length,
+                    colors[random.nextInt(colors.length)]);
+        }
+        int width = 700;
+        int height = 530;
+        for (double scale : new double[] { 0.5, 1, 2.5 }) {
+            BufferedImage tiled = TurtleRenderer.render(store, width, height, scale, 13.25, -7.5);
+            assertSameImage(renderSinglePass(store, width, height, scale, 13.25, -7.5), tiled);
+        }
+    }
+
+    /**
+     * Tests that a drawing that fits in one tile matches a single-pass render.
+     */
+    @Test
+    public void singleTileTest() {
+        DrawableTurtle turtle = new DrawableTurtle();
+        turtle.regularPolygon(9, 40);
+        turtle.color(PenColor.RED);
+        turtle.forward(500);
+        BufferedImage image = TurtleRenderer.render(turtle.segments(), 200, 100, 1.5);
+        assertSameImage(renderSinglePass(turtle.segments(), 200, 100, 1.5, 0, 0), image);
+    }
+}
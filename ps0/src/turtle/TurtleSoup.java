@@ -5,9 +5,16 @@ package turtle;
 
 import java.util.List;
 import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 public class TurtleSoup {
 
+    private static final double CIRCLE_DEGREES = 360.0;
+
+    // smallest number of headings calculateHeadingsParallel gives to one task
+    private static final int PARALLEL_HEADINGS_THRESHOLD = 1 << 14;
+
     /**
      * Draw a square.
      * 
@@ -100,6 +107,119 @@ public class TurtleSoup {
         throw new RuntimeException("implement me!");
     }
 
+    /**
+     * Given a sequence of points as primitive arrays, calculate the heading adjustments needed
+     * to get from each point to the next.
+     * 
+     * Same as calculateHeadings(List, List), but without boxing: results are written into a
+     * caller-supplied array. Each adjustment depends only on the points around it, so the
+     * loops carry no dependencies from one point to the next.
+     * 
+     * @param xCoords array of x-coordinates
+     * @param yCoords array of y-coordinates, same length as xCoords
+     * @param headings array receiving the heading adjustments between points, each 0 <= angle < 360;
+     *                 heading i is written for the move from point i to point i+1, so
+     *                 headings.length must be at least (# of points) - 1
+     */
+    public static void calculateHeadings(int[] xCoords, int[] yCoords, double[] headings) {
+        int moves = checkHeadingsArguments(xCoords, yCoords, headings);
+        calculateHeadings(xCoords, yCoords, headings, 0, moves);
+    }
+
+    /**
+     * Same as calculateHeadings(int[], int[], double[]), but splits large inputs across the
+     * common fork-join pool.
+     * 
+     * @param xCoords array of x-coordinates
+     * @param yCoords array of y-coordinates, same length as xCoords
+     * @param headings array receiving the heading adjustments between points, each 0 <= angle < 360;
+     *                 headings.length must be at least (# of points) - 1
+     */
+    public static void calculateHeadingsParallel(int[] xCoords, int[] yCoords, double[] headings) {
+        int moves = checkHeadingsArguments(xCoords, yCoords, headings);
+        ForkJoinPool.commonPool().invoke(new HeadingsTask(xCoords, yCoords, headings, 0, moves));
+    }
+
+    private static int checkHeadingsArguments(int[] xCoords, int[] yCoords, double[] headings) {
+        if (xCoords.length != yCoords.length) {
+            throw new IllegalArgumentException("xCoords and yCoords must be the same length");
+        }
+        int moves = Math.max(xCoords.length - 1, 0);
+        if (headings.length < moves) {
+            throw new IllegalArgumentException("headings must have room for " + moves + " values");
+        }
+        return moves;
+    }
+
+    /*
+     * Calculate headings[from..to-1]. The first loop writes the absolute bearing of each
+     * move, and the second turns bearings into adjustments in place, walking backwards so
+     * that each bearing is still unmodified when the next move reads it.
+     */
+    private static void calculateHeadings(int[] xCoords, int[] yCoords, double[] headings, int from, int to) {
+        if (from >= to) {
+            return;
+        }
+        for (int i = from; i < to; i++) {
+            headings[i] = bearing(xCoords[i + 1] - xCoords[i], yCoords[i + 1] - yCoords[i]);
+        }
+        for (int i = to - 1; i > from; i--) {
+            headings[i] = normalizeDegrees(headings[i] - headings[i - 1]);
+        }
+        double previous = from == 0 ? 0.0
+                : bearing(xCoords[from] - xCoords[from - 1], yCoords[from] - yCoords[from - 1]);
+        headings[from] = normalizeDegrees(headings[from] - previous);
+    }
+
+    /*
+     * @return direction of (dx, dy) in degrees clockwise from north, 0 <= bearing < 360
+     */
+    private static double bearing(int dx, int dy) {
+        return normalizeDegrees(Math.toDegrees(Math.atan2(dx, dy)));
+    }
+
+    /*
+     * @return the angle, which must be in (-360, 360), as 0 <= angle < 360
+     */
+    private static double normalizeDegrees(double degrees) {
+        double angle = (degrees < 0 ? degrees + CIRCLE_DEGREES : degrees) + 0.0;
+        return angle >= CIRCLE_DEGREES ? angle - CIRCLE_DEGREES : angle;
+    }
+
+    /*
+     * Calculates a range of headings, splitting it in half until it is small enough.
+     * Ranges are independent because each one computes the bearing before its start itself.
+     */
+    private static class HeadingsTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int[] xCoords;
+        private final int[] yCoords;
+        private final double[] headings;
+        private final int from;
+        private final int to;
+
+        HeadingsTask(int[] xCoords, int[] yCoords, double[] headings, int from, int to) {
+            this.xCoords = xCoords;
+            this.yCoords = yCoords;
+            this.headings = headings;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_HEADINGS_THRESHOLD) {
+                calculateHeadings(xCoords, yCoords, headings, from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new HeadingsTask(xCoords, yCoords, headings, from, middle),
+                    new HeadingsTask(xCoords, yCoords, headings, middle, to));
+        }
+    }
+
     /**
      * Draw your personal, custom art.
      * 
@@ -7,6 +7,7 @@ import static org.junit.Assert.*;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 import org.junit.Test;
 
@@ -70,4 +71,42 @@ public class TurtleSoupTest {
         assertEquals(45.0, result.get(0), 0.001);
         assertEquals(315.0, result.get(1), 0.001);
     }
+
+    /**
+     * Tests calculateHeadings on primitive arrays.
+     */
+    @Test
+    public void calculateHeadingsArrayTest() {
+        double[] result = new double[3];
+        TurtleSoup.calculateHeadings(new int[] { 0, 1, 1, 0 }, new int[] { 0, 1, 2, 2 }, result);
+        assertEquals(45.0, result[0], 0.001);
+        assertEquals(315.0, result[1], 0.001);
+        assertEquals(270.0, result[2], 0.001);
+
+        TurtleSoup.calculateHeadings(new int[0], new int[0], new double[0]);
+        TurtleSoup.calculateHeadings(new int[] { 5 }, new int[] { 5 }, new double[0]);
+    }
+
+    /**
+     * Tests that the parallel calculateHeadings matches the sequential one.
+     */
+    @Test
+    public void calculateHeadingsParallelTest() {
+        Random random = new Random(6005);
+        int points = 100000;
+        int[] xpoints = new int[points];
+        int[] ypoints = new int[points];
+        for (int i = 0; i < points; i++) {
+            xpoints[i] = random.nextInt(2001) - 1000;
+            ypoints[i] = random.nextInt(2001) - 1000;
+        }
+        double[] sequential = new double[points - 1];
+        double[] parallel = new double[points - 1];
+        TurtleSoup.calculateHeadings(xpoints, ypoints, sequential);
+        TurtleSoup.calculateHeadingsParallel(xpoints, ypoints, parallel);
+        for (int i = 0; i < points - 1; i++) {
+            assertEquals(sequential[i], parallel[i], 0.0);
+            assertTrue(sequential[i] >= 0 && sequential[i] < 360);
+        }
+    }
 }
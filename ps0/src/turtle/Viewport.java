@@ -0,0 +1,69 @@
+/* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package turtle;
+
+/**
+ * Immutable view transform from turtle coordinates to an image: turtle point
+ * (centerX, centerY) is at the center of the image, and one turtle step is
+ * scale pixels.
+ */
+final class Viewport {
+
+    /** Space in pixels kept between a fitted drawing and the edge of the image. */
+    static final double FIT_MARGIN_PIXELS = 8;
+
+    final double scale;
+    final double centerX;
+    final double centerY;
+
+    /**
+     * @param scale pixels per turtle step, must be positive
+     * @param centerX x-coordinate of the turtle point shown at the center of the image
+     * @param centerY y-coordinate of the turtle point shown at the center of the image
+     */
+    Viewport(double scale, double centerX, double centerY) {
+        this.scale = scale;
+        this.centerX = centerX;
+        this.centerY = centerY;
+    }
+
+    /**
+     * Find a view that shows all of a drawing.
+     * 
+     * A drawing that fits at the preferred scale with the origin at the center
+     * is shown that way, as it would be without fitting. Otherwise the view is
+     * centered on the drawing and, if the drawing is still too large, zoomed
+     * out until it fits. Uses the store's bounding box, so takes constant time.
+     * 
+     * @param segments drawing to show
+     * @param width image width in pixels, must be positive
+     * @param height image height in pixels, must be positive
+     * @param preferredScale largest scale to use, in pixels per turtle step, must be positive
+     * @return a view showing every segment in the store
+     */
+    static Viewport fit(SegmentStore segments, int width, int height, double preferredScale) {
+        if (segments.size() == 0) {
+            return new Viewport(preferredScale, 0, 0);
+        }
+        double halfWidth = (width - 1) / 2.0;
+        double halfHeight = (height - 1) / 2.0;
+        if (Math.max(-segments.minX(), segments.maxX()) * preferredScale <= halfWidth
+                && Math.max(-segments.minY(), segments.maxY()) * preferredScale <= halfHeight) {
+            return new Viewport(preferredScale, 0, 0);
+        }
+        double drawingWidth = segments.maxX() - segments.minX();
+        double drawingHeight = segments.maxY() - segments.minY();
+        double usableWidth = Math.max(1, width - 1 - 2 * FIT_MARGIN_PIXELS);
+        double usableHeight = Math.max(1, height - 1 - 2 * FIT_MARGIN_PIXELS);
+        double scale = preferredScale;
+        if (drawingWidth * scale > usableWidth) {
+            scale = usableWidth / drawingWidth;
+        }
+        if (drawingHeight * scale > usableHeight) {
+            scale = usableHeight / drawingHeight;
+        }
+        return new Viewport(scale, (segments.minX() + segments.maxX()) / 2,
+                (segments.minY() + segments.maxY()) / 2);
+    }
+}